@@ -2,12 +2,18 @@ package com.bankapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BankAppApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(BankAppApplication.class, args);
+		SpringApplication application = new SpringApplication(BankAppApplication.class);
+		// Records startup steps for StartupReport (app.startup-report.enabled)
+		application.setApplicationStartup(new BufferingApplicationStartup(8192));
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,298 @@
+package com.bankapp.config;
+
+import com.bankapp.dto.DepositRequest;
+import com.bankapp.dto.TransferRequest;
+import com.bankapp.service.ClusterService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+
+// Sends money movement to the node that owns the sending account (see ClusterService), so an
+// account's transfers are serialized on one instance and its in-process state sees all of them. The
+// sending account is the one named in the body, or the user's first account.
+// Runs right after JwtAuthenticationFilter and before RateLimitFilter, so the owner also holds the
+// user's rate-limit bucket. A request is forwarded at most once: the owner processes anything that
+// arrives with the forwarded header, even if its own view of the ring briefly disagrees. Anyone could
+// send that header, so forwarded requests carry an HMAC over the request under the shared
+// app.cluster.forward-secret, and one whose signature does not verify is refused.
+@Component
+public class AccountAffinityFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountAffinityFilter.class);
+
+    public static final String NODE_HEADER = "X-Cluster-Node";
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded-By";
+    public static final String SIGNATURE_HEADER = "X-Cluster-Forwarded-Signature";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final String[] FORWARDED_REQUEST_HEADERS = {HttpHeaders.AUTHORIZATION, HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.ACCEPT};
+    private static final String[] RETURNED_RESPONSE_HEADERS = {HttpHeaders.CONTENT_TYPE, HttpHeaders.RETRY_AFTER,
+            HttpHeaders.CACHE_CONTROL, NODE_HEADER};
+
+    private static final JsonMapper JSON = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Value("${app.cluster.connect-timeout-ms:500}")
+    private long connectTimeoutMs;
+
+    @Value("${app.cluster.forward-timeout-ms:10000}")
+    private long forwardTimeoutMs;
+
+    @Value("${app.cluster.forward-secret:}")
+    private String forwardSecret;
+
+    // How old a forwarded request's signature may be, covering clock differences between nodes
+    @Value("${app.cluster.forward-max-age-ms:30000}")
+    private long forwardMaxAgeMs;
+
+    private HttpClient client;
+
+    @Override
+    protected void initFilterBean() {
+        if (clusterService.isEnabled() && forwardSecret.isBlank()) {
+            throw new IllegalStateException("app.cluster.forward-secret must be set when app.cluster.enabled=true");
+        }
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !clusterService.isEnabled()
+                || RequestPriority.classify(request.getMethod(), request.getServletPath()) != RequestPriority.MONEY_MOVEMENT;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String forwardedBy = request.getHeader(FORWARDED_HEADER);
+        if (forwardedBy != null) {
+            byte[] body = request.getInputStream().readAllBytes();
+            if (!verify(request, forwardedBy, body)) {
+                log.warn("Refusing {} claiming to be forwarded by {} from {}: signature does not verify",
+                        request.getServletPath(), forwardedBy, request.getRemoteAddr());
+                forbidden(response);
+                return;
+            }
+            response.setHeader(NODE_HEADER, clusterService.getNodeId());
+            filterChain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+
+        Object userId = request.getAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE);
+        if (!(userId instanceof Long)) {
+            response.setHeader(NODE_HEADER, clusterService.getNodeId());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        String accountNumber = sendingAccount(request, (Long) userId, body);
+        String ownerUrl = accountNumber == null ? null : clusterService.remoteOwnerUrl(accountNumber);
+        if (ownerUrl == null) {
+            response.setHeader(NODE_HEADER, clusterService.getNodeId());
+            filterChain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+
+        HttpResponse<byte[]> forwarded;
+        try {
+            forwarded = forward(request, ownerUrl, body);
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            // Nothing reached the owner, so it is safe to run here: TransactionService locks the
+            // account rows, so balances stay consistent with any instance still processing for it;
+            // only in-process state such as the fraud profile misses these until membership catches up
+            log.warn("Owner {} unreachable, processing {} locally: {}", ownerUrl, request.getServletPath(), e.getMessage());
+            response.setHeader(NODE_HEADER, clusterService.getNodeId());
+            filterChain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unknownOutcome(response);
+            return;
+        } catch (IOException e) {
+            // The owner may or may not have applied it; retrying here could move the money twice
+            log.warn("Forwarding {} to {} failed: {}", request.getServletPath(), ownerUrl, e.getMessage());
+            unknownOutcome(response);
+            return;
+        }
+
+        response.setStatus(forwarded.statusCode());
+        for (String header : RETURNED_RESPONSE_HEADERS) {
+            forwarded.headers().firstValue(header).ifPresent(value -> response.setHeader(header, value));
+        }
+        response.getOutputStream().write(forwarded.body());
+    }
+
+    private String sendingAccount(HttpServletRequest request, Long userId, byte[] body) {
+        String named = null;
+        try {
+            named = "/user/transfer".equals(request.getServletPath())
+                    ? JSON.readValue(body, TransferRequest.class).getFromAccount()
+                    : JSON.readValue(body, DepositRequest.class).getAccount();
+        } catch (JacksonException e) {
+            // The controller rejects a malformed body wherever it runs
+        }
+        return named == null || named.isBlank() ? clusterService.accountNumberOfUser(userId) : named.trim();
+    }
+
+    private HttpResponse<byte[]> forward(HttpServletRequest request, String ownerUrl, byte[] body)
+            throws IOException, InterruptedException {
+        String timestamp = Long.toString(System.currentTimeMillis());
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(ownerUrl + target(request)))
+                .timeout(Duration.ofMillis(forwardTimeoutMs))
+                .method(request.getMethod(), HttpRequest.BodyPublishers.ofByteArray(body))
+                .header(FORWARDED_HEADER, clusterService.getNodeId())
+                .header(SIGNATURE_HEADER, timestamp + ":" + sign(clusterService.getNodeId(), timestamp, request, body));
+        for (String header : FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(header);
+            if (value != null) {
+                builder.header(header, value);
+            }
+        }
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private boolean verify(HttpServletRequest request, String forwardedBy, byte[] body) {
+        String signature = request.getHeader(SIGNATURE_HEADER);
+        int separator = signature == null ? -1 : signature.indexOf(':');
+        if (separator < 0) {
+            return false;
+        }
+        String timestamp = signature.substring(0, separator);
+        try {
+            if (Math.abs(System.currentTimeMillis() - Long.parseLong(timestamp)) > forwardMaxAgeMs) {
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        byte[] expected = sign(forwardedBy, timestamp, request, body).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.substring(separator + 1).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Covers everything the owner acts on: sender node, time, method, target, credentials and body
+    private String sign(String nodeId, String timestamp, HttpServletRequest request, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(forwardSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+            String signed = nodeId + "\n" + timestamp + "\n" + request.getMethod() + "\n" + target(request) + "\n"
+                    + (authorization == null ? "" : authorization) + "\n"
+                    + Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(signed.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign forwarded request", e);
+        }
+    }
+
+    private static String target(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return request.getServletPath() + (query == null ? "" : "?" + query);
+    }
+
+    private void forbidden(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.FORBIDDEN.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Invalid cluster forwarding signature\",\"success\":false,\"data\":null}");
+    }
+
+    // No Retry-After: the outcome is unknown, so the client has to look before trying again
+    private void unknownOutcome(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.GATEWAY_TIMEOUT.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"No answer from the account's node. Check your transactions "
+                + "before retrying\",\"success\":false,\"data\":null}");
+    }
+
+    // Replays a body that was already read for forwarding
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is available at once and then finished
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.bankapp.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// AIMD concurrency limit: grows by one per limit's worth of on-target completions and shrinks by
+// 10% (at most once per target latency) whenever a completion is slower than the target.
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger fastCompletions = new AtomicInteger();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+
+    public AdaptiveConcurrencyLimit(int minLimit, int maxLimit, long targetLatencyMillis) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.limit = new AtomicInteger(maxLimit);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+
+        if (latencyNanos > targetLatencyNanos) {
+            long now = System.nanoTime();
+            long last = lastDecreaseNanos.get();
+            if (now - last >= targetLatencyNanos && lastDecreaseNanos.compareAndSet(last, now)) {
+                limit.updateAndGet(l -> Math.max(minLimit, (int) (l * 0.9)));
+                fastCompletions.set(0);
+            }
+            return;
+        }
+
+        int current = limit.get();
+        if (current < maxLimit && fastCompletions.incrementAndGet() >= current) {
+            fastCompletions.set(0);
+            limit.compareAndSet(current, current + 1);
+        }
+    }
+
+    public boolean isSaturated() {
+        return inFlight.get() >= limit.get();
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,187 @@
+package com.bankapp.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Admission control in front of authentication. Each priority class has its own adaptive
+// concurrency limit, and a class is shed outright while any higher-priority class is saturated.
+//
+// With virtual threads, max-in-flight caps all classes together below the connection pool.
+// Open-in-view holds a connection for the whole request, and Tomcat no longer bounds concurrency by
+// its worker pool, so without this cap excess requests would queue inside Hikari until
+// connection-timeout instead of being shed here with a 503. Each lower class stops an eighth of
+// the cap earlier, so reads can never take every connection away from money movement. On platform
+// threads Tomcat's worker pool already bounds concurrency, and a cap below the pool size would only
+// shed requests the server could have queued, so only the per-class limits apply.
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.admission.max-in-flight:32}")
+    private int maxInFlight;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<RequestPriority, AdaptiveConcurrencyLimit> limits = new EnumMap<>(RequestPriority.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @PostConstruct
+    void initLimits() {
+        for (RequestPriority priority : RequestPriority.values()) {
+            String prefix = "app.admission." + priority.getKey() + ".";
+            limits.put(priority, new AdaptiveConcurrencyLimit(
+                    environment.getProperty(prefix + "min-limit", Integer.class, priority.getDefaultMinLimit()),
+                    environment.getProperty(prefix + "max-limit", Integer.class, priority.getDefaultMaxLimit()),
+                    environment.getProperty(prefix + "target-latency-ms", Long.class, priority.getDefaultTargetLatencyMillis())
+            ));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "OPTIONS".equalsIgnoreCase(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        RequestPriority priority = RequestPriority.classify(request.getMethod(), request.getServletPath());
+        AdaptiveConcurrencyLimit limit = limits.get(priority);
+
+        if (higherPrioritySaturated(priority) || !tryAcquireShared(priority)) {
+            reject(response, priority);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            inFlight.decrementAndGet();
+            reject(response, priority);
+            return;
+        }
+
+        Slot slot = new Slot(limit, System.nanoTime());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // An async or streaming response is still running (and, under open-in-view, still holds
+            // its connection) when the initial dispatch returns, so it keeps the slot until it ends.
+            // The container only runs the async listeners after this dispatch has returned.
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(slot);
+            } else {
+                slot.release();
+            }
+        }
+    }
+
+    public Map<RequestPriority, AdaptiveConcurrencyLimit> getLimits() {
+        return limits;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private boolean tryAcquireShared(RequestPriority priority) {
+        if (!virtualThreads) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        int ceiling = maxInFlight - priority.ordinal() * maxInFlight / 8;
+        while (true) {
+            int current = inFlight.get();
+            if (current >= ceiling) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean higherPrioritySaturated(RequestPriority priority) {
+        for (RequestPriority higher : RequestPriority.values()) {
+            if (higher == priority) {
+                return false;
+            }
+            if (limits.get(higher).isSaturated()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Released once, by whichever of completion, error or timeout is reported first
+    private final class Slot implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimit limit;
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot(AdaptiveConcurrencyLimit limit, long start) {
+            this.limit = limit;
+            this.start = start;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                limit.release(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        // A new async cycle drops the registered listeners, so the slot follows it
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private void reject(HttpServletResponse response, RequestPriority priority) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Server is busy (" + priority.getKey()
+                + "). Please retry shortly\",\"success\":false,\"data\":null}");
+    }
+}
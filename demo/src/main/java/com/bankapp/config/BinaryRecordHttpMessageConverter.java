@@ -0,0 +1,117 @@
+package com.bankapp.config;
+
+import com.bankapp.dto.ApiResponse;
+import com.bankapp.dto.TransactionPage;
+import com.bankapp.dto.TransactionResponse;
+import com.bankapp.dto.UserPage;
+import com.bankapp.dto.UserResponse;
+import com.bankapp.service.BinaryRecordWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+
+// Writes listing responses as BinaryRecordFormat streams for clients asking for them in Accept, so
+// each listing endpoint serves JSON and records from one handler. UserPage data becomes a user
+// stream, TransactionPage data and transaction lists a transaction stream; anything else, failures
+// included, is written as JSON.
+//
+// Boot places converter beans ahead of the JSON one, so this converter never offers itself: a
+// listing opts in with produces = {APPLICATION_JSON_VALUE, BinaryRecordWriter.MEDIA_TYPE}, which keeps
+// JSON first for Accept: */*, and every other endpoint stays JSON-only.
+@Component
+public class BinaryRecordHttpMessageConverter extends AbstractHttpMessageConverter<ApiResponse> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(BinaryRecordWriter.MEDIA_TYPE);
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    public BinaryRecordHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    // Whether this request's response will be a record stream, for handlers whose ETag must differ
+    // between the two representations
+    public static boolean isAccepted(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(type -> type.isConcrete() && type.includes(MEDIA_TYPE) && type.getQualityValue() > 0);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ApiResponse.class.isAssignableFrom(clazz);
+    }
+
+    // Only once content negotiation has settled on the record type
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return supports(clazz) && mediaType != null && mediaType.isConcrete() && MEDIA_TYPE.includes(mediaType);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ApiResponse readInternal(Class<? extends ApiResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Record streams are only written", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ApiResponse response, HttpOutputMessage outputMessage) throws IOException {
+        Object data = response.getData();
+        if (!response.isSuccess() || !(data instanceof UserPage || data instanceof TransactionPage
+                || data instanceof Iterable<?>)) {
+            outputMessage.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            jsonMapper.writeValue(outputMessage.getBody(), response);
+            return;
+        }
+
+        if (data instanceof UserPage page) {
+            BinaryRecordWriter writer = BinaryRecordWriter.users(outputMessage.getBody());
+            for (UserResponse user : page.getUsers()) {
+                writer.write(user);
+            }
+            writer.finish(page.getNextCursor());
+            return;
+        }
+
+        BinaryRecordWriter writer = BinaryRecordWriter.transactions(outputMessage.getBody());
+        String nextCursor = null;
+        Iterable<?> transactions;
+        if (data instanceof TransactionPage page) {
+            transactions = page.getTransactions();
+            nextCursor = page.getNextCursor() == null ? null : page.getNextCursor().toString();
+        } else {
+            transactions = (Iterable<?>) data;
+        }
+        try {
+            // A lazily read listing can still fail after the first records went out
+            for (Object transaction : transactions) {
+                writer.write((TransactionResponse) transaction);
+            }
+        } catch (RuntimeException e) {
+            writer.fail(e.getMessage());
+            return;
+        }
+        writer.finish(nextCursor);
+    }
+}
@@ -0,0 +1,26 @@
+package com.bankapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfig {
+
+    @Value("${app.schema.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    // In the fast profile migrations are applied by a separate step before the rollout; each
+    // instance only checks the schema history, and refuses to start if a migration is missing
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy() {
+        return flyway -> {
+            if (migrateOnStartup) {
+                flyway.migrate();
+            } else {
+                flyway.validate();
+            }
+        };
+    }
+}
@@ -1,5 +1,7 @@
 package com.bankapp.config;
 
+import com.bankapp.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,9 +20,14 @@ import java.util.Collections;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    public static final String USER_ID_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".userId";
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -32,23 +39,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String email = null;
+        Claims claims = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
+            // Parsing verifies the signature and expiry, so the claims are read once per request
             try {
-                email = jwtUtil.extractEmail(token);
+                claims = jwtUtil.extractClaims(authHeader.substring(7));
             } catch (Exception e) {
                 logger.error("JWT token extraction failed", e);
             }
         }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(token)) {
-                String role = jwtUtil.extractRole(token);
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (claims.getId() == null || !tokenRevocationService.isRevoked(claims.getId())) {
+                String role = claims.get("role", String.class);
+                request.setAttribute(USER_ID_ATTRIBUTE, claims.get("userId", Long.class));
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        email,
+                        claims.getSubject(),
                         null,
                         Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
                 );
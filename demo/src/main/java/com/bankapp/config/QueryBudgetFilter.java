@@ -0,0 +1,71 @@
+package com.bankapp.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    // The finished Recording, left on the request for tests that assert per-endpoint counts
+    public static final String RECORDING_ATTRIBUTE = QueryBudgetFilter.class.getName() + ".recording";
+
+    @Value("${app.query-budget.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.query-budget.max-statements:10}")
+    private int maxStatements;
+
+    @Value("${app.query-budget.repeat-threshold:3}")
+    private int repeatThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        QueryCountHolder.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCountHolder.Recording recording = QueryCountHolder.stop();
+            request.setAttribute(RECORDING_ATTRIBUTE, recording);
+            report(request, recording);
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryCountHolder.Recording recording) {
+        Map<String, Integer> repeated = recording.repeatedAtLeast(repeatThreshold);
+        if (recording.getTotal() <= maxStatements && repeated.isEmpty()) {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder()
+                .append(request.getMethod()).append(' ').append(request.getRequestURI())
+                .append(" ran ").append(recording.getTotal()).append(" statement(s) (budget ")
+                .append(maxStatements).append(')');
+        if (!repeated.isEmpty()) {
+            message.append("; possible N+1:");
+            repeated.forEach((sql, count) -> message.append("\n  ").append(count).append("x ").append(sql));
+        }
+        message.append("\nStatements:");
+        recording.getFingerprints().forEach((sql, count) ->
+                message.append("\n  ").append(count).append("x ").append(sql));
+
+        logger.warn(message.toString());
+    }
+}
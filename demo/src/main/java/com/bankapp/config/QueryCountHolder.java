@@ -0,0 +1,78 @@
+package com.bankapp.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Thread-bound record of the SQL statements Hibernate prepares while a recording is active.
+// Started per HTTP request by QueryBudgetFilter and usable directly from tests.
+public final class QueryCountHolder {
+
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private QueryCountHolder() {
+    }
+
+    public static void start() {
+        CURRENT.set(new Recording());
+    }
+
+    public static Recording current() {
+        return CURRENT.get();
+    }
+
+    public static Recording stop() {
+        Recording recording = CURRENT.get();
+        CURRENT.remove();
+        return recording != null ? recording : new Recording();
+    }
+
+    static void record(String sql) {
+        Recording recording = CURRENT.get();
+        if (recording != null) {
+            recording.add(fingerprint(sql));
+        }
+    }
+
+    static String fingerprint(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase();
+    }
+
+    public static final class Recording {
+
+        private final Map<String, Integer> fingerprints = new LinkedHashMap<>();
+        private int total;
+
+        private void add(String fingerprint) {
+            total++;
+            fingerprints.merge(fingerprint, 1, Integer::sum);
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public Map<String, Integer> getFingerprints() {
+            return Collections.unmodifiableMap(fingerprints);
+        }
+
+        public Map<String, Integer> repeatedAtLeast(int times) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            fingerprints.forEach((sql, count) -> {
+                if (count >= times) {
+                    repeated.put(sql, count);
+                }
+            });
+            return repeated;
+        }
+    }
+}
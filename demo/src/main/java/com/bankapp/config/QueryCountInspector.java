@@ -0,0 +1,16 @@
+package com.bankapp.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Registered through hibernate.session_factory.statement_inspector; Hibernate creates it
+// reflectively, so all state lives in QueryCountHolder.
+public class QueryCountInspector implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String inspect(String sql) {
+        QueryCountHolder.record(sql);
+        return sql;
+    }
+}
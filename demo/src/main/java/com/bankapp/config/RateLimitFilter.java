@@ -0,0 +1,85 @@
+package com.bankapp.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Per-user limits on money-movement endpoints. Runs in the security chain right after
+// JwtAuthenticationFilter, so throttled requests never reach a controller or the database.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.transfer.capacity:5}")
+    private int transferCapacity;
+
+    @Value("${app.rate-limit.transfer.refill-per-second:1}")
+    private double transferRefillPerSecond;
+
+    @Value("${app.rate-limit.deposit.capacity:5}")
+    private int depositCapacity;
+
+    @Value("${app.rate-limit.deposit.refill-per-second:1}")
+    private double depositRefillPerSecond;
+
+    private final Map<String, TokenBucketLimiter> limiters = new HashMap<>();
+
+    @PostConstruct
+    void initLimiters() {
+        limiters.put("/user/transfer", new TokenBucketLimiter(transferCapacity, transferRefillPerSecond));
+        limiters.put("/user/deposit", new TokenBucketLimiter(depositCapacity, depositRefillPerSecond));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !"POST".equalsIgnoreCase(request.getMethod())
+                || !limiters.containsKey(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        // Unauthenticated requests are rejected by the authorization rules further down the chain
+        Object userId = request.getAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE);
+        if (!(userId instanceof Long)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = limiters.get(request.getServletPath()).tryAcquire((Long) userId);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Too many requests. Retry after " + retryAfterSeconds
+                    + " second(s)\",\"success\":false,\"data\":null}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        limiters.values().forEach(TokenBucketLimiter::evictIdle);
+    }
+}
@@ -0,0 +1,50 @@
+package com.bankapp.config;
+
+// Endpoint classes in admission order: when the database slows down, later classes are shed first
+public enum RequestPriority {
+    MONEY_MOVEMENT("money-movement", 8, 64, 200),
+    AUTH("auth", 4, 32, 300),
+    USER_READ("user-read", 4, 32, 250),
+    ADMIN_READ("admin-read", 1, 8, 500);
+
+    private final String key;
+    private final int defaultMinLimit;
+    private final int defaultMaxLimit;
+    private final long defaultTargetLatencyMillis;
+
+    RequestPriority(String key, int defaultMinLimit, int defaultMaxLimit, long defaultTargetLatencyMillis) {
+        this.key = key;
+        this.defaultMinLimit = defaultMinLimit;
+        this.defaultMaxLimit = defaultMaxLimit;
+        this.defaultTargetLatencyMillis = defaultTargetLatencyMillis;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getDefaultMinLimit() {
+        return defaultMinLimit;
+    }
+
+    public int getDefaultMaxLimit() {
+        return defaultMaxLimit;
+    }
+
+    public long getDefaultTargetLatencyMillis() {
+        return defaultTargetLatencyMillis;
+    }
+
+    public static RequestPriority classify(String method, String path) {
+        if ("POST".equalsIgnoreCase(method) && ("/user/transfer".equals(path) || "/user/deposit".equals(path))) {
+            return MONEY_MOVEMENT;
+        }
+        if (path.startsWith("/auth/")) {
+            return AUTH;
+        }
+        if (path.startsWith("/admin/")) {
+            return ADMIN_READ;
+        }
+        return USER_READ;
+    }
+}
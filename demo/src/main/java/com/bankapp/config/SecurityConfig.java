@@ -25,6 +25,15 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private AdmissionControlFilter admissionControlFilter;
+
+    @Autowired
+    private AccountAffinityFilter accountAffinityFilter;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -56,7 +65,10 @@ public class SecurityConfig {
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(admissionControlFilter, JwtAuthenticationFilter.class)
+            .addFilterAfter(accountAffinityFilter, JwtAuthenticationFilter.class)
+            .addFilterAfter(rateLimitFilter, AccountAffinityFilter.class);
 
         return http.build();
     }
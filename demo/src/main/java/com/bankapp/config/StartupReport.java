@@ -0,0 +1,71 @@
+package com.bankapp.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Logs where startup time went once the application is ready: JVM launch to SpringApplication,
+// total time to ready, and the slowest bean instantiations. Fed by the BufferingApplicationStartup
+// installed in BankAppApplication; the buffer is drained afterwards.
+@Component
+public class StartupReport {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
+    @Value("${app.startup-report.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.startup-report.top-beans:10}")
+    private int topBeans;
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        if (!enabled || !(applicationContext.getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        StartupTimeline timeline = startup.drainBufferedTimeline();
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        long beforeSpring = timeline.getStartTime().toEpochMilli() - jvmStart;
+        Duration timeTaken = event.getTimeTaken();
+
+        log.info("Startup: JVM launch to SpringApplication {} ms, SpringApplication to ready {} ms, JVM uptime {} ms",
+                beforeSpring, timeTaken == null ? "?" : timeTaken.toMillis(),
+                ManagementFactory.getRuntimeMXBean().getUptime());
+
+        // A bean's time includes the beans it pulled in as dependencies
+        List<StartupTimeline.TimelineEvent> slowest = timeline.getEvents().stream()
+                .filter(step -> step.getStartupStep().getName().equals("spring.beans.instantiate"))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(topBeans)
+                .collect(Collectors.toList());
+        for (StartupTimeline.TimelineEvent step : slowest) {
+            log.info("Startup: {} ms instantiating {}", step.getDuration().toMillis(), beanName(step.getStartupStep()));
+        }
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals("beanName")) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,71 @@
+package com.bankapp.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket expressed as GCRA: each key holds a single "theoretical arrival time" that is
+// advanced with compareAndSet, so admitting a request never takes a lock.
+public class TokenBucketLimiter {
+
+    // Arrival time of a bucket evictIdle has removed; tryAcquire never advances it, so a request
+    // that looked the bucket up just before the eviction retries on the key's new bucket
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final ConcurrentHashMap<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucketLimiter(int capacity, double refillPerSecond) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate limit capacity and refill rate must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.burstNanos = intervalNanos * capacity;
+    }
+
+    // Returns 0 when the request is admitted, otherwise the nanoseconds until a token is available
+    public long tryAcquire(Long key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long tat = bucket.get();
+            if (tat == RETIRED) {
+                bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+                continue;
+            }
+            long newTat = Math.max(tat, now) + intervalNanos;
+            long wait = newTat - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    // A bucket whose arrival time has passed is full again and behaves exactly like a new one. It is
+    // removed under the map's lock for its key and only if it is still idle when retired, so a
+    // concurrent tryAcquire either lands before the retirement (and keeps the bucket) or after it
+    // (and moves to a new bucket); it never consumes from a bucket that is no longer in the map.
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int[] evicted = {0};
+        for (Long key : buckets.keySet()) {
+            buckets.computeIfPresent(key, (k, bucket) -> {
+                long tat = bucket.get();
+                if (tat - now <= 0 && bucket.compareAndSet(tat, RETIRED)) {
+                    evicted[0]++;
+                    return null;
+                }
+                return bucket;
+            });
+        }
+        return evicted[0];
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -1,18 +1,30 @@
 package com.bankapp.controller;
 
+import com.bankapp.config.JwtUtil;
 import com.bankapp.dto.*;
 import com.bankapp.model.Transaction;
-import com.bankapp.model.User;
+import com.bankapp.service.AccountReadCoalescer;
+import com.bankapp.service.AuditJournal;
+import com.bankapp.service.BinaryRecordWriter;
+import com.bankapp.service.ClusterService;
+import com.bankapp.service.FraudBacktestService;
+import com.bankapp.service.PinningMonitor;
+import com.bankapp.service.ReconciliationService;
+import com.bankapp.service.StatementService;
+import com.bankapp.service.TokenRevocationService;
+import com.bankapp.service.TransactionSearchService;
 import com.bankapp.service.TransactionService;
 import com.bankapp.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.YearMonth;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/admin")
@@ -25,46 +37,70 @@ public class AdminController {
     @Autowired
     private TransactionService transactionService;
 
-    @GetMapping("/users")
-    public ResponseEntity<ApiResponse> getAllUsers() {
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private FraudBacktestService fraudBacktestService;
+
+    @Autowired
+    private AuditJournal auditJournal;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+
+    @Autowired
+    private PinningMonitor pinningMonitor;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private AccountReadCoalescer accountReadCoalescer;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @GetMapping(value = "/users", produces = {MediaType.APPLICATION_JSON_VALUE, BinaryRecordWriter.MEDIA_TYPE})
+    public ResponseEntity<ApiResponse> getUsers(@RequestParam(required = false) String name,
+                                                @RequestParam(required = false) String email,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer limit) {
         try {
-            List<User> users = userService.findAllUsers();
-            List<UserResponse> userResponses = users.stream()
-                    .map(user -> {
-                        UserResponse response = new UserResponse();
-                        response.setId(user.getId());
-                        response.setName(user.getName());
-                        response.setEmail(user.getEmail());
-                        response.setRole(user.getRole().name());
-                        return response;
-                    })
-                    .collect(Collectors.toList());
+            UserPage page = userService.searchUsers(name, email, cursor, limit);
 
             ApiResponse response = new ApiResponse();
             response.setSuccess(true);
             response.setMessage("Users retrieved successfully");
-            response.setData(userResponses);
+            response.setData(page);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(response);
         } catch (Exception e) {
             ApiResponse response = new ApiResponse();
             response.setSuccess(false);
             response.setMessage(e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
     }
 
-    @GetMapping("/transactions")
+    // Read page by page while the response is written, as JSON or as a record stream
+    @GetMapping(value = "/transactions", produces = {MediaType.APPLICATION_JSON_VALUE, BinaryRecordWriter.MEDIA_TYPE})
     public ResponseEntity<ApiResponse> getAllTransactions() {
         try {
-            List<TransactionResponse> transactions = transactionService.getAllTransactions();
+            Iterable<TransactionResponse> transactions = transactionService.getAllTransactions();
 
             ApiResponse response = new ApiResponse();
             response.setSuccess(true);
             response.setMessage("All transactions retrieved successfully");
             response.setData(transactions);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(response);
         } catch (Exception e) {
             ApiResponse response = new ApiResponse();
             response.setSuccess(false);
@@ -73,7 +109,26 @@ public class AdminController {
         }
     }
 
-    @GetMapping("/fraud-transactions")
+    @GetMapping(value = "/transactions/search", produces = {MediaType.APPLICATION_JSON_VALUE, BinaryRecordWriter.MEDIA_TYPE})
+    public ResponseEntity<ApiResponse> searchTransactions(@ModelAttribute TransactionSearchRequest searchRequest) {
+        try {
+            TransactionPage page = transactionSearchService.search(searchRequest);
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Transactions retrieved successfully");
+            response.setData(page);
+
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    @GetMapping(value = "/fraud-transactions", produces = {MediaType.APPLICATION_JSON_VALUE, BinaryRecordWriter.MEDIA_TYPE})
     public ResponseEntity<ApiResponse> getFraudTransactions() {
         try {
             List<TransactionResponse> fraudTransactions = transactionService.getFraudTransactions();
@@ -83,7 +138,7 @@ public class AdminController {
             response.setMessage("Fraud transactions retrieved successfully");
             response.setData(fraudTransactions);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(response);
         } catch (Exception e) {
             ApiResponse response = new ApiResponse();
             response.setSuccess(false);
@@ -103,15 +158,7 @@ public class AdminController {
                     decisionRequest.getReason()
             );
 
-            TransactionResponse transactionResponse = new TransactionResponse();
-            transactionResponse.setId(transaction.getId());
-            transactionResponse.setFromAccount(transaction.getFromAccount());
-            transactionResponse.setToAccount(transaction.getToAccount());
-            transactionResponse.setAmount(transaction.getAmount());
-            transactionResponse.setTimestamp(transaction.getTimestamp());
-            transactionResponse.setStatus(transaction.getStatus());
-            transactionResponse.setIsFraud(transaction.getIsFraud());
-            transactionResponse.setFraudReason(transaction.getFraudReason());
+            TransactionResponse transactionResponse = transactionService.convertToTransactionResponse(transaction);
 
             ApiResponse response = new ApiResponse();
             response.setSuccess(true);
@@ -126,6 +173,182 @@ public class AdminController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
     }
-}
 
+    @PostMapping("/reconciliation/run")
+    public ResponseEntity<ApiResponse> runReconciliation() {
+        try {
+            ReconciliationReport report = reconciliationService.reconcileAll();
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Reconciliation completed successfully");
+            response.setData(report);
 
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+    }
+
+    @GetMapping("/reconciliation/mismatches")
+    public ResponseEntity<ApiResponse> getReconciliationMismatches() {
+        try {
+            List<AccountReconciliationResponse> mismatches = reconciliationService.getMismatches();
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Reconciliation mismatches retrieved successfully");
+            response.setData(mismatches);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @PostMapping("/statements")
+    public ResponseEntity<ApiResponse> generateStatements(
+            @RequestParam String month,
+            @RequestParam(defaultValue = "csv") String format) {
+        try {
+            StatementRunReport report = statementService.generateStatements(YearMonth.parse(month), format);
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Statements generated successfully");
+            response.setData(report);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    @PostMapping("/fraud/backtest")
+    public ResponseEntity<ApiResponse> backtestFraudRules(@RequestBody BacktestRequest backtestRequest) {
+        try {
+            BacktestReport report = fraudBacktestService.backtest(backtestRequest);
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Fraud rule backtest completed successfully");
+            response.setData(report);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    @PostMapping("/audit-journal/verify")
+    public ResponseEntity<ApiResponse> verifyAuditJournal() {
+        try {
+            AuditJournalReport report = auditJournal.verify();
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Audit journal verified successfully");
+            response.setData(report);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @GetMapping("/diagnostics/pinning")
+    public ResponseEntity<ApiResponse> getPinningReport() {
+        try {
+            PinningReport report = pinningMonitor.report();
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Pinning report retrieved successfully");
+            response.setData(report);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @GetMapping("/diagnostics/coalescing")
+    public ResponseEntity<ApiResponse> getReadCoalescingReport() {
+        try {
+            ReadCoalescingReport report = accountReadCoalescer.report();
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Read coalescing report retrieved successfully");
+            response.setData(report);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @GetMapping("/cluster")
+    public ResponseEntity<ApiResponse> getClusterMembership(@RequestParam(required = false) String account) {
+        try {
+            ClusterReport report = clusterService.report(account);
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Cluster membership retrieved successfully");
+            response.setData(report);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @PostMapping("/tokens/revoke")
+    public ResponseEntity<ApiResponse> revokeToken(@RequestBody RevokeTokenRequest revokeRequest) {
+        try {
+            if (revokeRequest.getToken() != null) {
+                tokenRevocationService.revoke(jwtUtil.extractClaims(revokeRequest.getToken()));
+            } else if (revokeRequest.getJti() != null) {
+                tokenRevocationService.revoke(revokeRequest.getJti());
+            } else {
+                throw new RuntimeException("Either token or jti is required");
+            }
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Token revoked successfully");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+}
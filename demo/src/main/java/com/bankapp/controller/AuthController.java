@@ -6,6 +6,7 @@ import com.bankapp.dto.LoginRequest;
 import com.bankapp.dto.LoginResponse;
 import com.bankapp.dto.RegisterRequest;
 import com.bankapp.model.User;
+import com.bankapp.service.TokenRevocationService;
 import com.bankapp.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -26,6 +27,9 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @PostMapping("/register")
     public ResponseEntity<ApiResponse> register(@RequestBody RegisterRequest request) {
         try {
@@ -76,6 +80,25 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
     }
-}
 
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        try {
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                throw new RuntimeException("Missing bearer token");
+            }
+            tokenRevocationService.revoke(jwtUtil.extractClaims(authHeader.substring(7)));
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Logged out successfully");
 
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+    }
+}
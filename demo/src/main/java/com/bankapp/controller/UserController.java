@@ -1,21 +1,33 @@
 package com.bankapp.controller;
 
+import com.bankapp.config.BinaryRecordHttpMessageConverter;
+import com.bankapp.config.JwtAuthenticationFilter;
 import com.bankapp.config.JwtUtil;
 import com.bankapp.dto.*;
 import com.bankapp.model.Account;
+import com.bankapp.model.ScheduledTransfer;
 import com.bankapp.model.Transaction;
 import com.bankapp.model.User;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.service.AccountRollupService;
+import com.bankapp.service.BinaryRecordWriter;
+import com.bankapp.service.GroupCommitService;
+import com.bankapp.service.PortfolioService;
+import com.bankapp.service.ScheduledTransferService;
 import com.bankapp.service.TransactionService;
 import com.bankapp.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/user")
@@ -28,6 +40,18 @@ public class UserController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private ScheduledTransferService scheduledTransferService;
+
+    @Autowired
+    private GroupCommitService groupCommitService;
+
+    @Autowired
+    private AccountRollupService accountRollupService;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -42,6 +66,49 @@ public class UserController {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    // Conditional GETs only need the account's change version: a matching If-None-Match is answered
+    // with one indexed lookup, before the account or any history is loaded. The same version keys the
+    // shared loads in AccountReadCoalescer. A null accountNumber means the user's first account.
+    private AccountRepository.AccountVersion accountVersion(HttpServletRequest request, String accountNumber) {
+        Object userId = request.getAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE);
+        Long id = userId instanceof Long ? (Long) userId : getCurrentUser(request).getId();
+        return userService.getAccountVersion(id, accountNumber)
+                .orElseThrow(() -> new RuntimeException(accountNumber == null || accountNumber.isBlank()
+                        ? "Account not found. Please create an account first." : "Account not found"));
+    }
+
+    private static String eTag(String resource, AccountRepository.AccountVersion version) {
+        return eTag(resource, version.getId(), version.getChangeVersion());
+    }
+
+    private static String eTag(String resource, Long accountId, Long changeVersion) {
+        return "\"" + resource + "-" + accountId + "-" + changeVersion + "\"";
+    }
+
+    private static boolean matchesIfNoneMatch(HttpServletRequest request, String eTag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (eTag == null || ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
+
     @PostMapping("/account")
     public ResponseEntity<ApiResponse> createAccount(HttpServletRequest request) {
         try {
@@ -64,20 +131,28 @@ public class UserController {
     }
 
     @GetMapping("/account")
-    public ResponseEntity<ApiResponse> getAccount(HttpServletRequest request) {
+    public ResponseEntity<ApiResponse> getAccount(@RequestParam(required = false) String account,
+                                                  HttpServletRequest request) {
         try {
-            User user = getCurrentUser(request);
-            Account account = userService.getAccountByUser(user)
-                    .orElseThrow(() -> new RuntimeException("Account not found. Please create an account first."));
+            AccountRepository.AccountVersion version = accountVersion(request, account);
+            String currentETag = eTag("account", version);
+            if (matchesIfNoneMatch(request, currentETag)) {
+                return notModified(currentETag);
+            }
 
-            AccountResponse accountResponse = userService.convertToAccountResponse(account);
+            AccountResponse accountResponse = userService.getAccountResponse(version);
 
             ApiResponse response = new ApiResponse();
             response.setSuccess(true);
             response.setMessage("Account retrieved successfully");
             response.setData(accountResponse);
 
-            return ResponseEntity.ok(response);
+            // If a deposit lands in between, the tag is older than the body and the next conditional
+            // request simply refetches
+            return ResponseEntity.ok()
+                    .eTag(currentETag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(response);
         } catch (Exception e) {
             ApiResponse response = new ApiResponse();
             response.setSuccess(false);
@@ -90,20 +165,21 @@ public class UserController {
     public ResponseEntity<ApiResponse> depositMoney(@RequestBody DepositRequest depositRequest, HttpServletRequest request) {
         try {
             User user = getCurrentUser(request);
-            Account userAccount = userService.getAccountByUser(user)
-                    .orElseThrow(() -> new RuntimeException("Account not found. Please create an account first."));
+            Account userAccount = userService.getAccount(user, depositRequest.getAccount());
 
-            transactionService.depositMoney(
-                    userAccount.getAccountNumber(),
-                    depositRequest.getAmount(),
-                    user
-            );
-
-            // Refresh account to get updated balance
-            Account updatedAccount = userService.getAccountByUser(user)
-                    .orElseThrow(() -> new RuntimeException("Account not found"));
+            if (groupCommitService.isEnabled()) {
+                userAccount = groupCommitService.depositMoney(userAccount.getAccountNumber(), depositRequest.getAmount(), user);
+            } else {
+                transactionService.depositMoney(
+                        userAccount.getAccountNumber(),
+                        depositRequest.getAmount(),
+                        user
+                );
+            }
 
-            AccountResponse accountResponse = userService.convertToAccountResponse(updatedAccount);
+            // On the per-request path the deposit updated this same managed instance (one persistence
+            // context per request), so the balance is already current without another lookup
+            AccountResponse accountResponse = userService.convertToAccountResponse(userAccount);
 
             ApiResponse response = new ApiResponse();
             response.setSuccess(true);
@@ -123,20 +199,25 @@ public class UserController {
     public ResponseEntity<ApiResponse> transferMoney(@RequestBody TransferRequest transferRequest, HttpServletRequest request) {
         try {
             User user = getCurrentUser(request);
-            Account userAccount = userService.getAccountByUser(user)
-                    .orElseThrow(() -> new RuntimeException("Account not found. Please create an account first."));
-
-            Transaction transaction = transactionService.transferMoney(
-                    userAccount.getAccountNumber(),
-                    transferRequest.getToAccount(),
-                    transferRequest.getAmount(),
-                    user
-            );
+            Account userAccount = userService.getAccount(user, transferRequest.getFromAccount());
+
+            // Transfers to the user's own accounts take the fast path inside applyTransfer
+            Transaction transaction = groupCommitService.isEnabled()
+                    ? groupCommitService.transferMoney(
+                            userAccount.getAccountNumber(),
+                            transferRequest.getToAccount(),
+                            transferRequest.getAmount(),
+                            user)
+                    : transactionService.transferMoney(
+                            userAccount.getAccountNumber(),
+                            transferRequest.getToAccount(),
+                            transferRequest.getAmount(),
+                            user);
 
             TransactionResponse transactionResponse = new TransactionResponse();
             transactionResponse.setId(transaction.getId());
-            transactionResponse.setFromAccount(transaction.getFromAccount());
-            transactionResponse.setToAccount(transaction.getToAccount());
+            transactionResponse.setFromAccount(userAccount.getAccountNumber());
+            transactionResponse.setToAccount(transferRequest.getToAccount());
             transactionResponse.setAmount(transaction.getAmount());
             transactionResponse.setTimestamp(transaction.getTimestamp());
             transactionResponse.setStatus(transaction.getStatus());
@@ -158,24 +239,55 @@ public class UserController {
         }
     }
 
-    @GetMapping("/transactions")
-    public ResponseEntity<ApiResponse> getTransactions(HttpServletRequest request) {
+    @GetMapping(value = "/transactions", produces = {MediaType.APPLICATION_JSON_VALUE, BinaryRecordWriter.MEDIA_TYPE})
+    public ResponseEntity<ApiResponse> getTransactions(@RequestParam(required = false) String account,
+                                                       HttpServletRequest request) {
         try {
-            User user = getCurrentUser(request);
-            List<TransactionResponse> transactions = transactionService.getUserTransactions(user);
+            // Read before the history: if a transfer lands in between, the tag is older than the body
+            // and the next conditional request simply refetches
+            AccountRepository.AccountVersion version = accountVersion(request, account);
+            // The JSON and record-stream representations need different tags
+            String currentETag = eTag(BinaryRecordHttpMessageConverter.isAccepted(request)
+                    ? "transaction-records" : "transactions", version);
+            if (matchesIfNoneMatch(request, currentETag)) {
+                return notModified(currentETag);
+            }
 
-            // Remove fraud information for regular users
-            transactions = transactions.stream().map(t -> {
-                t.setIsFraud(null);
-                t.setFraudReason(null);
-                return t;
-            }).collect(Collectors.toList());
+            // Without fraud information, which regular users don't see
+            List<TransactionResponse> transactions = transactionService.getOwnerTransactions(version);
 
             ApiResponse response = new ApiResponse();
             response.setSuccess(true);
             response.setMessage("Transactions retrieved successfully");
             response.setData(transactions);
 
+            return ResponseEntity.ok()
+                    .eTag(currentETag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    // Every account's balance and one merged history, newest first
+    @GetMapping("/portfolio")
+    public ResponseEntity<ApiResponse> getPortfolio(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    HttpServletRequest request) {
+        try {
+            User user = getCurrentUser(request);
+            PortfolioResponse portfolio = portfolioService.getPortfolio(user, cursor, limit);
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Portfolio retrieved successfully");
+            response.setData(portfolio);
+
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             ApiResponse response = new ApiResponse();
@@ -184,4 +296,97 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
     }
+
+    @GetMapping("/insights")
+    public ResponseEntity<ApiResponse> getInsights(@RequestParam String from,
+                                                   @RequestParam String to,
+                                                   @RequestParam(defaultValue = "day") String granularity,
+                                                   @RequestParam(required = false) String account,
+                                                   HttpServletRequest request) {
+        try {
+            User user = getCurrentUser(request);
+            InsightsResponse insights = accountRollupService.getInsights(
+                    user, account, LocalDate.parse(from), LocalDate.parse(to), granularity);
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Insights retrieved successfully");
+            response.setData(insights);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    @PostMapping("/scheduled-transfers")
+    public ResponseEntity<ApiResponse> createScheduledTransfer(@RequestBody ScheduledTransferRequest scheduledTransferRequest,
+                                                               HttpServletRequest request) {
+        try {
+            User user = getCurrentUser(request);
+            ScheduledTransfer scheduledTransfer = scheduledTransferService.createScheduledTransfer(
+                    user,
+                    scheduledTransferRequest.getFromAccount(),
+                    scheduledTransferRequest.getToAccount(),
+                    scheduledTransferRequest.getAmount(),
+                    scheduledTransferRequest.getFrequency(),
+                    scheduledTransferRequest.getStartAt()
+            );
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Scheduled transfer created successfully");
+            response.setData(scheduledTransferService.convertToResponse(scheduledTransfer));
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    @GetMapping("/scheduled-transfers")
+    public ResponseEntity<ApiResponse> getScheduledTransfers(HttpServletRequest request) {
+        try {
+            User user = getCurrentUser(request);
+            List<ScheduledTransferResponse> scheduledTransfers = scheduledTransferService.getScheduledTransfers(user);
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Scheduled transfers retrieved successfully");
+            response.setData(scheduledTransfers);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    @DeleteMapping("/scheduled-transfers/{id}")
+    public ResponseEntity<ApiResponse> cancelScheduledTransfer(@PathVariable Long id, HttpServletRequest request) {
+        try {
+            User user = getCurrentUser(request);
+            ScheduledTransfer scheduledTransfer = scheduledTransferService.cancelScheduledTransfer(user, id);
+
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(true);
+            response.setMessage("Scheduled transfer cancelled successfully");
+            response.setData(scheduledTransferService.convertToResponse(scheduledTransfer));
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+    }
 }
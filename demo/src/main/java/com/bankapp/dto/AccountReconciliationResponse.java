@@ -0,0 +1,20 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountReconciliationResponse {
+    private Long accountId;
+    private String accountNumber;
+    private Double accountBalance;
+    private BigDecimal ledgerBalance;
+    private BigDecimal drift;
+    private LocalDateTime checkedAt;
+}
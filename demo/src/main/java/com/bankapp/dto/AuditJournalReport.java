@@ -0,0 +1,23 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditJournalReport {
+    private int segments;
+    private long records;
+    private long lastSequence;
+    private String lastDigest;
+    private long accountsChecked;
+    private long mismatches;
+    private List<String> mismatchDetails;
+    private List<String> problems;
+    private long appendFailures;
+    private long durationMs;
+}
@@ -0,0 +1,25 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BacktestReport {
+    private long rowsReplayed;
+    private long transfersScored;
+    private long flagged;
+    private Double flagRate;
+    private long labeled;
+    private long truePositives;
+    private long falsePositives;
+    private long falseNegatives;
+    private long trueNegatives;
+    private Double precision;
+    private Double recall;
+    private int partitions;
+    private long durationMs;
+    private long rowsPerSecond;
+}
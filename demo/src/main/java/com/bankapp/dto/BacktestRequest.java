@@ -0,0 +1,21 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Candidate rule configuration; null fields fall back to the production rules
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BacktestRequest {
+    private Double thresholdAmount;
+    private Integer velocityCount;
+    private Integer velocityWindowMinutes;
+    private Double profileStdDevs; // null disables the amount-profile rule
+    private Long profileMinSamples;
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
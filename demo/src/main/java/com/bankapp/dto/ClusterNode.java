@@ -0,0 +1,17 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterNode {
+    private String nodeId;
+    private String baseUrl;
+    private LocalDateTime heartbeatAt;
+    private Double ownership;
+}
@@ -0,0 +1,19 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterReport {
+    private boolean enabled;
+    private String clusterName;
+    private String nodeId;
+    private List<ClusterNode> members;
+    private String accountNumber;
+    private String accountOwner;
+}
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class DepositRequest {
+    private String account; // defaults to the user's first account
     private Double amount;
 }
 
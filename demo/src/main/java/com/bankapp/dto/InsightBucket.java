@@ -0,0 +1,18 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InsightBucket {
+    private LocalDate periodStart;
+    private BigDecimal inflow;
+    private BigDecimal outflow;
+    private long transactionCount;
+}
@@ -0,0 +1,23 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InsightsResponse {
+    private String accountNumber;
+    private LocalDate from;
+    private LocalDate to;
+    private String granularity;
+    private BigDecimal totalInflow;
+    private BigDecimal totalOutflow;
+    private long transactionCount;
+    private List<InsightBucket> buckets;
+}
@@ -0,0 +1,17 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PinnedSite {
+    private String origin;
+    private String frame;
+    private String appFrame;
+    private long events;
+    private double totalMs;
+    private double maxMs;
+}
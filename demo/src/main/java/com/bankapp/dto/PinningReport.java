@@ -0,0 +1,18 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PinningReport {
+    private boolean enabled;
+    private boolean virtualThreads;
+    private long thresholdMs;
+    private long events;
+    private List<PinnedSite> sites;
+}
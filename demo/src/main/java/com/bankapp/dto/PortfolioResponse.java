@@ -0,0 +1,17 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioResponse {
+    private List<AccountResponse> accounts;
+    private Double totalBalance;
+    private List<TransactionResponse> transactions; // all accounts, newest first
+    private String nextCursor; // opaque; null on the last page
+}
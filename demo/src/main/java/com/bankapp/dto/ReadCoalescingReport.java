@@ -0,0 +1,18 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadCoalescingReport {
+    private boolean enabled;
+    private long requests;
+    private long loads;
+    private long shared;
+    private double coalescingRatio;
+    private int inFlight;
+    private long invalidations;
+}
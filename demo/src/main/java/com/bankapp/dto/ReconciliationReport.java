@@ -0,0 +1,15 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationReport {
+    private long accountsChecked;
+    private long transactionsApplied;
+    private long mismatches;
+    private long durationMs;
+}
@@ -0,0 +1,13 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokeTokenRequest {
+    private String token; // the JWT itself, or
+    private String jti;   // just its id (revoked for the maximum token lifetime)
+}
@@ -0,0 +1,18 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledTransferRequest {
+    private String fromAccount; // defaults to the user's first account
+    private String toAccount;
+    private Double amount;
+    private String frequency; // DAILY, WEEKLY or MONTHLY
+    private LocalDateTime startAt; // defaults to now
+}
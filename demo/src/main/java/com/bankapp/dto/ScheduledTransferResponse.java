@@ -0,0 +1,24 @@
+package com.bankapp.dto;
+
+import com.bankapp.model.ScheduledTransferStatus;
+import com.bankapp.model.TransferFrequency;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledTransferResponse {
+    private Long id;
+    private String fromAccount;
+    private String toAccount;
+    private Double amount;
+    private TransferFrequency frequency;
+    private LocalDateTime nextRunAt;
+    private ScheduledTransferStatus status;
+    private Integer failedAttempts;
+    private Long lastTransactionId;
+}
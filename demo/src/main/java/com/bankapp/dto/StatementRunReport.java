@@ -0,0 +1,19 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementRunReport {
+    private String period;
+    private String format;
+    private String outputDirectory;
+    private long statements;
+    private long transactions;
+    private long durationMs;
+    private long rowsPerSecond;
+    private long peakHeapBytes;
+}
@@ -0,0 +1,15 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPage {
+    private List<TransactionResponse> transactions;
+    private Long nextCursor; // null on the last page
+}
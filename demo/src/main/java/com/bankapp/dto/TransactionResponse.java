@@ -1,5 +1,6 @@
 package com.bankapp.dto;
 
+import com.bankapp.model.FraudDecision;
 import com.bankapp.model.TransactionStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -19,6 +20,7 @@ public class TransactionResponse {
     private TransactionStatus status;
     private Boolean isFraud;
     private String fraudReason; // Only visible to ADMIN
+    private FraudDecision fraudDecision; // Only visible to ADMIN
 }
 
 
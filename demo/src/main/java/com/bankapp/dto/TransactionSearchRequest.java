@@ -0,0 +1,27 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+// Query parameters of /admin/transactions/search; every filter is optional and they combine with AND
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSearchRequest {
+    private String account; // sender or receiver
+    private Double minAmount;
+    private Double maxAmount;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from; // inclusive
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to; // exclusive
+    private String status; // SUCCESS or FAILED
+    private Boolean fraud;
+    private String decision; // PENDING (flagged, not reviewed), SAFE or CONFIRMED_FRAUD
+    private Long cursor; // nextCursor of the previous page
+    private Integer limit;
+}
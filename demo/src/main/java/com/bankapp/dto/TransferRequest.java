@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class TransferRequest {
+    private String fromAccount; // defaults to the user's first account
     private String toAccount;
     private Double amount;
 }
@@ -0,0 +1,15 @@
+package com.bankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPage {
+    private List<UserResponse> users;
+    private String nextCursor; // opaque; null on the last page
+}
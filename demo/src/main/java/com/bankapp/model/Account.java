@@ -25,6 +25,11 @@ public class Account {
 
     @Column(nullable = false)
     private Double balance = 0.0;
+
+    // Bumped whenever the balance or the transaction history changes; the ETag of /user/account
+    // and /user/transactions
+    @Column(nullable = false)
+    private Long changeVersion = 0L;
 }
 
 
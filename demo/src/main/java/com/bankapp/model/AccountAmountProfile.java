@@ -0,0 +1,34 @@
+package com.bankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Persisted copy of the running transfer-amount statistics kept in AmountProfileStore
+@Entity
+@Table(name = "account_amount_profiles")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountAmountProfile {
+
+    @Id
+    @Column(length = 20)
+    private String accountNumber;
+
+    @Column(nullable = false)
+    private Long sampleCount;
+
+    @Column(nullable = false)
+    private Double mean;
+
+    // Sum of squared deviations from the mean (Welford's M2)
+    @Column(nullable = false)
+    private Double m2;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,45 @@
+package com.bankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Per-account reconciliation checkpoint: the exact ledger sum of every settled SUCCESS transaction
+// up to lastTransactionId, so the next run only has to stream newer history
+@Entity
+@Table(name = "account_reconciliations", indexes = {
+        @Index(name = "idx_reconciliation_mismatch", columnList = "mismatch")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountReconciliation {
+
+    @Id
+    private Long accountId;
+
+    @Column(nullable = false, length = 20)
+    private String accountNumber;
+
+    @Column(nullable = false)
+    private Long lastTransactionId = 0L;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal ledgerBalance = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Double accountBalance;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal drift = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Boolean mismatch = false;
+
+    @Column(nullable = false)
+    private LocalDateTime checkedAt;
+}
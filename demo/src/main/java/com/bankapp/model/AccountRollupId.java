@@ -0,0 +1,19 @@
+package com.bankapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Composite key shared by the hourly and daily rollup tables
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountRollupId implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long accountId;
+    private LocalDateTime bucketStart;
+}
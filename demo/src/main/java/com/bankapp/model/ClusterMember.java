@@ -0,0 +1,33 @@
+package com.bankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One live application instance. Each instance refreshes its own row on a short interval; rows
+// whose heartbeat is older than the member timeout are treated as gone (see ClusterService).
+@Entity
+@Table(name = "cluster_members", indexes = {
+        @Index(name = "idx_cluster_member_heartbeat", columnList = "cluster_name, heartbeat_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterMember {
+
+    @Id
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+
+    @Column(name = "cluster_name", nullable = false, length = 64)
+    private String clusterName;
+
+    @Column(nullable = false)
+    private String baseUrl;
+
+    @Column(nullable = false)
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,35 @@
+package com.bankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Per-account day totals produced by AccountRollupService.compact from the hourly rollups; bucketStart
+// is always midnight
+@Entity
+@Table(name = "account_rollups_daily")
+@IdClass(AccountRollupId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyAccountRollup {
+
+    @Id
+    private Long accountId;
+
+    @Id
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal inflow = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal outflow = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Long transactionCount = 0L;
+}
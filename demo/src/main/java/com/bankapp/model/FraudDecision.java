@@ -0,0 +1,6 @@
+package com.bankapp.model;
+
+public enum FraudDecision {
+    SAFE,
+    CONFIRMED_FRAUD
+}
@@ -0,0 +1,36 @@
+package com.bankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Inflow, outflow and transaction count per account per hour, upserted in the same database
+// transaction as the transfer or deposit. Hours are folded into DailyAccountRollup rows once
+// their day is over.
+@Entity
+@Table(name = "account_rollups_hourly")
+@IdClass(AccountRollupId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HourlyAccountRollup {
+
+    @Id
+    private Long accountId;
+
+    @Id
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal inflow = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal outflow = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Long transactionCount = 0L;
+}
@@ -0,0 +1,7 @@
+package com.bankapp.model;
+
+public enum OutboxEntryType {
+    DEPOSIT,
+    DEBIT,
+    CREDIT
+}
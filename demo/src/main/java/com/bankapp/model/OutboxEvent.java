@@ -0,0 +1,47 @@
+package com.bankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One row per account affected by a committed transaction (a transfer writes a DEBIT and a CREDIT),
+// inserted in the same database transaction and deleted once OutboxService has published it.
+// partitionNo is derived from accountId, so all events of one account are relayed by one partition.
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_partition", columnList = "partition_no, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "partition_no", nullable = false)
+    private Integer partitionNo;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private Long counterpartyAccountId;
+
+    @Column(nullable = false)
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private OutboxEntryType entryType;
+
+    @Column(nullable = false)
+    private Double amount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,28 @@
+package com.bankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Exclusive, time-limited ownership of one outbox partition. Only the owning instance relays the
+// partition, which is what keeps events of the same account in order across instances.
+@Entity
+@Table(name = "outbox_partition_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxPartitionLease {
+
+    @Id
+    @Column(name = "partition_no")
+    private Integer partitionNo;
+
+    @Column(length = 36)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime leaseUntil;
+}
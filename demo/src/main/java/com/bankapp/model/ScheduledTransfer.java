@@ -0,0 +1,60 @@
+package com.bankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "scheduled_transfers", indexes = {
+        @Index(name = "idx_scheduled_transfer_due", columnList = "status, next_run_at"),
+        @Index(name = "idx_scheduled_transfer_claim", columnList = "claimed_by")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledTransfer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false, length = 20)
+    private String fromAccount;
+
+    @Column(nullable = false, length = 20)
+    private String toAccount;
+
+    @Column(nullable = false)
+    private Double amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransferFrequency frequency;
+
+    @Column(nullable = false)
+    private LocalDateTime firstRunAt;
+
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ScheduledTransferStatus status = ScheduledTransferStatus.ACTIVE;
+
+    @Column(nullable = false)
+    private Integer failedAttempts = 0;
+
+    private Long lastTransactionId;
+
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    private LocalDateTime claimedUntil;
+}
@@ -3,12 +3,25 @@ package com.bankapp.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+// The per-account time indexes serve the portfolio history, newest first (see PortfolioService),
+// every other lookup by account id and the two account foreign keys.
+// The other two are composites ending in timestamp: status + time for statements, the ledger stream
+// and admin search, and the fraud review columns + time for the review queue and decision search
+// (see TransactionSearchService). Every extra index is maintained on each insert, so there is no
+// single-column index per search filter.
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transaction_from_account_time", columnList = "from_account_id, timestamp"),
+        @Index(name = "idx_transaction_to_account_time", columnList = "to_account_id, timestamp"),
+        @Index(name = "idx_transaction_status_time", columnList = "status, timestamp"),
+        @Index(name = "idx_transaction_fraud_review_time", columnList = "is_fraud, fraud_decision, timestamp")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,11 +31,29 @@ public class Transaction {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, length = 20)
-    private String fromAccount;
+    // Account ids rather than account numbers: 8-byte keys keep both indexes small and comparisons
+    // numeric. Numbers are resolved through AccountNumberCache when building responses.
+    @Column(name = "from_account_id", nullable = false)
+    private Long fromAccountId;
 
-    @Column(nullable = false, length = 20)
-    private String toAccount;
+    @Column(name = "to_account_id", nullable = false)
+    private Long toAccountId;
+
+    // Read-only views of the two columns above, mapped only so the schema carries the foreign keys;
+    // never loaded by the application
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "from_account_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_transaction_from_account"))
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Account fromAccount;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "to_account_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_transaction_to_account"))
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Account toAccount;
 
     @Column(nullable = false)
     private Double amount;
@@ -40,6 +71,19 @@ public class Transaction {
     @Column(length = 500)
     private String fraudReason;
 
+    // Admin label from updateFraudDecision; null until a transaction has been reviewed
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private FraudDecision fraudDecision;
+
+    private LocalDateTime decidedAt;
+
+    // Set when the scoring rules kept the amount out of the sender's profile; cleared only by
+    // TransactionRepository.clearProfileExclusion when a SAFE decision learns it, so the amount is
+    // learned at most once whatever decisions follow, and saving a stale copy cannot restore it
+    @Column(nullable = false, updatable = false)
+    private Boolean profileExcluded = false;
+
     @PrePersist
     protected void onCreate() {
         if (timestamp == null) {
@@ -0,0 +1,27 @@
+package com.bankapp.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum TransferFrequency {
+    DAILY(ChronoUnit.DAYS),
+    WEEKLY(ChronoUnit.WEEKS),
+    MONTHLY(ChronoUnit.MONTHS);
+
+    private final ChronoUnit unit;
+
+    TransferFrequency(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    // Occurrences are always derived from the anchor, so a transfer anchored on the 31st
+    // runs on the 30th in April and is back on the 31st in May
+    public LocalDateTime nextAfter(LocalDateTime anchor, LocalDateTime after) {
+        long periods = Math.max(0, unit.between(anchor, after));
+        LocalDateTime next = anchor.plus(periods, unit);
+        while (!next.isAfter(after)) {
+            next = anchor.plus(++periods, unit);
+        }
+        return next;
+    }
+}
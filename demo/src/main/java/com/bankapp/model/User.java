@@ -6,7 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "users")
+// Name index backs the admin prefix search; email is covered by its unique index
+@Table(name = "users", indexes = @Index(name = "idx_user_name", columnList = "name"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,7 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.AccountAmountProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AccountAmountProfileRepository extends JpaRepository<AccountAmountProfile, String> {
+}
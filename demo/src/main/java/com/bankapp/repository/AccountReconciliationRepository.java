@@ -0,0 +1,10 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.AccountReconciliation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface AccountReconciliationRepository extends JpaRepository<AccountReconciliation, Long> {
+    List<AccountReconciliation> findByMismatchTrueOrderByAccountIdAsc();
+}
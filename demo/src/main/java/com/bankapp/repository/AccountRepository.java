@@ -2,14 +2,75 @@ package com.bankapp.repository;
 
 import com.bankapp.model.Account;
 import com.bankapp.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
+    // Owner is fetched in the same statement: convertToAccountResponse and the ownership checks read it
+    @EntityGraph(attributePaths = "user")
     Optional<Account> findByAccountNumber(String accountNumber);
-    Optional<Account> findByUser(User user);
+
+    // A user's accounts in creation order; the first is the default wherever a request names none
+    @EntityGraph(attributePaths = "user")
+    List<Account> findByUserOrderByIdAsc(User user);
+
+    @EntityGraph(attributePaths = "user")
+    Optional<Account> findFirstByUserOrderByIdAsc(User user);
+
+    long countByUser(User user);
+
+    @EntityGraph(attributePaths = "user")
+    Optional<Account> findWithUserById(Long id);
+
     boolean existsByAccountNumber(String accountNumber);
+
+    // Locks in id order so concurrent group commits always acquire row locks in the same sequence
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @EntityGraph(attributePaths = "user")
+    List<Account> findByAccountNumberInOrderByIdAsc(Collection<String> accountNumbers);
+
+    @Query("select a.id from Account a where a.id > :afterId order by a.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select a.id as id, a.accountNumber as accountNumber from Account a where a.id in :ids")
+    List<AccountKey> findKeysByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select a.id as id, a.accountNumber as accountNumber from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountKey> findKeyByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    Optional<AccountKey> findFirstKeyByUserIdOrderByIdAsc(Long userId);
+
+    // Enough to answer a conditional GET without loading the owner or the history
+    Optional<AccountVersion> findFirstVersionByUserIdOrderByIdAsc(Long userId);
+
+    @Query("select a.id as id, a.changeVersion as changeVersion from Account a " +
+            "where a.user.id = :userId and a.accountNumber = :accountNumber")
+    Optional<AccountVersion> findVersionByUserIdAndAccountNumber(@Param("userId") Long userId,
+                                                                 @Param("accountNumber") String accountNumber);
+
+    @Modifying
+    @Query("update Account a set a.changeVersion = a.changeVersion + 1 where a.id in :ids")
+    int incrementChangeVersion(@Param("ids") Collection<Long> ids);
+
+    interface AccountVersion {
+        Long getId();
+        Long getChangeVersion();
+    }
+
+    interface AccountKey {
+        Long getId();
+        String getAccountNumber();
+    }
 }
 
 
@@ -0,0 +1,37 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.ClusterMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ClusterMemberRepository extends JpaRepository<ClusterMember, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into cluster_members (node_id, cluster_name, base_url, heartbeat_at) " +
+            "values (:nodeId, :clusterName, :baseUrl, :now) on duplicate key update " +
+            "cluster_name = values(cluster_name), base_url = values(base_url), heartbeat_at = values(heartbeat_at)",
+            nativeQuery = true)
+    void heartbeat(@Param("nodeId") String nodeId, @Param("clusterName") String clusterName,
+                   @Param("baseUrl") String baseUrl, @Param("now") LocalDateTime now);
+
+    @Query("select m from ClusterMember m where m.clusterName = :clusterName and m.heartbeatAt >= :cutoff " +
+            "order by m.nodeId")
+    List<ClusterMember> findLive(@Param("clusterName") String clusterName, @Param("cutoff") LocalDateTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ClusterMember m where m.nodeId = :nodeId")
+    int leave(@Param("nodeId") String nodeId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ClusterMember m where m.heartbeatAt < :cutoff")
+    int deleteStale(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,18 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.AccountRollupId;
+import com.bankapp.model.DailyAccountRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DailyAccountRollupRepository extends JpaRepository<DailyAccountRollup, AccountRollupId> {
+
+    @Query("select r from DailyAccountRollup r where r.accountId = :accountId " +
+            "and r.bucketStart >= :from and r.bucketStart < :to order by r.bucketStart")
+    List<DailyAccountRollup> findRange(@Param("accountId") Long accountId,
+                                       @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
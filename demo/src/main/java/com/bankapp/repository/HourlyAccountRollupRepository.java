@@ -0,0 +1,45 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.AccountRollupId;
+import com.bankapp.model.HourlyAccountRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HourlyAccountRollupRepository extends JpaRepository<HourlyAccountRollup, AccountRollupId> {
+
+    // Joins the caller's transaction, so the rollup commits or rolls back with the transaction row
+    @Modifying
+    @Query(value = "insert into account_rollups_hourly (account_id, bucket_start, inflow, outflow, transaction_count) " +
+            "values (:accountId, :bucketStart, :inflow, :outflow, 1) on duplicate key update " +
+            "inflow = inflow + values(inflow), outflow = outflow + values(outflow), " +
+            "transaction_count = transaction_count + 1", nativeQuery = true)
+    void increment(@Param("accountId") Long accountId, @Param("bucketStart") LocalDateTime bucketStart,
+                   @Param("inflow") Double inflow, @Param("outflow") Double outflow);
+
+    @Query("select r from HourlyAccountRollup r where r.accountId = :accountId " +
+            "and r.bucketStart >= :from and r.bucketStart < :to order by r.bucketStart")
+    List<HourlyAccountRollup> findRange(@Param("accountId") Long accountId,
+                                        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select min(r.bucketStart) from HourlyAccountRollup r")
+    LocalDateTime findOldestBucket();
+
+    @Modifying
+    @Query(value = "insert into account_rollups_daily (account_id, bucket_start, inflow, outflow, transaction_count) " +
+            "select * from (select account_id, date(bucket_start) as day_start, sum(inflow) as inflow_sum, " +
+            "sum(outflow) as outflow_sum, sum(transaction_count) as count_sum from account_rollups_hourly " +
+            "where bucket_start >= :from and bucket_start < :to group by account_id, date(bucket_start)) h " +
+            "on duplicate key update inflow = account_rollups_daily.inflow + h.inflow_sum, " +
+            "outflow = account_rollups_daily.outflow + h.outflow_sum, " +
+            "transaction_count = account_rollups_daily.transaction_count + h.count_sum", nativeQuery = true)
+    int foldIntoDaily(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("delete from HourlyAccountRollup r where r.bucketStart >= :from and r.bucketStart < :to")
+    int deleteRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
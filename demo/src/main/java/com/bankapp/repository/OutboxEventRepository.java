@@ -0,0 +1,40 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Both sides of a transfer in one statement; joins the caller's transaction
+    @Modifying
+    @Query(value = "insert into outbox_events (partition_no, account_id, counterparty_account_id, transaction_id, " +
+            "entry_type, amount, created_at) values " +
+            "(:debitPartition, :fromAccountId, :toAccountId, :transactionId, 'DEBIT', :amount, :createdAt), " +
+            "(:creditPartition, :toAccountId, :fromAccountId, :transactionId, 'CREDIT', :amount, :createdAt)",
+            nativeQuery = true)
+    void insertTransfer(@Param("debitPartition") int debitPartition, @Param("creditPartition") int creditPartition,
+                        @Param("fromAccountId") Long fromAccountId, @Param("toAccountId") Long toAccountId,
+                        @Param("transactionId") Long transactionId, @Param("amount") Double amount,
+                        @Param("createdAt") LocalDateTime createdAt);
+
+    @Query("select e from OutboxEvent e where e.partitionNo = :partitionNo order by e.id")
+    List<OutboxEvent> findBatch(@Param("partitionNo") Integer partitionNo, Pageable pageable);
+
+    // Fenced by the partition lease: an instance that lost the lease while publishing deletes nothing,
+    // so the new owner publishes the batch again instead of it being lost or reordered
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids and exists (select l from OutboxPartitionLease l " +
+            "where l.partitionNo = :partitionNo and l.owner = :owner)")
+    int deletePublished(@Param("ids") Collection<Long> ids, @Param("partitionNo") Integer partitionNo,
+                        @Param("owner") String owner);
+}
@@ -0,0 +1,32 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.OutboxPartitionLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface OutboxPartitionLeaseRepository extends JpaRepository<OutboxPartitionLease, Integer> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert ignore into outbox_partition_leases (partition_no, owner, lease_until) " +
+            "values (:partitionNo, null, '1970-01-01 00:00:00')", nativeQuery = true)
+    void createIfMissing(@Param("partitionNo") Integer partitionNo);
+
+    // Takes a free or expired lease, or extends one this instance already holds
+    @Transactional
+    @Modifying
+    @Query("update OutboxPartitionLease l set l.owner = :owner, l.leaseUntil = :leaseUntil " +
+            "where l.partitionNo = :partitionNo and (l.owner = :owner or l.owner is null or l.leaseUntil < :now)")
+    int acquire(@Param("partitionNo") Integer partitionNo, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxPartitionLease l set l.owner = null where l.owner = :owner")
+    int releaseAll(@Param("owner") String owner);
+}
@@ -0,0 +1,25 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    @Query("select r.jti from RevokedToken r where r.expiresAt > :now")
+    List<String> findActiveJtis(@Param("now") LocalDateTime now);
+
+    @Query("select r.jti from RevokedToken r where r.revokedAt >= :since")
+    List<String> findJtisRevokedSince(@Param("since") LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,63 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.ScheduledTransfer;
+import com.bankapp.model.ScheduledTransferStatus;
+import com.bankapp.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long> {
+
+    List<ScheduledTransfer> findByUserOrderByNextRunAtAsc(User user);
+
+    @Query("select s.id from ScheduledTransfer s where s.status = com.bankapp.model.ScheduledTransferStatus.ACTIVE " +
+            "and s.nextRunAt <= :now and (s.claimedUntil is null or s.claimedUntil < :now) order by s.nextRunAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Only rows still unclaimed and still due when the update runs are taken, so concurrent schedulers
+    // never share an order, and one that another scheduler has just run is not run again
+    @Transactional
+    @Modifying
+    @Query("update ScheduledTransfer s set s.claimedBy = :token, s.claimedUntil = :leaseUntil " +
+            "where s.id in :ids and s.status = com.bankapp.model.ScheduledTransferStatus.ACTIVE " +
+            "and s.nextRunAt <= :now and (s.claimedUntil is null or s.claimedUntil < :now)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    List<ScheduledTransfer> findByClaimedBy(String claimedBy);
+
+    // Only while no scheduler holds a lease: claim and cancel are each conditional on the other's
+    // column, so an order is either executed or cancelled, never both
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update ScheduledTransfer s set s.status = com.bankapp.model.ScheduledTransferStatus.CANCELLED " +
+            "where s.id = :id and s.user.id = :userId " +
+            "and s.status <> com.bankapp.model.ScheduledTransferStatus.CANCELLED " +
+            "and (s.claimedUntil is null or s.claimedUntil < :now)")
+    int cancel(@Param("id") Long id, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update ScheduledTransfer s set s.nextRunAt = :nextRunAt, s.failedAttempts = 0, " +
+            "s.lastTransactionId = :transactionId, s.claimedBy = null, s.claimedUntil = null " +
+            "where s.id = :id and s.claimedBy = :token")
+    int markSucceeded(@Param("id") Long id, @Param("token") String token,
+                      @Param("nextRunAt") LocalDateTime nextRunAt, @Param("transactionId") Long transactionId);
+
+    @Transactional
+    @Modifying
+    @Query("update ScheduledTransfer s set s.nextRunAt = :nextRunAt, s.failedAttempts = :failedAttempts, " +
+            "s.status = :status, s.lastTransactionId = :transactionId, s.claimedBy = null, s.claimedUntil = null " +
+            "where s.id = :id and s.claimedBy = :token")
+    int markFailed(@Param("id") Long id, @Param("token") String token, @Param("nextRunAt") LocalDateTime nextRunAt,
+                   @Param("failedAttempts") Integer failedAttempts, @Param("status") ScheduledTransferStatus status,
+                   @Param("transactionId") Long transactionId);
+}
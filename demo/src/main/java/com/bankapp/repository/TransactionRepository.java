@@ -1,15 +1,65 @@
 package com.bankapp.repository;
 
 import com.bankapp.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    List<Transaction> findByFromAccountOrToAccount(String fromAccount, String toAccount);
+    List<Transaction> findByFromAccountIdOrToAccountId(Long fromAccountId, Long toAccountId);
     List<Transaction> findByIsFraudTrue();
-    List<Transaction> findByFromAccountAndTimestampAfter(String fromAccount, LocalDateTime timestamp);
-}
+    long countByFromAccountIdAndTimestampAfter(Long fromAccountId, LocalDateTime timestamp);
+
+    @Query("select t from Transaction t where t.id > :afterId order by t.id")
+    List<Transaction> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Integer.MIN_VALUE fetch size makes MySQL Connector/J stream rows instead of buffering the result
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select t.id as id, t.fromAccountId as fromAccountId, t.toAccountId as toAccountId, t.amount as amount, " +
+            "t.timestamp as timestamp from Transaction t where t.status = com.bankapp.model.TransactionStatus.SUCCESS " +
+            "and t.id > :afterId and (t.fromAccountId = :accountId or t.toAccountId = :accountId) order by t.id")
+    Stream<LedgerEntry> streamLedger(@Param("accountId") Long accountId, @Param("afterId") Long afterId);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select t.id as id, t.fromAccountId as fromAccountId, t.toAccountId as toAccountId, t.amount as amount, " +
+            "t.timestamp as timestamp from Transaction t where t.status = com.bankapp.model.TransactionStatus.SUCCESS " +
+            "and t.timestamp > :since and t.fromAccountId <> t.toAccountId order by t.id")
+    Stream<LedgerEntry> streamTransfersSince(@Param("since") LocalDateTime since);
 
+    // Already-flagged rows keep their original reason
+    @Transactional
+    @Modifying
+    @Query("update Transaction t set t.isFraud = true, t.fraudReason = :reason where t.id in :ids and t.isFraud = false")
+    int flagForReview(@Param("ids") Collection<Long> ids, @Param("reason") String reason);
+
+    // Checked and cleared in one statement, so concurrent SAFE decisions learn the amount at most once
+    @Transactional
+    @Modifying
+    @Query("update Transaction t set t.profileExcluded = false where t.id = :id and t.profileExcluded = true")
+    int clearProfileExclusion(@Param("id") Long id);
+
+    interface LedgerEntry {
+        Long getId();
+        Long getFromAccountId();
+        Long getToAccountId();
+        Double getAmount();
+        LocalDateTime getTimestamp();
+    }
+}
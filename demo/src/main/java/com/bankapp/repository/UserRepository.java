@@ -1,10 +1,46 @@
 package com.bankapp.repository;
 
+import com.bankapp.model.Role;
 import com.bankapp.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    // Serializes account creation per user, so two concurrent requests cannot both pass the account limit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findByIdForUpdate(@Param("id") Long id);
+
+    // Admin listing: keyset pages of lightweight rows, each walking one index in its own order.
+    // Prefixes arrive with LIKE wildcards escaped by '!'.
+    @Query("select u.id as id, u.name as name, u.email as email, u.role as role from User u " +
+            "where u.id > :afterId order by u.id")
+    List<UserSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select u.id as id, u.name as name, u.email as email, u.role as role from User u " +
+            "where u.name like :prefix escape '!' " +
+            "and (u.name > :afterName or (u.name = :afterName and u.id > :afterId)) order by u.name, u.id")
+    List<UserSummary> findSummariesByNamePrefix(@Param("prefix") String prefix, @Param("afterName") String afterName,
+                                                @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select u.id as id, u.name as name, u.email as email, u.role as role from User u " +
+            "where u.email like :prefix escape '!' and u.email > :afterEmail order by u.email")
+    List<UserSummary> findSummariesByEmailPrefix(@Param("prefix") String prefix, @Param("afterEmail") String afterEmail,
+                                                 Pageable pageable);
+
+    interface UserSummary {
+        Long getId();
+        String getName();
+        String getEmail();
+        Role getRole();
+    }
 }
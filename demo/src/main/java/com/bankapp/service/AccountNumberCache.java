@@ -0,0 +1,136 @@
+package com.bankapp.service;
+
+import com.bankapp.model.Account;
+import com.bankapp.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Maps account ids to account numbers and back. Transactions reference accounts by id only, so
+// numbers are looked up here when a response is built or a request names an account. An account
+// number never changes once assigned, so entries are never invalidated; the least recently used
+// ones are evicted once max-entries accounts are cached.
+@Service
+public class AccountNumberCache {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Value("${app.account-cache.max-entries:100000}")
+    private int maxEntries;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Guarded by lock. numbersById is access-ordered and decides eviction; idsByNumber holds exactly
+    // the same accounts, and a hit on it also refreshes the account in numbersById
+    private final LinkedHashMap<Long, String> numbersById = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Long> idsByNumber = new HashMap<>();
+
+    // Accounts seen inside a transaction are only cached once it commits, so an account created by a
+    // transaction that rolls back is never handed out
+    public void remember(Account account) {
+        Long accountId = account.getId();
+        String accountNumber = account.getAccountNumber();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(accountId, accountNumber);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(accountId, accountNumber);
+            }
+        });
+    }
+
+    // Null when no account has this id
+    public String numberOf(Long accountId) {
+        String number = cachedNumber(accountId);
+        if (number == null) {
+            number = numbersOf(Set.of(accountId)).get(accountId);
+        }
+        return number;
+    }
+
+    // Resolves all misses with a single query
+    public Map<Long, String> numbersOf(Collection<Long> accountIds) {
+        Map<Long, String> numbers = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long accountId : accountIds) {
+            String number = cachedNumber(accountId);
+            if (number != null) {
+                numbers.put(accountId, number);
+            } else {
+                missing.add(accountId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (AccountRepository.AccountKey key : accountRepository.findKeysByIdIn(missing)) {
+                put(key.getId(), key.getAccountNumber());
+                numbers.put(key.getId(), key.getAccountNumber());
+            }
+        }
+        return numbers;
+    }
+
+    // Null when no account has this number
+    public Long idOf(String accountNumber) {
+        Long accountId = cachedId(accountNumber);
+        if (accountId == null) {
+            accountId = accountRepository.findKeyByAccountNumber(accountNumber)
+                    .map(key -> {
+                        put(key.getId(), key.getAccountNumber());
+                        return key.getId();
+                    })
+                    .orElse(null);
+        }
+        return accountId;
+    }
+
+    private String cachedNumber(Long accountId) {
+        lock.lock();
+        try {
+            return numbersById.get(accountId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Long cachedId(String accountNumber) {
+        lock.lock();
+        try {
+            Long accountId = idsByNumber.get(accountNumber);
+            if (accountId != null) {
+                numbersById.get(accountId);
+            }
+            return accountId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(Long accountId, String accountNumber) {
+        lock.lock();
+        try {
+            numbersById.put(accountId, accountNumber);
+            idsByNumber.put(accountNumber, accountId);
+            if (numbersById.size() > maxEntries) {
+                Map.Entry<Long, String> eldest = numbersById.entrySet().iterator().next();
+                numbersById.remove(eldest.getKey());
+                idsByNumber.remove(eldest.getValue());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.ReadCoalescingReport;
+import com.bankapp.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Single-flight for the owner's account reads: concurrent requests for the same resource of the
+// same account share one database load. The first caller runs it and the others wait for its
+// result (or its exception). Nothing is kept once the load finishes, and the result is handed to
+// every caller that joined it, so loaders must return data nobody modifies afterwards.
+//
+// The key carries the change version the caller read for its ETag, so a body is never older than
+// its tag. A committed deposit or transfer also detaches the account's in-flight loads, so a
+// request arriving after the commit starts a fresh load instead of joining one begun before it.
+@Service
+public class AccountReadCoalescer {
+
+    @Value("${app.read-coalescing.enabled:true}")
+    private boolean enabled;
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private record Key(String resource, Long accountId, Long changeVersion) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T load(String resource, AccountRepository.AccountVersion version, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(resource, version.getId(), version.getChangeVersion());
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        requests.incrementAndGet();
+        if (leader != null) {
+            return (T) await(leader);
+        }
+
+        loads.incrementAndGet();
+        try {
+            T result = loader.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    // Callers that already joined keep their result: they arrived before the commit
+    @TransactionalEventListener
+    public void onTransactionCommitted(TransactionCommittedEvent event) {
+        Iterator<Key> keys = inFlight.keySet().iterator();
+        while (keys.hasNext()) {
+            Long accountId = keys.next().accountId();
+            if (accountId.equals(event.fromAccountId()) || accountId.equals(event.toAccountId())) {
+                keys.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public ReadCoalescingReport report() {
+        long requestCount = requests.get();
+        long loadCount = loads.get();
+        long shared = Math.max(0, requestCount - loadCount);
+        double ratio = requestCount == 0 ? 0.0 : shared / (double) requestCount;
+        return new ReadCoalescingReport(enabled, requestCount, loadCount, shared, ratio, inFlight.size(),
+                invalidations.get());
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // The leader's own exception, so every caller fails with the same message
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
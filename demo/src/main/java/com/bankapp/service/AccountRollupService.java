@@ -0,0 +1,160 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.InsightBucket;
+import com.bankapp.dto.InsightsResponse;
+import com.bankapp.model.Account;
+import com.bankapp.model.DailyAccountRollup;
+import com.bankapp.model.HourlyAccountRollup;
+import com.bankapp.model.User;
+import com.bankapp.repository.DailyAccountRollupRepository;
+import com.bankapp.repository.HourlyAccountRollupRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Hourly and daily inflow/outflow rollups per account. Writes go to the current hour only; once a
+// day is over (plus a grace period for transactions still committing) its hours are folded into
+// one daily row and deleted in the same transaction, so every amount is in exactly one table.
+@Service
+public class AccountRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountRollupService.class);
+
+    @Autowired
+    private HourlyAccountRollupRepository hourlyRepository;
+
+    @Autowired
+    private DailyAccountRollupRepository dailyRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.rollups.compaction-grace-hours:1}")
+    private long compactionGraceHours;
+
+    @Value("${app.rollups.max-range-days:1096}")
+    private long maxRangeDays;
+
+    private TransactionTemplate writeTemplate;
+    private TransactionTemplate snapshotTemplate;
+
+    @PostConstruct
+    void initTransactionTemplates() {
+        writeTemplate = new TransactionTemplate(transactionManager);
+        // Both tables are read from one snapshot so a concurrent compaction is seen entirely or not at all
+        snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotTemplate.setReadOnly(true);
+    }
+
+    // Called inside the money-movement transaction
+    public void recordTransfer(Long fromAccountId, Long toAccountId, Double amount, LocalDateTime timestamp) {
+        // Same-account rows are indistinguishable from deposits in history, so they count the same way
+        if (fromAccountId.equals(toAccountId)) {
+            recordDeposit(toAccountId, amount, timestamp);
+            return;
+        }
+        LocalDateTime bucket = timestamp.truncatedTo(ChronoUnit.HOURS);
+        hourlyRepository.increment(fromAccountId, bucket, 0.0, amount);
+        hourlyRepository.increment(toAccountId, bucket, amount, 0.0);
+    }
+
+    public void recordDeposit(Long accountId, Double amount, LocalDateTime timestamp) {
+        hourlyRepository.increment(accountId, timestamp.truncatedTo(ChronoUnit.HOURS), amount, 0.0);
+    }
+
+    @Scheduled(cron = "${app.rollups.compaction-cron:0 15 * * * *}")
+    public void compact() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(compactionGraceHours).toLocalDate().atStartOfDay();
+        LocalDateTime oldest = hourlyRepository.findOldestBucket();
+        if (oldest == null) {
+            return;
+        }
+
+        // One day per transaction keeps lock time bounded after a long pause in compaction
+        for (LocalDateTime day = oldest.toLocalDate().atStartOfDay(); day.isBefore(cutoff); day = day.plusDays(1)) {
+            LocalDateTime from = day;
+            LocalDateTime to = day.plusDays(1);
+            Integer folded = writeTemplate.execute(status -> {
+                hourlyRepository.foldIntoDaily(from, to);
+                return hourlyRepository.deleteRange(from, to);
+            });
+            log.info("Compacted {} hourly rollups for {}", folded, from.toLocalDate());
+        }
+    }
+
+    // Inclusive date range; granularity is "day" or "month". A null accountNumber means the user's first account.
+    public InsightsResponse getInsights(User user, String accountNumber, LocalDate from, LocalDate to,
+                                        String granularity) {
+        boolean monthly = "month".equalsIgnoreCase(granularity);
+        if (!monthly && !"day".equalsIgnoreCase(granularity)) {
+            throw new RuntimeException("Invalid granularity. Use day or month");
+        }
+        if (to.isBefore(from)) {
+            throw new RuntimeException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new RuntimeException("Date range must not exceed " + maxRangeDays + " days");
+        }
+
+        Account account = userService.getAccount(user, accountNumber);
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+
+        Map<LocalDate, InsightBucket> buckets = new TreeMap<>();
+        snapshotTemplate.executeWithoutResult(status -> {
+            for (DailyAccountRollup rollup : dailyRepository.findRange(account.getId(), start, end)) {
+                add(buckets, period(rollup.getBucketStart(), monthly),
+                        rollup.getInflow(), rollup.getOutflow(), rollup.getTransactionCount());
+            }
+            for (HourlyAccountRollup rollup : hourlyRepository.findRange(account.getId(), start, end)) {
+                add(buckets, period(rollup.getBucketStart(), monthly),
+                        rollup.getInflow(), rollup.getOutflow(), rollup.getTransactionCount());
+            }
+        });
+
+        BigDecimal totalInflow = BigDecimal.ZERO;
+        BigDecimal totalOutflow = BigDecimal.ZERO;
+        long transactionCount = 0;
+        for (InsightBucket bucket : buckets.values()) {
+            totalInflow = totalInflow.add(bucket.getInflow());
+            totalOutflow = totalOutflow.add(bucket.getOutflow());
+            transactionCount += bucket.getTransactionCount();
+        }
+
+        return new InsightsResponse(account.getAccountNumber(), from, to, monthly ? "month" : "day",
+                totalInflow, totalOutflow, transactionCount, new ArrayList<>(buckets.values()));
+    }
+
+    private LocalDate period(LocalDateTime bucketStart, boolean monthly) {
+        LocalDate day = bucketStart.toLocalDate();
+        return monthly ? day.withDayOfMonth(1) : day;
+    }
+
+    private void add(Map<LocalDate, InsightBucket> buckets, LocalDate period,
+                     BigDecimal inflow, BigDecimal outflow, long count) {
+        InsightBucket bucket = buckets.computeIfAbsent(period,
+                p -> new InsightBucket(p, BigDecimal.ZERO, BigDecimal.ZERO, 0));
+        bucket.setInflow(bucket.getInflow().add(inflow));
+        bucket.setOutflow(bucket.getOutflow().add(outflow));
+        bucket.setTransactionCount(bucket.getTransactionCount() + count);
+    }
+}
@@ -0,0 +1,183 @@
+package com.bankapp.service;
+
+import com.bankapp.model.AccountAmountProfile;
+import com.bankapp.repository.AccountAmountProfileRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory per-account transfer amount statistics. Scoring reads and updates never touch the
+// database; the profiles are loaded once at startup and dirty ones are upserted periodically.
+@Component
+public class AmountProfileStore {
+
+    private static final Logger log = LoggerFactory.getLogger(AmountProfileStore.class);
+
+    private static final String UPSERT_SQL =
+            "insert into account_amount_profiles (account_number, sample_count, mean, m2, updated_at) " +
+            "values (?, ?, ?, ?, ?) on duplicate key update " +
+            "sample_count = values(sample_count), mean = values(mean), m2 = values(m2), updated_at = values(updated_at)";
+
+    @Autowired
+    private AccountAmountProfileRepository profileRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.fraud.profile.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final ConcurrentHashMap<String, Profile> profiles = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    public record Stats(long count, double mean, double stdDev) {
+    }
+
+    // Transfers scored before this runs have already recorded their samples, so the stored profile is
+    // merged into those instead of replacing them
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (AccountAmountProfile stored : profileRepository.findAll()) {
+            profiles.merge(stored.getAccountNumber(),
+                    new Profile(stored.getSampleCount(), stored.getMean(), stored.getM2()), Profile::combine);
+        }
+        log.info("Loaded {} account amount profiles", profiles.size());
+    }
+
+    // With clustering, only an account's owner records its samples. On a membership change every node
+    // writes its dirty profiles for whichever node owns them now, and re-reads the accounts it gained.
+    // Samples a previous owner had not flushed yet are lost, which a long-run profile tolerates.
+    @EventListener
+    public void onMembershipChanged(ClusterMembershipChangedEvent event) {
+        flush();
+        if (event.previous().isEmpty()) {
+            return;
+        }
+        int reloaded = 0;
+        for (AccountAmountProfile stored : profileRepository.findAll()) {
+            if (event.gained(stored.getAccountNumber())) {
+                profiles.put(stored.getAccountNumber(),
+                        new Profile(stored.getSampleCount(), stored.getMean(), stored.getM2()));
+                reloaded++;
+            }
+        }
+        log.info("Reloaded {} account amount profiles after membership change", reloaded);
+    }
+
+    public Stats getStats(String accountNumber) {
+        Profile profile = profiles.get(accountNumber);
+        return profile != null ? profile.stats() : null;
+    }
+
+    public void record(String accountNumber, double amount) {
+        profiles.computeIfAbsent(accountNumber, k -> new Profile(0, 0.0, 0.0)).add(amount);
+        dirty.add(accountNumber);
+    }
+
+    @Scheduled(fixedDelayString = "${app.fraud.profile.flush-interval-ms:30000}")
+    @PreDestroy
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>(flushBatchSize);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Iterator<String> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            String accountNumber = iterator.next();
+            // Removed before reading, so an update racing with the flush marks it dirty again
+            iterator.remove();
+            Profile.Snapshot snapshot = profiles.get(accountNumber).snapshot();
+            batch.add(new Object[]{accountNumber, snapshot.count(), snapshot.mean(), snapshot.m2(), now});
+            if (batch.size() >= flushBatchSize) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+        }
+    }
+
+    private static final class Profile {
+
+        private record Snapshot(long count, double mean, double m2) {
+        }
+
+        // A lock rather than synchronized: a virtual thread blocked on a monitor pins its carrier (JDK 21)
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private long count;
+        private double mean;
+        private double m2;
+
+        private Profile(long count, double mean, double m2) {
+            this.count = count;
+            this.mean = mean;
+            this.m2 = m2;
+        }
+
+        // Welford's online update: numerically stable, O(1) time and space per sample
+        private void add(double amount) {
+            lock.lock();
+            try {
+                count++;
+                double delta = amount - mean;
+                mean += delta / count;
+                m2 += delta * (amount - mean);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Chan et al.'s pairwise combination of two Welford accumulators; returns this profile
+        private Profile combine(Profile other) {
+            Snapshot theirs = other.snapshot();
+            lock.lock();
+            try {
+                long combined = count + theirs.count();
+                if (combined > 0) {
+                    double delta = theirs.mean() - mean;
+                    m2 += theirs.m2() + delta * delta * count * theirs.count() / combined;
+                    mean += delta * theirs.count() / combined;
+                    count = combined;
+                }
+                return this;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Stats stats() {
+            lock.lock();
+            try {
+                double variance = count > 1 ? m2 / (count - 1) : 0.0;
+                return new Stats(count, mean, Math.sqrt(variance));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Snapshot snapshot() {
+            lock.lock();
+            try {
+                return new Snapshot(count, mean, m2);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
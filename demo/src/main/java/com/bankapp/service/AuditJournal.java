@@ -0,0 +1,352 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.AuditJournalReport;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.bankapp.service.AuditJournalFormat.*;
+
+// Append-only binary record of every balance change, kept outside MySQL so auditing does not add
+// database writes. Records are appended after commit through a memory-mapped, preallocated segment
+// and flushed to disk on a short interval; segments roll at a fixed record count and are sealed
+// with a digest that chains them together (see AuditJournalFormat). A journal started against an
+// existing database begins with one OPENING record per account, so AuditJournalReader can rebuild
+// every balance from the journal alone.
+//
+// Each instance journals only the transactions it committed itself, so with clustering no single
+// journal accounts for the whole accounts table and verify() is refused.
+@Service
+public class AuditJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditJournal.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.audit-journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    @Value("${app.audit-journal.directory:audit-journal}")
+    private String directory;
+
+    @Value("${app.audit-journal.records-per-segment:1048576}")
+    private int recordsPerSegment;
+
+    @Value("${app.audit-journal.tolerance:0.005}")
+    private double tolerance;
+
+    @Value("${app.audit-journal.max-reported-mismatches:100}")
+    private int maxReportedMismatches;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_SIZE);
+    private final AtomicLong appendFailures = new AtomicLong();
+
+    private Path journalDirectory;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private int capacity;
+    private int recordCount;
+    private long nextSequence;
+    private MessageDigest digest;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (recordsPerSegment <= 0 || segmentSize(recordsPerSegment) > Integer.MAX_VALUE) {
+            throw new IllegalStateException("app.audit-journal.records-per-segment must keep a segment below 2 GB");
+        }
+        journalDirectory = Paths.get(directory);
+        Files.createDirectories(journalDirectory);
+
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            segments = files.filter(path -> path.getFileName().toString().endsWith(".journal"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            startSegment(0, new byte[DIGEST_SIZE]);
+            writeOpeningBalances();
+        } else {
+            recover(segments.size() - 1);
+            if (channel == null) {
+                // The only segment never got its header: nothing was journaled yet
+                nextSequence = 1;
+                startSegment(0, new byte[DIGEST_SIZE]);
+                writeOpeningBalances();
+            }
+        }
+        log.info("Audit journal open at {} (segment {}, next sequence {})", journalDirectory.toAbsolutePath(),
+                segmentIndex, nextSequence);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            segment.force();
+            channel.close();
+            channel = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onTransactionCommitted(TransactionCommittedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            append(event.transactionId(), event.fromAccountId(), event.toAccountId(), toMinorUnits(event.amount()),
+                    toMinorUnits(event.fromBalanceAfter()), toMinorUnits(event.toBalanceAfter()),
+                    event.timestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                    event.isDeposit() ? TYPE_DEPOSIT : TYPE_TRANSFER);
+        } catch (RuntimeException e) {
+            // The money has already moved; a missing record shows up as a mismatch in verify()
+            appendFailures.incrementAndGet();
+            log.error("Failed to journal transaction {}", event.transactionId(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.audit-journal.force-interval-ms:1000}")
+    public void force() {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (channel != null) {
+                segment.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Replays the journal and compares the rebuilt balances with the accounts table
+    public AuditJournalReport verify() throws IOException {
+        if (!enabled) {
+            throw new RuntimeException("Audit journal is disabled");
+        }
+        // Balances also move through commits on other instances, which only their own journals hold
+        if (clusterEnabled) {
+            throw new RuntimeException("Audit journal verification is not available with app.cluster.enabled: "
+                    + "each instance journals only its own commits");
+        }
+        long started = System.nanoTime();
+        force();
+        AuditJournalReader.Result result = AuditJournalReader.replay(journalDirectory);
+
+        Map<Long, Long> actual = new HashMap<>();
+        jdbcTemplate.query("select id, balance from accounts", rs -> {
+            actual.put(rs.getLong(1), toMinorUnits(rs.getDouble(2)));
+        });
+
+        long toleranceMinor = toMinorUnits(tolerance);
+        List<String> mismatches = new ArrayList<>();
+        long mismatchCount = 0;
+        for (Map.Entry<Long, Long> account : actual.entrySet()) {
+            long journaled = result.balances().getOrDefault(account.getKey(), 0L);
+            if (Math.abs(journaled - account.getValue()) > toleranceMinor) {
+                mismatchCount++;
+                if (mismatches.size() < maxReportedMismatches) {
+                    mismatches.add("Account " + account.getKey() + ": journal " + fromMinorUnits(journaled)
+                            + ", accounts table " + fromMinorUnits(account.getValue()));
+                }
+            }
+        }
+
+        return new AuditJournalReport(result.segments(), result.records(), result.lastSequence(), result.lastDigest(),
+                actual.size(), mismatchCount, mismatches, result.problems(), appendFailures.get(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void append(long transactionId, long fromAccountId, long toAccountId, long amountMinor,
+                        long fromBalanceAfterMinor, long toBalanceAfterMinor, long timestampMillis, byte type) {
+        lock.lock();
+        try {
+            if (recordCount == capacity) {
+                byte[] sealedDigest = seal();
+                startSegment(segmentIndex + 1, sealedDigest);
+            }
+            writeRecord(recordBuffer, nextSequence, transactionId, fromAccountId, toAccountId, amountMinor,
+                    fromBalanceAfterMinor, toBalanceAfterMinor, timestampMillis, type);
+            segment.put(position(recordOffset(recordCount)), recordBuffer, 0, RECORD_SIZE);
+            digest.update(recordBuffer.array(), 0, RECORD_SIZE);
+            recordCount++;
+            nextSequence++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Snapshot of every account when the journal is first created; runs before requests are served
+    private void writeOpeningBalances() {
+        long timestamp = System.currentTimeMillis();
+        long[] accounts = {0};
+        jdbcTemplate.query("select id, balance from accounts order by id", rs -> {
+            long balance = toMinorUnits(rs.getDouble(2));
+            append(0, rs.getLong(1), rs.getLong(1), balance, balance, balance, timestamp, TYPE_OPENING);
+            accounts[0]++;
+        });
+        log.info("Audit journal created with opening balances for {} accounts", accounts[0]);
+    }
+
+    private void startSegment(long index, byte[] previousDigest) throws IOException {
+        Path path = segmentPath(journalDirectory, index);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize(recordsPerSegment));
+        segmentIndex = index;
+        capacity = recordsPerSegment;
+        recordCount = 0;
+
+        writeHeader(headerBuffer, index, nextSequence, previousDigest, capacity);
+        segment.put(0, headerBuffer, 0, HEADER_SIZE);
+        segment.force();
+
+        digest = newDigest();
+        digest.update(previousDigest);
+        digest.update(headerBuffer.array(), 0, HEADER_SIZE);
+    }
+
+    private byte[] seal() throws IOException {
+        byte[] segmentDigest = digest.digest();
+        int footer = position(footerOffset(capacity));
+        segment.putLong(footer + 8, recordCount);
+        segment.put(footer + 16, segmentDigest);
+        // Magic last: a footer is only trusted once everything before it is on disk
+        segment.force();
+        segment.putInt(footer, FOOTER_MAGIC);
+        segment.force();
+        channel.close();
+        log.info("Sealed audit journal segment {} ({} records, digest {})", segmentIndex, recordCount, hex(segmentDigest));
+        return segmentDigest;
+    }
+
+    // Reopens the newest segment after a restart. A torn record at the tail (the process died
+    // mid-write) fails its CRC and is zeroed, then appending resumes right after the last good record.
+    // A newest segment that is shorter than its header or was never written (the process died while
+    // rolling over) is deleted and started again from the sealed segment before it; if it was the
+    // only segment, channel is left null and open() starts a fresh journal.
+    private void recover(long lastIndex) throws IOException {
+        Path path = segmentPath(journalDirectory, lastIndex);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = channel.size();
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(fileSize, HEADER_SIZE));
+        if (unstarted(segment, fileSize)) {
+            channel.close();
+            channel = null;
+            log.warn("Discarding empty audit journal segment {} ({} bytes)", lastIndex, fileSize);
+            Files.delete(path);
+            if (lastIndex > 0) {
+                restartAfterSealed(lastIndex - 1);
+            }
+            return;
+        }
+
+        byte[] header = new byte[HEADER_SIZE];
+        segment.get(0, header);
+        if (segment.getInt(0) != HEADER_MAGIC || segment.getInt(HEADER_SIZE - 4) != crc(header, 0, HEADER_SIZE - 4)) {
+            throw new IllegalStateException("Audit journal segment " + path + " has a corrupt header");
+        }
+        if (segment.getInt(4) != VERSION) {
+            throw new IllegalStateException("Audit journal segment " + path + " has format version " + segment.getInt(4)
+                    + "; move the journal directory aside to start a new journal");
+        }
+        segmentIndex = lastIndex;
+        capacity = segment.getInt(56);
+        // A file cut short after its header is extended back to full size; the missing tail reads as zeros
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize(capacity));
+
+        byte[] previousDigest = new byte[DIGEST_SIZE];
+        segment.get(24, previousDigest);
+        digest = newDigest();
+        digest.update(previousDigest);
+        digest.update(header);
+
+        byte[] record = new byte[RECORD_SIZE];
+        long sequence = segment.getLong(16) - 1;
+        recordCount = 0;
+        while (recordCount < capacity && recordValid(segment, recordOffset(recordCount), record)) {
+            digest.update(record);
+            sequence = segment.getLong(position(recordOffset(recordCount)));
+            recordCount++;
+        }
+        nextSequence = sequence + 1;
+
+        if (recordCount < capacity && segment.getLong(position(recordOffset(recordCount))) != 0) {
+            log.warn("Discarding torn record {} in audit journal segment {}", recordCount, lastIndex);
+            segment.put(position(recordOffset(recordCount)), new byte[RECORD_SIZE]);
+            segment.force();
+        }
+
+        int footer = position(footerOffset(capacity));
+        if (segment.getInt(footer) == FOOTER_MAGIC) {
+            byte[] sealedDigest = new byte[DIGEST_SIZE];
+            segment.get(footer + 16, sealedDigest);
+            channel.close();
+            startSegment(lastIndex + 1, sealedDigest);
+        }
+    }
+
+    // A segment is only created after the one before it was sealed, so its footer holds the digest to
+    // chain from and the record count that gives the next sequence number
+    private void restartAfterSealed(long sealedIndex) throws IOException {
+        Path path = segmentPath(journalDirectory, sealedIndex);
+        try (FileChannel sealed = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = sealed.map(FileChannel.MapMode.READ_ONLY, 0, sealed.size());
+            int footer = position(footerOffset(buffer.getInt(56)));
+            if (buffer.getInt(footer) != FOOTER_MAGIC) {
+                throw new IllegalStateException("Audit journal segment " + path + " is not sealed");
+            }
+            byte[] sealedDigest = new byte[DIGEST_SIZE];
+            buffer.get(footer + 16, sealedDigest);
+            nextSequence = buffer.getLong(16) + buffer.getLong(footer + 8);
+            startSegment(sealedIndex + 1, sealedDigest);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.bankapp.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32C;
+
+// On-disk layout of the audit journal, shared by AuditJournal (writer) and AuditJournalReader.
+//
+// A segment is one preallocated file: a 64-byte header, a fixed number of 72-byte records and a
+// 48-byte footer that is only written when the segment is sealed. Every record carries a CRC32C so
+// a torn write at the tail is detected on recovery. Each sealed segment also stores a SHA-256 digest
+// over the previous segment's digest, its own header and all of its records, so the segments form a
+// hash chain: changing any record breaks every digest after it.
+//
+// Amounts and balances are stored as exact minor units (cents), so replaying millions of records
+// adds no floating-point error. Offsets are computed as longs; a segment is mapped as one buffer,
+// so its size must stay below 2 GB, which open() checks against records-per-segment.
+//
+// Header:  magic(4) version(4) segmentIndex(8) firstSequence(8) previousDigest(32) capacity(4) crc(4)
+// Record:  sequence(8) transactionId(8) fromAccountId(8) toAccountId(8) amountMinor(8)
+//          fromBalanceAfterMinor(8) toBalanceAfterMinor(8) timestampMillis(8) type(1) pad(3) crc(4)
+// Footer:  magic(4) pad(4) recordCount(8) segmentDigest(32)
+final class AuditJournalFormat {
+
+    static final int HEADER_MAGIC = 0x424B4A31;
+    static final int FOOTER_MAGIC = 0x424B4A46;
+    // Version 1 stored amounts and balances as doubles
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 72;
+    static final int FOOTER_SIZE = 48;
+    static final int DIGEST_SIZE = 32;
+
+    static final int MINOR_UNIT_SCALE = 2;
+
+    static final byte TYPE_DEPOSIT = 1;
+    static final byte TYPE_TRANSFER = 2;
+    // Balance of an account at the moment the journal was created, so replay can start from zero
+    static final byte TYPE_OPENING = 3;
+
+    private AuditJournalFormat() {
+    }
+
+    static long segmentSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * RECORD_SIZE + FOOTER_SIZE;
+    }
+
+    static long recordOffset(long index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    static long footerOffset(long capacity) {
+        return recordOffset(capacity);
+    }
+
+    // Index into a mapped segment; fails instead of wrapping if a segment ever exceeds one mapping
+    static int position(long offset) {
+        return Math.toIntExact(offset);
+    }
+
+    static long toMinorUnits(double amount) {
+        return BigDecimal.valueOf(amount).setScale(MINOR_UNIT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, MINOR_UNIT_SCALE);
+    }
+
+    static Path segmentPath(Path directory, long segmentIndex) {
+        return directory.resolve(String.format("segment-%016d.journal", segmentIndex));
+    }
+
+    static void writeHeader(ByteBuffer header, long segmentIndex, long firstSequence, byte[] previousDigest, int capacity) {
+        header.clear();
+        header.putInt(HEADER_MAGIC);
+        header.putInt(VERSION);
+        header.putLong(segmentIndex);
+        header.putLong(firstSequence);
+        header.put(previousDigest);
+        header.putInt(capacity);
+        header.putInt(crc(header.array(), 0, HEADER_SIZE - 4));
+        header.flip();
+    }
+
+    static void writeRecord(ByteBuffer record, long sequence, long transactionId, long fromAccountId, long toAccountId,
+                            long amountMinor, long fromBalanceAfterMinor, long toBalanceAfterMinor, long timestampMillis,
+                            byte type) {
+        record.clear();
+        record.putLong(sequence);
+        record.putLong(transactionId);
+        record.putLong(fromAccountId);
+        record.putLong(toAccountId);
+        record.putLong(amountMinor);
+        record.putLong(fromBalanceAfterMinor);
+        record.putLong(toBalanceAfterMinor);
+        record.putLong(timestampMillis);
+        record.put(type);
+        record.put(new byte[3]);
+        record.putInt(crc(record.array(), 0, RECORD_SIZE - 4));
+        record.flip();
+    }
+
+    // True when the record at this absolute offset is complete and its CRC matches
+    static boolean recordValid(ByteBuffer segment, long offset, byte[] scratch) {
+        int at = position(offset);
+        segment.get(at, scratch, 0, RECORD_SIZE);
+        return segment.getLong(at) != 0
+                && segment.getInt(at + RECORD_SIZE - 4) == crc(scratch, 0, RECORD_SIZE - 4);
+    }
+
+    // A segment file cut short or never written (the process died between creating the file and
+    // writing its header) holds no records
+    static boolean unstarted(ByteBuffer segment, long fileSize) {
+        if (fileSize < HEADER_SIZE) {
+            return true;
+        }
+        for (int i = 0; i < HEADER_SIZE; i += 8) {
+            if (segment.getLong(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,151 @@
+package com.bankapp.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.bankapp.service.AuditJournalFormat.*;
+
+// Sequential replay of the audit journal without the database: checks every record CRC, the
+// sequence numbering and the segment hash chain, and rebuilds each account's balance by applying
+// the records in order. Segments are memory-mapped read-only and read with absolute gets.
+// A newest segment that is empty or cut short (see AuditJournal.recover) holds no records and is
+// not a problem.
+public class AuditJournalReader {
+
+    // Balances are in minor units (cents)
+    public record Result(int segments, long records, long lastSequence, String lastDigest,
+                         Map<Long, Long> balances, List<String> problems) {
+    }
+
+    private AuditJournalReader() {
+    }
+
+    public static Result replay(Path directory) throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(path -> path.getFileName().toString().endsWith(".journal"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        Map<Long, Long> balances = new HashMap<>();
+        List<String> problems = new ArrayList<>();
+        byte[] previousDigest = new byte[DIGEST_SIZE];
+        byte[] header = new byte[HEADER_SIZE];
+        byte[] record = new byte[RECORD_SIZE];
+        long expectedSequence = 1;
+        long records = 0;
+
+        for (int s = 0; s < segments.size(); s++) {
+            Path path = segments.get(s);
+            boolean last = s == segments.size() - 1;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long fileSize = channel.size();
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+                if (unstarted(segment, fileSize)) {
+                    if (!last) {
+                        problems.add(path.getFileName() + ": segment is empty");
+                    }
+                    break;
+                }
+                segment.get(0, header);
+
+                if (segment.getInt(0) != HEADER_MAGIC || segment.getInt(HEADER_SIZE - 4) != crc(header, 0, HEADER_SIZE - 4)) {
+                    problems.add(path.getFileName() + ": corrupt header");
+                    break;
+                }
+                if (segment.getInt(4) != VERSION) {
+                    problems.add(path.getFileName() + ": unsupported format version " + segment.getInt(4));
+                    break;
+                }
+                if (segment.getLong(8) != s) {
+                    problems.add(path.getFileName() + ": expected segment " + s + " but found " + segment.getLong(8));
+                }
+                byte[] linked = new byte[DIGEST_SIZE];
+                segment.get(24, linked);
+                if (!Arrays.equals(linked, previousDigest)) {
+                    problems.add(path.getFileName() + ": hash chain broken (previous segment digest does not match)");
+                }
+                int capacity = segment.getInt(56);
+                // Records past the end of a file that was cut short count as absent
+                long readable = Math.min(capacity, Math.max(0, (fileSize - HEADER_SIZE) / RECORD_SIZE));
+                if (readable < capacity && !last) {
+                    problems.add(path.getFileName() + ": segment is truncated");
+                }
+
+                MessageDigest digest = newDigest();
+                digest.update(previousDigest);
+                digest.update(header);
+
+                long count = 0;
+                while (count < readable) {
+                    long offset = recordOffset(count);
+                    if (segment.getLong(position(offset)) == 0) {
+                        break;
+                    }
+                    if (!recordValid(segment, offset, record)) {
+                        problems.add(path.getFileName() + ": checksum mismatch at record " + count);
+                        break;
+                    }
+                    long sequence = segment.getLong(position(offset));
+                    if (sequence != expectedSequence) {
+                        problems.add(path.getFileName() + ": expected sequence " + expectedSequence + " but found " + sequence);
+                    }
+                    expectedSequence = sequence + 1;
+                    digest.update(record);
+                    apply(segment, offset, balances);
+                    count++;
+                }
+                records += count;
+                previousDigest = digest.digest();
+
+                long footer = footerOffset(capacity);
+                boolean sealed = footer + FOOTER_SIZE <= fileSize && segment.getInt(position(footer)) == FOOTER_MAGIC;
+                if (sealed) {
+                    byte[] stored = new byte[DIGEST_SIZE];
+                    segment.get(position(footer + 16), stored);
+                    if (segment.getLong(position(footer + 8)) != count) {
+                        problems.add(path.getFileName() + ": footer records " + segment.getLong(position(footer + 8))
+                                + " records but " + count + " are readable");
+                    }
+                    if (!Arrays.equals(stored, previousDigest)) {
+                        problems.add(path.getFileName() + ": segment digest mismatch");
+                    }
+                } else if (!last) {
+                    problems.add(path.getFileName() + ": segment was never sealed");
+                }
+            }
+        }
+
+        return new Result(segments.size(), records, expectedSequence - 1, hex(previousDigest), balances, problems);
+    }
+
+    private static void apply(MappedByteBuffer segment, long offset, Map<Long, Long> balances) {
+        int at = position(offset);
+        long fromAccountId = segment.getLong(at + 16);
+        long toAccountId = segment.getLong(at + 24);
+        long amount = segment.getLong(at + 32);
+        switch (segment.get(at + 64)) {
+            case TYPE_OPENING -> balances.put(toAccountId, amount);
+            case TYPE_DEPOSIT -> balances.merge(toAccountId, amount, Long::sum);
+            case TYPE_TRANSFER -> {
+                balances.merge(fromAccountId, -amount, Long::sum);
+                balances.merge(toAccountId, amount, Long::sum);
+            }
+            default -> {
+            }
+        }
+    }
+}
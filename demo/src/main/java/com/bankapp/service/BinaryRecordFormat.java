@@ -0,0 +1,40 @@
+package com.bankapp.service;
+
+// Wire layout of the compact record stream (application/vnd.bankapp.records+binary) that the
+// transaction and user listing endpoints return to clients asking for it in Accept. Shared by
+// BinaryRecordWriter and BinaryRecordReader.
+//
+// Stream:  magic(4) version(1) recordType(1), then tagged entries until END:
+//          RECORD record | CURSOR string (next page) | ERROR string (server failed mid-stream) | END
+// A stream without END was cut off. There is no per-record field name: the record type fixes the
+// field order, and the version changes whenever that order does.
+//
+// Transaction: idDelta(zvar) from(ref) to(ref) amount(8) timestampDelta(zvar)
+//              status(1) fraud(1: 0 null, 1 false, 2 true) decision(1) fraudReason(ref)
+// User:        idDelta(zvar) name(ref) email(ref) role(ref)
+//
+// Ids and timestamps (epoch millis, server time zone) are deltas from the previous record, so
+// ordered listings cost a byte or two each. Enums are ordinal + 1, 0 for null. A ref is 0 for null,
+// 1 for a literal (varint length + UTF-8) that both sides append to a string table while it has
+// fewer than MAX_TABLE entries, or 2 + the index of an earlier string, so an account number that
+// appears on every row of a history is sent once.
+final class BinaryRecordFormat {
+
+    static final int MAGIC = 0x424B5231;
+    static final byte VERSION = 1;
+
+    static final byte TYPE_TRANSACTIONS = 1;
+    static final byte TYPE_USERS = 2;
+
+    static final int TAG_END = 0;
+    static final int TAG_RECORD = 1;
+    static final int TAG_CURSOR = 2;
+    static final int TAG_ERROR = 3;
+
+    static final int REF_NULL = 0;
+    static final int REF_LITERAL = 1;
+    static final int MAX_TABLE = 65536;
+
+    private BinaryRecordFormat() {
+    }
+}
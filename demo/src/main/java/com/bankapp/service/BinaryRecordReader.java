@@ -0,0 +1,167 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.TransactionResponse;
+import com.bankapp.dto.UserResponse;
+import com.bankapp.model.FraudDecision;
+import com.bankapp.model.TransactionStatus;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.bankapp.service.BinaryRecordFormat.*;
+
+// Reference decoder for BinaryRecordFormat streams, for clients and tests. next* returns null after
+// the last record; a stream that was cut off or failed on the server throws instead.
+public class BinaryRecordReader {
+
+    private final DataInputStream in;
+    private final byte recordType;
+    private final List<String> table = new ArrayList<>();
+    private final ZoneId zone;
+
+    private long previousId;
+    private long previousMillis;
+    private String nextCursor;
+    private boolean finished;
+
+    public BinaryRecordReader(InputStream in) throws IOException {
+        this(in, ZoneId.systemDefault());
+    }
+
+    public BinaryRecordReader(InputStream in, ZoneId zone) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 16384));
+        this.zone = zone;
+        if (this.in.readInt() != MAGIC) {
+            throw new IOException("Not a record stream");
+        }
+        byte version = this.in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported record stream version " + version);
+        }
+        recordType = this.in.readByte();
+    }
+
+    public boolean isTransactions() {
+        return recordType == TYPE_TRANSACTIONS;
+    }
+
+    public boolean isUsers() {
+        return recordType == TYPE_USERS;
+    }
+
+    // Only known once the last record has been read
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public TransactionResponse nextTransaction() throws IOException {
+        requireType(TYPE_TRANSACTIONS);
+        if (!advance()) {
+            return null;
+        }
+        TransactionResponse transaction = new TransactionResponse();
+        transaction.setId(readId());
+        transaction.setFromAccount(readRef());
+        transaction.setToAccount(readRef());
+        transaction.setAmount(in.readDouble());
+        previousMillis += readZigZag();
+        transaction.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(previousMillis), zone));
+        int status = in.readUnsignedByte();
+        transaction.setStatus(status == 0 ? null : TransactionStatus.values()[status - 1]);
+        int fraud = in.readUnsignedByte();
+        transaction.setIsFraud(fraud == 0 ? null : fraud == 2);
+        int decision = in.readUnsignedByte();
+        transaction.setFraudDecision(decision == 0 ? null : FraudDecision.values()[decision - 1]);
+        transaction.setFraudReason(readRef());
+        return transaction;
+    }
+
+    public UserResponse nextUser() throws IOException {
+        requireType(TYPE_USERS);
+        if (!advance()) {
+            return null;
+        }
+        return new UserResponse(readId(), readRef(), readRef(), readRef());
+    }
+
+    private boolean advance() throws IOException {
+        while (!finished) {
+            int tag = in.read();
+            switch (tag) {
+                case TAG_RECORD:
+                    return true;
+                case TAG_CURSOR:
+                    nextCursor = readString();
+                    break;
+                case TAG_ERROR:
+                    throw new IOException("Server failed mid-stream: " + readString());
+                case TAG_END:
+                    finished = true;
+                    break;
+                case -1:
+                    throw new EOFException("Record stream ended without an end marker");
+                default:
+                    throw new IOException("Unknown tag " + tag);
+            }
+        }
+        return false;
+    }
+
+    private void requireType(byte expected) {
+        if (recordType != expected) {
+            throw new IllegalStateException("Stream carries record type " + recordType);
+        }
+    }
+
+    private long readId() throws IOException {
+        previousId += readZigZag();
+        return previousId;
+    }
+
+    private String readRef() throws IOException {
+        long ref = readVarLong();
+        if (ref == REF_NULL) {
+            return null;
+        }
+        if (ref == REF_LITERAL) {
+            String value = readString();
+            if (table.size() < MAX_TABLE) {
+                table.add(value);
+            }
+            return value;
+        }
+        return table.get((int) (ref - 2));
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = new byte[(int) readVarLong()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readZigZag() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
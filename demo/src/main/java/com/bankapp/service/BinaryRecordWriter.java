@@ -0,0 +1,134 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.TransactionResponse;
+import com.bankapp.dto.UserResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.bankapp.service.BinaryRecordFormat.*;
+
+// Encodes TransactionResponse or UserResponse records as a BinaryRecordFormat stream. Records are
+// written as they arrive, so a listing of any size is sent with one page of rows in memory.
+public class BinaryRecordWriter {
+
+    public static final String MEDIA_TYPE = "application/vnd.bankapp.records+binary";
+
+    private final DataOutputStream out;
+    private final byte recordType;
+    private final Map<String, Integer> table = new HashMap<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private long previousId;
+    private long previousMillis;
+
+    private BinaryRecordWriter(OutputStream out, byte recordType) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 16384));
+        this.recordType = recordType;
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeByte(recordType);
+    }
+
+    public static BinaryRecordWriter transactions(OutputStream out) throws IOException {
+        return new BinaryRecordWriter(out, TYPE_TRANSACTIONS);
+    }
+
+    public static BinaryRecordWriter users(OutputStream out) throws IOException {
+        return new BinaryRecordWriter(out, TYPE_USERS);
+    }
+
+    public void write(TransactionResponse transaction) throws IOException {
+        requireType(TYPE_TRANSACTIONS);
+        out.writeByte(TAG_RECORD);
+        writeId(transaction.getId());
+        writeRef(transaction.getFromAccount());
+        writeRef(transaction.getToAccount());
+        out.writeDouble(transaction.getAmount());
+        long millis = transaction.getTimestamp().atZone(zone).toInstant().toEpochMilli();
+        writeZigZag(millis - previousMillis);
+        previousMillis = millis;
+        out.writeByte(transaction.getStatus() == null ? 0 : transaction.getStatus().ordinal() + 1);
+        out.writeByte(transaction.getIsFraud() == null ? 0 : transaction.getIsFraud() ? 2 : 1);
+        out.writeByte(transaction.getFraudDecision() == null ? 0 : transaction.getFraudDecision().ordinal() + 1);
+        writeRef(transaction.getFraudReason());
+    }
+
+    public void write(UserResponse user) throws IOException {
+        requireType(TYPE_USERS);
+        out.writeByte(TAG_RECORD);
+        writeId(user.getId());
+        writeRef(user.getName());
+        writeRef(user.getEmail());
+        writeRef(user.getRole());
+    }
+
+    public void finish(String nextCursor) throws IOException {
+        if (nextCursor != null) {
+            out.writeByte(TAG_CURSOR);
+            writeString(nextCursor);
+        }
+        out.writeByte(TAG_END);
+        out.flush();
+    }
+
+    // The status line has already gone out, so a failure mid-stream is reported in-band
+    public void fail(String message) throws IOException {
+        out.writeByte(TAG_ERROR);
+        writeString(message == null ? "Internal error" : message);
+        out.flush();
+    }
+
+    private void requireType(byte expected) {
+        if (recordType != expected) {
+            throw new IllegalStateException("Stream was opened for record type " + recordType);
+        }
+    }
+
+    private void writeId(Long id) throws IOException {
+        long value = id == null ? 0 : id;
+        writeZigZag(value - previousId);
+        previousId = value;
+    }
+
+    private void writeRef(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(REF_NULL);
+            return;
+        }
+        Integer index = table.get(value);
+        if (index != null) {
+            writeVarLong(index + 2L);
+            return;
+        }
+        writeVarLong(REF_LITERAL);
+        writeString(value);
+        if (table.size() < MAX_TABLE) {
+            table.put(value, table.size());
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeZigZag(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
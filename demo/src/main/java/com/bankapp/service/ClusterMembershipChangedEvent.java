@@ -0,0 +1,10 @@
+package com.bankapp.service;
+
+// Published by ClusterService whenever the set of live nodes changes. Listeners holding per-account
+// state use it to hand over accounts that moved: previous is empty on the first membership view.
+public record ClusterMembershipChangedEvent(ConsistentHashRing previous, ConsistentHashRing current, String nodeId) {
+
+    public boolean gained(String accountNumber) {
+        return nodeId.equals(current.ownerOf(accountNumber)) && !nodeId.equals(previous.ownerOf(accountNumber));
+    }
+}
@@ -0,0 +1,188 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.ClusterNode;
+import com.bankapp.dto.ClusterReport;
+import com.bankapp.model.ClusterMember;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.ClusterMemberRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Account-affinity partitioning for multi-node deployments. Every instance heartbeats its row in
+// cluster_members and rebuilds the same consistent-hash ring from the live rows, so all instances
+// agree on which node owns an account (its money movement, and with it the in-process state that
+// depends on seeing all of an account's transfers). AccountAffinityFilter forwards requests to the
+// owner; membership changes are published as ClusterMembershipChangedEvent.
+//
+// Disabled (the default), every account is local. Several instances can share one database, on
+// localhost or in one JVM, as long as each has its own node id and port.
+@Service
+public class ClusterService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterService.class);
+
+    @Autowired
+    private ClusterMemberRepository memberRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.cluster.name:bankapp}")
+    private String clusterName;
+
+    @Value("${app.cluster.node-id:}")
+    private String configuredNodeId;
+
+    // How other instances reach this one; defaults to http://localhost:<server port>
+    @Value("${app.cluster.advertised-url:}")
+    private String advertisedUrl;
+
+    @Value("${app.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Value("${app.cluster.member-timeout-ms:5000}")
+    private long memberTimeoutMs;
+
+    @Value("${app.cluster.user-cache-size:100000}")
+    private int userCacheSize;
+
+    private final Map<Long, String> accountNumbersByUser = new ConcurrentHashMap<>();
+
+    private String nodeId;
+    private volatile String baseUrl;
+    private volatile ConsistentHashRing ring = new ConsistentHashRing(List.of(), 0);
+    private volatile Map<String, ClusterMember> members = Map.of();
+
+    // Joins once the web server is accepting requests, so no traffic is routed here earlier
+    @EventListener(ApplicationReadyEvent.class)
+    public void join() {
+        if (!enabled) {
+            return;
+        }
+        nodeId = configuredNodeId.isBlank() ? UUID.randomUUID().toString() : configuredNodeId;
+        baseUrl = advertisedUrl.isBlank()
+                ? "http://localhost:" + environment.getProperty("local.server.port", "8080")
+                : advertisedUrl;
+        refresh();
+        log.info("Joined cluster {} as {} at {}", clusterName, nodeId, baseUrl);
+    }
+
+    @PreDestroy
+    void leave() {
+        if (baseUrl != null) {
+            // Lets the other instances take over this node's accounts without waiting for the timeout
+            memberRepository.leave(nodeId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.heartbeat-interval-ms:1000}")
+    public void refresh() {
+        if (baseUrl == null) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            memberRepository.heartbeat(nodeId, clusterName, baseUrl, now);
+            LocalDateTime cutoff = now.minus(memberTimeoutMs, ChronoUnit.MILLIS);
+            List<ClusterMember> live = memberRepository.findLive(clusterName, cutoff);
+
+            Map<String, ClusterMember> byId = new HashMap<>();
+            live.forEach(member -> byId.put(member.getNodeId(), member));
+            members = byId;
+            if (!byId.keySet().equals(new HashSet<>(ring.getNodes()))) {
+                ConsistentHashRing previous = ring;
+                ring = new ConsistentHashRing(byId.keySet(), virtualNodes);
+                log.info("Cluster membership changed: {} -> {}", previous.getNodes(), ring.getNodes());
+                eventPublisher.publishEvent(new ClusterMembershipChangedEvent(previous, ring, nodeId));
+            }
+            memberRepository.deleteStale(cutoff.minus(memberTimeoutMs * 10, ChronoUnit.MILLIS));
+        } catch (Exception e) {
+            // Keep routing with the last known ring until the database is reachable again
+            log.warn("Cluster heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && baseUrl != null;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // Null when the account is owned here (or clustering is off), otherwise the owner's base URL
+    public String remoteOwnerUrl(String accountNumber) {
+        if (!isEnabled()) {
+            return null;
+        }
+        String owner = ring.ownerOf(accountNumber);
+        if (owner == null || owner.equals(nodeId)) {
+            return null;
+        }
+        ClusterMember member = members.get(owner);
+        return member == null ? null : member.getBaseUrl();
+    }
+
+    public String ownerOf(String accountNumber) {
+        String owner = ring.ownerOf(accountNumber);
+        return owner == null ? nodeId : owner;
+    }
+
+    // The user's first account, which requests that name no account act on. It never changes once
+    // the account exists, so it is cached per user.
+    public String accountNumberOfUser(Long userId) {
+        String cached = accountNumbersByUser.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        String accountNumber = accountRepository.findFirstKeyByUserIdOrderByIdAsc(userId)
+                .map(AccountRepository.AccountKey::getAccountNumber)
+                .orElse(null);
+        if (accountNumber != null) {
+            if (accountNumbersByUser.size() >= userCacheSize) {
+                accountNumbersByUser.clear();
+            }
+            accountNumbersByUser.put(userId, accountNumber);
+        }
+        return accountNumber;
+    }
+
+    public ClusterReport report(String accountNumber) {
+        ConsistentHashRing current = ring;
+        Map<String, Double> ownership = current.ownership();
+        List<ClusterNode> nodes = members.values().stream()
+                .sorted((a, b) -> a.getNodeId().compareTo(b.getNodeId()))
+                .map(member -> new ClusterNode(member.getNodeId(), member.getBaseUrl(), member.getHeartbeatAt(),
+                        ownership.get(member.getNodeId())))
+                .toList();
+        String owner = accountNumber == null || !isEnabled() ? null : ownerOf(accountNumber);
+        return new ClusterReport(isEnabled(), clusterName, nodeId, nodes, accountNumber, owner);
+    }
+}
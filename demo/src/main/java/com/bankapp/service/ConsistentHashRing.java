@@ -0,0 +1,89 @@
+package com.bankapp.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Immutable consistent-hash ring from account numbers to node ids. Every node is placed at
+// virtualNodes points, so ownership is spread evenly, and adding or removing one node only moves
+// the accounts on the arcs that node gains or loses; every other account keeps its owner.
+public class ConsistentHashRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = nodes.stream().distinct().sorted().toList();
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // On the rare point collision the lower node id keeps the point on every instance
+                ring.putIfAbsent(hash(node + "#" + i), node);
+            }
+        }
+        points = new long[ring.size()];
+        owners = new String[ring.size()];
+        int index = 0;
+        for (Map.Entry<Long, String> point : ring.entrySet()) {
+            points[index] = point.getKey();
+            owners[index++] = point.getValue();
+        }
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return points.length == 0;
+    }
+
+    // The owner is the first point at or after the key's hash, wrapping around the ring
+    public String ownerOf(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    // Fraction of the hash space, and so of accounts, each node owns
+    public Map<String, Double> ownership() {
+        Map<String, Double> shares = new HashMap<>();
+        if (nodes.size() == 1) {
+            shares.put(nodes.get(0), 1.0);
+            return shares;
+        }
+        for (int i = 0; i < points.length; i++) {
+            // Wrapping subtraction gives the arc length modulo 2^64, also for the first point
+            long arc = points[i] - points[i == 0 ? points.length - 1 : i - 1];
+            double share = ((arc >>> 1) * 2.0 + (arc & 1)) / 0x1p64;
+            shares.merge(owners[i], share, Double::sum);
+        }
+        return shares;
+    }
+
+    // FNV-1a followed by the MurmurHash3 finalizer: cheap, stable across JVMs, and well mixed even
+    // for keys that differ only in their last digits
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
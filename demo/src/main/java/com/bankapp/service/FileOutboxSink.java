@@ -0,0 +1,75 @@
+package com.bankapp.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Appends each partition's messages as JSON lines to outbox/partition-N.jsonl and fsyncs every
+// batch before returning (app.outbox.sink=file). Each partition is only ever written by its own
+// relay thread, so the channels need no locking.
+@Component
+public class FileOutboxSink implements OutboxSink {
+
+    @Value("${app.outbox.file.directory:outbox}")
+    private String directory;
+
+    private final Map<Integer, FileChannel> channels = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void publish(int partition, List<OutboxMessage> messages) throws IOException {
+        StringBuilder lines = new StringBuilder(messages.size() * 192);
+        for (OutboxMessage message : messages) {
+            lines.append("{\"eventId\":").append(message.eventId())
+                    .append(",\"transactionId\":").append(message.transactionId())
+                    .append(",\"type\":\"").append(message.type())
+                    .append("\",\"accountNumber\":\"").append(message.accountNumber())
+                    .append("\",\"counterpartyAccountNumber\":\"").append(message.counterpartyAccountNumber())
+                    .append("\",\"amount\":").append(message.amount())
+                    .append(",\"createdAt\":\"").append(message.createdAt())
+                    .append("\"}\n");
+        }
+
+        FileChannel channel = channel(partition);
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        for (FileChannel channel : channels.values()) {
+            channel.close();
+        }
+    }
+
+    private FileChannel channel(int partition) throws IOException {
+        FileChannel channel = channels.get(partition);
+        if (channel == null) {
+            Path dir = Paths.get(directory);
+            Files.createDirectories(dir);
+            channel = FileChannel.open(dir.resolve("partition-" + partition + ".jsonl"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            channels.put(partition, channel);
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,296 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.BacktestReport;
+import com.bankapp.dto.BacktestRequest;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Replays history in timestamp order through a candidate rule configuration. Rows are routed to
+// partitions by sending account, so each account's rows stay in order on a single worker, and
+// the flags are compared with the SAFE / CONFIRMED_FRAUD decisions recorded by admins.
+@Service
+public class FraudBacktestService {
+
+    private static final String REPLAY_SQL =
+            "select id, from_account_id, to_account_id, amount, timestamp, status, fraud_decision " +
+            "from transactions where timestamp >= ? and timestamp < ? order by timestamp, id";
+
+    private static final byte UNLABELED = 0;
+    private static final byte LABEL_SAFE = 1;
+    private static final byte LABEL_FRAUD = 2;
+
+    private static final List<Row> END = new ArrayList<>();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${app.fraud.backtest.partitions:0}")
+    private int configuredPartitions;
+
+    @Value("${app.fraud.backtest.chunk-size:512}")
+    private int chunkSize;
+
+    // Defaults for the profile rule, shared with FraudDetectionService
+    @Value("${app.fraud.profile.min-samples:10}")
+    private long profileMinSamples;
+
+    @Value("${app.fraud.profile.min-std-dev:1.0}")
+    private double profileMinStdDev;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    void initJdbcTemplate() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    private record Row(long fromAccountId, double amount, long timeMillis, boolean scored, byte label) {
+    }
+
+    private record Rules(double thresholdAmount, int velocityCount, long velocityWindowMillis,
+                         Double profileStdDevs, long profileMinSamples, double profileMinStdDev) {
+    }
+
+    public BacktestReport backtest(BacktestRequest request) {
+        Rules rules = new Rules(
+                request.getThresholdAmount() != null ? request.getThresholdAmount() : FraudDetectionService.FRAUD_THRESHOLD_AMOUNT,
+                request.getVelocityCount() != null ? request.getVelocityCount() : FraudDetectionService.FRAUD_THRESHOLD_COUNT,
+                (request.getVelocityWindowMinutes() != null ? request.getVelocityWindowMinutes()
+                        : FraudDetectionService.FRAUD_TIME_WINDOW_MINUTES) * 60_000L,
+                request.getProfileStdDevs(),
+                request.getProfileMinSamples() != null ? request.getProfileMinSamples() : profileMinSamples,
+                profileMinStdDev
+        );
+
+        LocalDateTime from = request.getFrom() != null ? request.getFrom() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime to = request.getTo() != null ? request.getTo() : LocalDateTime.now();
+        // Rows just before the range only warm up the velocity windows
+        LocalDateTime replayFrom = from.minusNanos(rules.velocityWindowMillis() * 1_000_000);
+        long scoreFromMillis = toMillis(from);
+
+        int partitions = configuredPartitions > 0 ? configuredPartitions : Runtime.getRuntime().availableProcessors();
+        List<BlockingQueue<List<Row>>> queues = new ArrayList<>(partitions);
+        List<Future<Tally>> results = new ArrayList<>(partitions);
+        ExecutorService workers = Executors.newFixedThreadPool(partitions);
+
+        long start = System.currentTimeMillis();
+        long[] rowsRead = {0};
+        try {
+            for (int i = 0; i < partitions; i++) {
+                BlockingQueue<List<Row>> queue = new ArrayBlockingQueue<>(16);
+                queues.add(queue);
+                results.add(workers.submit(() -> replayPartition(queue, rules)));
+            }
+
+            List<List<Row>> pending = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                pending.add(new ArrayList<>(chunkSize));
+            }
+
+            try {
+                streamingJdbcTemplate.query(REPLAY_SQL, rs -> {
+                    long fromAccountId = rs.getLong(2);
+                    long timeMillis = toMillis(rs.getObject(5, LocalDateTime.class));
+                    boolean scored = timeMillis >= scoreFromMillis
+                            && fromAccountId != rs.getLong(3)
+                            && "SUCCESS".equals(rs.getString(6));
+                    Row row = new Row(fromAccountId, rs.getDouble(4), timeMillis, scored, label(rs.getString(7)));
+                    rowsRead[0]++;
+
+                    int partition = Math.floorMod(fromAccountId, partitions);
+                    List<Row> chunk = pending.get(partition);
+                    chunk.add(row);
+                    if (chunk.size() >= chunkSize) {
+                        put(queues.get(partition), chunk, results.get(partition));
+                        pending.set(partition, new ArrayList<>(chunkSize));
+                    }
+                }, replayFrom, to);
+
+                for (int i = 0; i < partitions; i++) {
+                    if (!pending.get(i).isEmpty()) {
+                        put(queues.get(i), pending.get(i), results.get(i));
+                    }
+                }
+            } finally {
+                // A worker that has already stopped does not need (or take) the end marker
+                for (int i = 0; i < partitions; i++) {
+                    offer(queues.get(i), END, results.get(i));
+                }
+            }
+
+            Tally total = new Tally();
+            for (Future<Tally> result : results) {
+                total.add(result.get());
+            }
+
+            long durationMs = Math.max(1, System.currentTimeMillis() - start);
+            return new BacktestReport(
+                    rowsRead[0],
+                    total.scored,
+                    total.flagged,
+                    ratio(total.flagged, total.scored),
+                    total.truePositives + total.falsePositives + total.falseNegatives + total.trueNegatives,
+                    total.truePositives,
+                    total.falsePositives,
+                    total.falseNegatives,
+                    total.trueNegatives,
+                    ratio(total.truePositives, total.truePositives + total.falsePositives),
+                    ratio(total.truePositives, total.truePositives + total.falseNegatives),
+                    partitions,
+                    durationMs,
+                    rowsRead[0] * 1000 / durationMs
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Backtest interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Backtest failed: " + e.getCause().getMessage());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    // Mirrors FraudDetectionService: the velocity rule counts every earlier row from the same
+    // account inside the window (deposits included), the profile rule only learns unflagged transfers
+    private Tally replayPartition(BlockingQueue<List<Row>> queue, Rules rules) throws InterruptedException {
+        Tally tally = new Tally();
+        Map<Long, ArrayDeque<Long>> recent = new HashMap<>();
+        Map<Long, double[]> profiles = new HashMap<>();
+
+        while (true) {
+            List<Row> chunk = queue.take();
+            if (chunk == END) {
+                return tally;
+            }
+            for (Row row : chunk) {
+                ArrayDeque<Long> window = recent.computeIfAbsent(row.fromAccountId(), k -> new ArrayDeque<>());
+                long cutoff = row.timeMillis() - rules.velocityWindowMillis();
+                while (!window.isEmpty() && window.peekFirst() <= cutoff) {
+                    window.pollFirst();
+                }
+
+                if (row.scored()) {
+                    boolean flagged = row.amount() > rules.thresholdAmount() || window.size() >= rules.velocityCount();
+
+                    double[] profile = profiles.computeIfAbsent(row.fromAccountId(), k -> new double[3]);
+                    if (!flagged && rules.profileStdDevs() != null && profile[0] >= rules.profileMinSamples()) {
+                        double stdDev = Math.max(Math.sqrt(profile[2] / (profile[0] - 1)), rules.profileMinStdDev());
+                        flagged = Math.abs(row.amount() - profile[1]) / stdDev > rules.profileStdDevs();
+                    }
+                    if (!flagged) {
+                        profile[0]++;
+                        double delta = row.amount() - profile[1];
+                        profile[1] += delta / profile[0];
+                        profile[2] += delta * (row.amount() - profile[1]);
+                    }
+
+                    tally.record(flagged, row.label());
+                }
+                window.addLast(row.timeMillis());
+            }
+        }
+    }
+
+    private static final class Tally {
+        private long scored;
+        private long flagged;
+        private long truePositives;
+        private long falsePositives;
+        private long falseNegatives;
+        private long trueNegatives;
+
+        private void record(boolean flagged, byte label) {
+            scored++;
+            if (flagged) {
+                this.flagged++;
+            }
+            if (label == LABEL_FRAUD) {
+                if (flagged) {
+                    truePositives++;
+                } else {
+                    falseNegatives++;
+                }
+            } else if (label == LABEL_SAFE) {
+                if (flagged) {
+                    falsePositives++;
+                } else {
+                    trueNegatives++;
+                }
+            }
+        }
+
+        private void add(Tally other) {
+            scored += other.scored;
+            flagged += other.flagged;
+            truePositives += other.truePositives;
+            falsePositives += other.falsePositives;
+            falseNegatives += other.falseNegatives;
+            trueNegatives += other.trueNegatives;
+        }
+    }
+
+    private static byte label(String decision) {
+        if ("CONFIRMED_FRAUD".equals(decision)) {
+            return LABEL_FRAUD;
+        }
+        return "SAFE".equals(decision) ? LABEL_SAFE : UNLABELED;
+    }
+
+    private static Double ratio(long numerator, long denominator) {
+        return denominator == 0 ? null : (double) numerator / denominator;
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Fails the backtest with the worker's own error if the worker stopped instead of taking the chunk
+    private static void put(BlockingQueue<List<Row>> queue, List<Row> chunk, Future<Tally> worker) {
+        if (!offer(queue, chunk, worker)) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Backtest interrupted");
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Backtest failed: " + e.getCause().getMessage());
+            }
+            throw new RuntimeException("Backtest failed: partition worker stopped early");
+        }
+    }
+
+    // Returns false if the worker has finished, so the reader never waits on a queue nobody drains
+    private static boolean offer(BlockingQueue<List<Row>> queue, List<Row> chunk, Future<Tally> worker) {
+        try {
+            while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (worker.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Backtest interrupted");
+        }
+    }
+}
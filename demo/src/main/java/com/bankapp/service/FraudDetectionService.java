@@ -3,10 +3,12 @@ package com.bankapp.service;
 import com.bankapp.model.Transaction;
 import com.bankapp.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Service
 public class FraudDetectionService {
@@ -14,9 +16,29 @@ public class FraudDetectionService {
     @Autowired
     private TransactionRepository transactionRepository;
 
-    private static final Double FRAUD_THRESHOLD_AMOUNT = 50000.0;
-    private static final int FRAUD_THRESHOLD_COUNT = 3;
-    private static final int FRAUD_TIME_WINDOW_MINUTES = 1;
+    @Autowired
+    private AmountProfileStore amountProfileStore;
+
+    @Autowired
+    private AccountNumberCache accountNumberCache;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Value("${app.fraud.profile.std-devs:4.0}")
+    private double profileStdDevs;
+
+    @Value("${app.fraud.profile.min-samples:10}")
+    private long profileMinSamples;
+
+    // Keeps accounts with perfectly regular amounts from flagging every small variation
+    @Value("${app.fraud.profile.min-std-dev:1.0}")
+    private double profileMinStdDev;
+
+    // Production rule settings; also the defaults FraudBacktestService compares candidates against
+    public static final Double FRAUD_THRESHOLD_AMOUNT = 50000.0;
+    public static final int FRAUD_THRESHOLD_COUNT = 3;
+    public static final int FRAUD_TIME_WINDOW_MINUTES = 1;
 
     public void detectFraud(Transaction transaction) {
         boolean isFraud = false;
@@ -31,23 +53,70 @@ public class FraudDetectionService {
 
         // Rule 2: More than 3 transactions within 1 minute
         LocalDateTime oneMinuteAgo = transaction.getTimestamp().minusMinutes(FRAUD_TIME_WINDOW_MINUTES);
-        List<Transaction> recentTransactions = transactionRepository
-                .findByFromAccountAndTimestampAfter(transaction.getFromAccount(), oneMinuteAgo);
+        long recentTransactions = transactionRepository
+                .countByFromAccountIdAndTimestampAfter(transaction.getFromAccountId(), oneMinuteAgo);
 
-        if (recentTransactions.size() >= FRAUD_THRESHOLD_COUNT) {
+        if (recentTransactions >= FRAUD_THRESHOLD_COUNT) {
             isFraud = true;
             fraudReasons.append("More than ").append(FRAUD_THRESHOLD_COUNT)
                     .append(" transactions detected within ").append(FRAUD_TIME_WINDOW_MINUTES)
                     .append(" minute(s) from the same account. ");
         }
 
+        // Rule 3: Amount far outside the sending account's own history
+        String fromAccountNumber = accountNumberCache.numberOf(transaction.getFromAccountId());
+        AmountProfileStore.Stats stats = amountProfileStore.getStats(fromAccountNumber);
+        if (stats != null && stats.count() >= profileMinSamples) {
+            double stdDev = Math.max(stats.stdDev(), profileMinStdDev);
+            double deviations = Math.abs(transaction.getAmount() - stats.mean()) / stdDev;
+            if (deviations > profileStdDevs) {
+                isFraud = true;
+                fraudReasons.append("Transaction amount (").append(transaction.getAmount())
+                        .append(") is ").append(String.format("%.1f", deviations))
+                        .append(" standard deviations from this account's average of ")
+                        .append(String.format("%.2f", stats.mean())).append(". ");
+            }
+        }
+
         if (isFraud) {
             transaction.setIsFraud(true);
             transaction.setFraudReason(fraudReasons.toString().trim());
+            transaction.setProfileExcluded(true);
         } else {
             transaction.setIsFraud(false);
             transaction.setFraudReason(null);
+            recordAmountAfterCommit(fromAccountNumber, transaction.getAmount());
+        }
+    }
+
+    // Flagged amounts are kept out of the profile, so this is the only way an account whose amounts grow
+    // stops being flagged: each transfer an admin marks safe is learned as normal behaviour. Only
+    // amounts the rules excluded are learned, once: the persisted exclusion is cleared as the sample
+    // is recorded, whatever decisions follow. Profiles are kept by the account's owning instance only;
+    // when another instance handles the review the sample is not learned rather than written over the
+    // owner's profile, and the exclusion stays for a later review on the owner.
+    public void learnClearedTransfer(Transaction transaction) {
+        String fromAccountNumber = accountNumberCache.numberOf(transaction.getFromAccountId());
+        if (fromAccountNumber == null || clusterService.remoteOwnerUrl(fromAccountNumber) != null) {
+            return;
+        }
+        if (transactionRepository.clearProfileExclusion(transaction.getId()) == 1) {
+            recordAmountAfterCommit(fromAccountNumber, transaction.getAmount());
+        }
+    }
+
+    // Flagged amounts are kept out of the profile so a burst of outliers cannot become the norm
+    private void recordAmountAfterCommit(String accountNumber, double amount) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            amountProfileStore.record(accountNumber, amount);
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                amountProfileStore.record(accountNumber, amount);
+            }
+        });
     }
 }
 
@@ -0,0 +1,297 @@
+package com.bankapp.service;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.User;
+import com.bankapp.repository.AccountRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Optional group-commit write path: concurrent deposits and transfers are collected for up to
+// max-wait-ms or max-batch operations, then validated and applied in one database transaction,
+// so a batch pays for a single commit (and log flush) instead of one per request.
+@Service
+public class GroupCommitService {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitService.class);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.group-commit.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${app.group-commit.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${app.group-commit.committers:2}")
+    private int committerCount;
+
+    @Value("${app.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.group-commit.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private BlockingQueue<Operation> queue;
+    private List<Thread> committers;
+    private volatile boolean running;
+    private TransactionTemplate transactionTemplate;
+
+    private static final int QUEUED = 0;
+    private static final int CLAIMED = 1;
+    private static final int CANCELLED = 2;
+
+    // state moves from QUEUED to either CLAIMED (a committer took it) or CANCELLED (the caller gave up),
+    // never both, so an operation the caller was told timed out is never applied
+    private record Operation(boolean deposit, String fromAccount, String toAccount, Double amount, User user,
+                             CompletableFuture<Outcome> result, AtomicInteger state) {
+
+        private Operation(boolean deposit, String fromAccount, String toAccount, Double amount, User user) {
+            this(deposit, fromAccount, toAccount, amount, user, new CompletableFuture<>(), new AtomicInteger(QUEUED));
+        }
+    }
+
+    // The account is the sender (or deposit target) as it stood right after this operation was applied
+    private record Outcome(Transaction transaction, Account account) {
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        committers = new ArrayList<>(committerCount);
+        for (int i = 0; i < committerCount; i++) {
+            committers.add(workerThreads.start("group-commit-" + i, this::commitLoop));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (committers != null) {
+            committers.forEach(Thread::interrupt);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Transaction transferMoney(String fromAccountNumber, String toAccountNumber, Double amount, User user) {
+        return submit(new Operation(false, fromAccountNumber, toAccountNumber, amount, user))
+                .transaction();
+    }
+
+    // Returns the deposited account with its post-deposit balance; the caller's own managed copy is stale
+    // because the deposit was committed from a different persistence context
+    public Account depositMoney(String accountNumber, Double amount, User user) {
+        return submit(new Operation(true, accountNumber, accountNumber, amount, user))
+                .account();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("batches", batches.get());
+        stats.put("operations", operations.get());
+        stats.put("fallbacks", fallbacks.get());
+        stats.put("averageBatchSizeTimes100", batches.get() == 0 ? 0 : operations.get() * 100 / batches.get());
+        return stats;
+    }
+
+    private Outcome submit(Operation operation) {
+        if (!queue.offer(operation)) {
+            throw new RuntimeException("Server is busy. Please retry shortly");
+        }
+        try {
+            try {
+                return operation.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (operation.state().compareAndSet(QUEUED, CANCELLED)) {
+                    throw new RuntimeException("Timed out waiting for the operation to commit");
+                }
+                // Already part of a batch: its outcome is decided by that commit, so report the real one
+                return operation.result().get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the operation to commit");
+        }
+    }
+
+    private void commitLoop() {
+        List<Operation> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Operation first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null || !claim(first)) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Operation next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (claim(next)) {
+                        batch.add(next);
+                    }
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Group commit loop failed", e);
+                batch.forEach(operation -> operation.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Operations whose caller has already timed out are dropped unapplied
+    private boolean claim(Operation operation) {
+        return operation.state().compareAndSet(QUEUED, CLAIMED);
+    }
+
+    private void commit(List<Operation> batch) {
+        Map<Operation, Object> outcomes = new IdentityHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                outcomes.clear();
+                Set<String> accountNumbers = new HashSet<>();
+                for (Operation operation : batch) {
+                    accountNumbers.add(operation.fromAccount());
+                    accountNumbers.add(operation.toAccount());
+                }
+                Map<String, Account> accounts = new HashMap<>();
+                for (Account account : accountRepository.findByAccountNumberInOrderByIdAsc(accountNumbers)) {
+                    accounts.put(account.getAccountNumber(), account);
+                }
+
+                // Operations are applied in arrival order against the locked, in-memory balances; a
+                // rejected operation throws before modifying anything, so it cannot affect the others
+                for (Operation operation : batch) {
+                    try {
+                        outcomes.put(operation, apply(operation, accounts));
+                    } catch (RuntimeException e) {
+                        outcomes.put(operation, e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // The batch as a whole failed to commit (deadlock, constraint, connection loss):
+            // nothing was applied, so every operation is retried on the per-request path
+            fallbacks.incrementAndGet();
+            log.warn("Group commit of {} operations failed, retrying individually: {}", batch.size(), e.getMessage());
+            batch.forEach(this::applyIndividually);
+            return;
+        }
+
+        batches.incrementAndGet();
+        operations.addAndGet(batch.size());
+        for (Operation operation : batch) {
+            Object outcome = outcomes.get(operation);
+            if (outcome instanceof Outcome success) {
+                operation.result().complete(success);
+            } else {
+                operation.result().completeExceptionally((RuntimeException) outcome);
+            }
+        }
+    }
+
+    private Outcome apply(Operation operation, Map<String, Account> accounts) {
+        if (operation.deposit()) {
+            Account account = accounts.get(operation.fromAccount());
+            if (account == null) {
+                throw new RuntimeException("Account not found");
+            }
+            Transaction transaction = transactionService.applyDeposit(account, operation.amount(), operation.user());
+            return new Outcome(transaction, snapshot(account));
+        }
+        Account fromAccount = accounts.get(operation.fromAccount());
+        if (fromAccount == null) {
+            throw new RuntimeException("Sender account not found");
+        }
+        Account toAccount = accounts.get(operation.toAccount());
+        if (toAccount == null) {
+            throw new RuntimeException("Receiver account not found");
+        }
+        Transaction transaction = transactionService.applyTransfer(fromAccount, toAccount, operation.amount(), operation.user());
+        return new Outcome(transaction, snapshot(fromAccount));
+    }
+
+    // Later operations in the same batch keep mutating the managed account, so each caller gets a copy
+    private Account snapshot(Account account) {
+        return new Account(account.getId(), account.getUser(), account.getAccountNumber(), account.getBalance(),
+                account.getChangeVersion());
+    }
+
+    private void applyIndividually(Operation operation) {
+        try {
+            if (operation.deposit()) {
+                Transaction transaction = transactionService.depositMoney(operation.fromAccount(), operation.amount(), operation.user());
+                Account account = accountRepository.findByAccountNumber(operation.fromAccount())
+                        .orElseThrow(() -> new RuntimeException("Account not found"));
+                operation.result().complete(new Outcome(transaction, account));
+            } else {
+                Transaction transaction = transactionService.transferMoney(operation.fromAccount(), operation.toAccount(),
+                        operation.amount(), operation.user());
+                operation.result().complete(new Outcome(transaction, null));
+            }
+        } catch (RuntimeException e) {
+            operation.result().completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.bankapp.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Stand-in for a real broker in tests and local runs (app.outbox.sink=memory)
+@Component
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final Map<Integer, List<OutboxMessage>> partitions = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public void publish(int partition, List<OutboxMessage> messages) {
+        // One relay writes a partition and tests read it, so a copy-on-write list needs no monitor
+        partitions.computeIfAbsent(partition, p -> new CopyOnWriteArrayList<>()).addAll(messages);
+    }
+
+    public List<OutboxMessage> getMessages(int partition) {
+        return List.copyOf(partitions.getOrDefault(partition, List.of()));
+    }
+
+    public void clear() {
+        partitions.clear();
+    }
+}
@@ -0,0 +1,210 @@
+package com.bankapp.service;
+
+import com.bankapp.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class MuleRingDetectionService {
+
+    private static final Logger log = LoggerFactory.getLogger(MuleRingDetectionService.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountNumberCache accountNumberCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.fraud.graph.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.fraud.graph.window-minutes:1440}")
+    private long windowMinutes;
+
+    @Value("${app.fraud.graph.edge-capacity:262144}")
+    private int edgeCapacity;
+
+    @Value("${app.fraud.graph.min-cycle-length:3}")
+    private int minCycleLength;
+
+    @Value("${app.fraud.graph.max-cycle-length:5}")
+    private int maxCycleLength;
+
+    @Value("${app.fraud.graph.min-fan-in:10}")
+    private int minFanIn;
+
+    @Value("${app.fraud.graph.min-fan-out:3}")
+    private int minFanOut;
+
+    // Upper bound on edges examined per transfer, so a hub account cannot make detection slow
+    @Value("${app.fraud.graph.visit-budget:2000}")
+    private int visitBudget;
+
+    // Once a hub has been flagged, each further transfer out of it only flags that transfer until the
+    // cooldown has passed, instead of re-flagging every outgoing transfer in the window
+    @Value("${app.fraud.graph.hub-cooldown-minutes:60}")
+    private long hubCooldownMinutes;
+
+    // Flags waiting to be written; when full, the committing request thread writes its own
+    @Value("${app.fraud.graph.flag-queue-capacity:1000}")
+    private int flagQueueCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private TransferGraph graph;
+
+    // Hub account id -> time it was last flagged in full; guarded by lock
+    private final Map<Long, Long> flaggedHubs = new HashMap<>();
+
+    private ThreadPoolExecutor flagWriter;
+
+    private TransactionTemplate readTemplate;
+
+    private TransactionTemplate flagTemplate;
+
+    @PostConstruct
+    void init() {
+        graph = new TransferGraph(edgeCapacity, windowMinutes * 60_000);
+
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setReadOnly(true);
+
+        // Listeners run after commit while the finished transaction is still bound to the thread
+        flagTemplate = new TransactionTemplate(transactionManager);
+        flagTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        flagWriter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(flagQueueCapacity), workerThreads.factory("mule-ring-flagger"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stopFlagWriter() {
+        flagWriter.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.now().minusMinutes(windowMinutes);
+        readTemplate.executeWithoutResult(status -> {
+            try (Stream<TransactionRepository.LedgerEntry> transfers = transactionRepository.streamTransfersSince(since)) {
+                transfers.forEach(transfer -> graph.addEdge(transfer.getFromAccountId(), transfer.getToAccountId(),
+                        toMillis(transfer.getTimestamp()), transfer.getId()));
+            }
+        });
+        log.info("Transfer graph warmed up with {} accounts", graph.nodeCount());
+    }
+
+    @TransactionalEventListener
+    public void onTransactionCommitted(TransactionCommittedEvent event) {
+        if (!enabled || event.isDeposit()) {
+            return;
+        }
+        long from = event.fromAccountId();
+        long to = event.toAccountId();
+        long time = toMillis(event.timestamp());
+        List<TransferGraph.Detection> detections = List.of();
+        lock.lock();
+        try {
+            // A transfer between one user's own accounts never triggers a detection by itself, but stays
+            // in the graph so a ring routed through someone's own accounts is still closed by the next hop
+            if (!event.ownAccounts()) {
+                detections = throttleHubs(graph.detect(from, to, time, event.transactionId(),
+                        minCycleLength, maxCycleLength, minFanIn, minFanOut, visitBudget, accountNumberCache::numberOf),
+                        time, event.transactionId());
+            }
+            graph.addEdge(from, to, time, event.transactionId());
+        } finally {
+            lock.unlock();
+        }
+
+        for (TransferGraph.Detection detection : detections) {
+            flagWriter.execute(() -> flag(detection));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.fraud.graph.compact-interval-ms:600000}")
+    public void compact() {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            graph = graph.compacted(now);
+            flaggedHubs.values().removeIf(flaggedAt -> flaggedAt < now - hubCooldownMinutes * 60_000);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called under lock
+    private List<TransferGraph.Detection> throttleHubs(List<TransferGraph.Detection> detections, long time,
+                                                       long transactionId) {
+        List<TransferGraph.Detection> throttled = new ArrayList<>(detections.size());
+        for (TransferGraph.Detection detection : detections) {
+            if (!detection.isHub()) {
+                throttled.add(detection);
+                continue;
+            }
+            Long flaggedAt = flaggedHubs.get(detection.hubAccountId());
+            if (flaggedAt != null && flaggedAt >= time - hubCooldownMinutes * 60_000) {
+                throttled.add(new TransferGraph.Detection(detection.reason(), detection.hubAccountId(),
+                        new long[]{transactionId}));
+            } else {
+                flaggedHubs.put(detection.hubAccountId(), time);
+                throttled.add(detection);
+            }
+        }
+        return throttled;
+    }
+
+    private void flag(TransferGraph.Detection detection) {
+        try {
+            List<Long> ids = Arrays.stream(detection.transactionIds()).boxed().collect(Collectors.toList());
+            Integer flagged = flagTemplate.execute(status ->
+                    transactionRepository.flagForReview(ids, detection.reason()));
+            if (flagged != null && flagged > 0) {
+                log.warn("{} ({} transaction(s) flagged for review)", detection.reason(), flagged);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not flag transactions for review: {}", detection.reason(), e);
+        }
+    }
+
+    private long toMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,15 @@
+package com.bankapp.service;
+
+import java.time.LocalDateTime;
+
+// What downstream consumers receive for one outbox row. eventId increases per account, so a
+// consumer can drop redeliveries (the relay is at-least-once) by remembering the last id it applied.
+public record OutboxMessage(
+        long eventId,
+        long transactionId,
+        String type,
+        String accountNumber,
+        String counterpartyAccountNumber,
+        double amount,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,202 @@
+package com.bankapp.service;
+
+import com.bankapp.model.OutboxEntryType;
+import com.bankapp.model.OutboxEvent;
+import com.bankapp.repository.OutboxEventRepository;
+import com.bankapp.repository.OutboxPartitionLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Transactional outbox: TransactionService writes one row per affected account inside the money
+// movement's own transaction, and one relay thread per partition publishes them in id order to the
+// configured OutboxSink, then deletes the batch. An account always maps to the same partition and a
+// partition is relayed by one lease holder at a time, so each account's events arrive in commit order.
+// The lease is renewed right before every publish and the delete only succeeds while it is still held.
+// Delivery is at-least-once: a crash between publish and delete, or a publish that outlived the lease,
+// republishes that batch.
+@Service
+public class OutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxPartitionLeaseRepository leaseRepository;
+
+    @Autowired
+    private AccountNumberCache accountNumberCache;
+
+    @Autowired
+    private List<OutboxSink> sinks;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.outbox.sink:file}")
+    private String sinkName;
+
+    // Changing this re-homes accounts to other partitions; drain the outbox first
+    @Value("${app.outbox.partitions:4}")
+    private int partitions;
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${app.outbox.lease-seconds:30}")
+    private long leaseSeconds;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong published = new AtomicLong();
+
+    private OutboxSink sink;
+    private List<Thread> relays;
+    private volatile boolean running;
+
+    @PostConstruct
+    void startRelays() {
+        if (!enabled) {
+            return;
+        }
+        sink = sinks.stream()
+                .filter(candidate -> candidate.name().equals(sinkName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown outbox sink: " + sinkName));
+
+        running = true;
+        relays = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            leaseRepository.createIfMissing(partition);
+            int owned = partition;
+            relays.add(workerThreads.start("outbox-relay-" + partition, () -> relayLoop(owned)));
+        }
+    }
+
+    @PreDestroy
+    void stopRelays() throws InterruptedException {
+        if (relays == null) {
+            return;
+        }
+        running = false;
+        for (Thread relay : relays) {
+            relay.interrupt();
+            relay.join(5000);
+        }
+        // Lets another instance take over without waiting for the leases to expire
+        leaseRepository.releaseAll(instanceId);
+    }
+
+    // Called inside the money-movement transaction, after the account rows have been updated
+    public void recordTransfer(Long transactionId, Long fromAccountId, Long toAccountId, Double amount,
+                               LocalDateTime createdAt) {
+        if (!enabled) {
+            return;
+        }
+        outboxEventRepository.insertTransfer(partitionOf(fromAccountId), partitionOf(toAccountId),
+                fromAccountId, toAccountId, transactionId, amount, createdAt);
+    }
+
+    public void recordDeposit(Long transactionId, Long accountId, Double amount, LocalDateTime createdAt) {
+        if (!enabled) {
+            return;
+        }
+        outboxEventRepository.save(new OutboxEvent(null, partitionOf(accountId), accountId, accountId,
+                transactionId, OutboxEntryType.DEPOSIT, amount, createdAt));
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    private int partitionOf(Long accountId) {
+        return Math.floorMod(accountId, partitions);
+    }
+
+    private void relayLoop(int partition) {
+        while (running) {
+            try {
+                if (relayBatch(partition) < batchSize) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Outbox relay for partition {} failed: {}", partition, e.getMessage());
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int relayBatch(int partition) throws Exception {
+        if (!renewLease(partition)) {
+            return 0;
+        }
+
+        List<OutboxEvent> batch = outboxEventRepository.findBatch(partition, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> accountIds = new HashSet<>();
+        for (OutboxEvent event : batch) {
+            accountIds.add(event.getAccountId());
+            accountIds.add(event.getCounterpartyAccountId());
+        }
+        Map<Long, String> accountNumbers = accountNumberCache.numbersOf(accountIds);
+
+        List<OutboxMessage> messages = new ArrayList<>(batch.size());
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            messages.add(new OutboxMessage(event.getId(), event.getTransactionId(), event.getEntryType().name(),
+                    accountNumbers.get(event.getAccountId()), accountNumbers.get(event.getCounterpartyAccountId()),
+                    event.getAmount(), event.getCreatedAt()));
+            ids.add(event.getId());
+        }
+
+        // Reading the batch and resolving account numbers may have used up part of the lease
+        if (!renewLease(partition)) {
+            return 0;
+        }
+        sink.publish(partition, messages);
+        if (outboxEventRepository.deletePublished(ids, partition, instanceId) == 0) {
+            log.warn("Lost the lease on outbox partition {} while publishing; the new owner republishes {} events",
+                    partition, ids.size());
+            return 0;
+        }
+        published.addAndGet(batch.size());
+        return batch.size();
+    }
+
+    private boolean renewLease(int partition) {
+        LocalDateTime now = LocalDateTime.now();
+        return leaseRepository.acquire(partition, instanceId, now, now.plusSeconds(leaseSeconds)) > 0;
+    }
+}
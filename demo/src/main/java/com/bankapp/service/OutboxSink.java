@@ -0,0 +1,12 @@
+package com.bankapp.service;
+
+import java.util.List;
+
+// Destination of the outbox relay, chosen with app.outbox.sink by name(). publish must not return
+// until the batch is durable: the relay deletes the rows as soon as it does.
+public interface OutboxSink {
+
+    String name();
+
+    void publish(int partition, List<OutboxMessage> messages) throws Exception;
+}
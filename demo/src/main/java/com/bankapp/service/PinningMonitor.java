@@ -0,0 +1,148 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.PinnedSite;
+import com.bankapp.dto.PinningReport;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reports virtual threads that blocked while pinned to their carrier (inside synchronized or a
+// native frame), which is what quietly turns a virtual-thread server back into a small fixed pool.
+// Listens in-process to the JFR jdk.VirtualThreadPinned event and groups occurrences by the
+// innermost non-JDK frame, so a monitor held by the MySQL driver is reported separately from one
+// held in com.bankapp code; appFrame is the nearest application frame on the same stack.
+@Component
+public class PinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(PinningMonitor.class);
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.diagnostics.pinning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.diagnostics.pinning.threshold-ms:20}")
+    private long thresholdMs;
+
+    @Value("${app.diagnostics.pinning.max-sites:200}")
+    private int maxSites;
+
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+    private final AtomicLong events = new AtomicLong();
+
+    private RecordingStream stream;
+
+    private static final class Site {
+        private final String origin;
+        private final String frame;
+        private final String appFrame;
+        private final AtomicLong events = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Site(String origin, String frame, String appFrame) {
+            this.origin = origin;
+            this.frame = frame;
+            this.appFrame = appFrame;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(EVENT, this::record);
+        stream.startAsync();
+        log.info("Watching for virtual thread pinning longer than {} ms", thresholdMs);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    public PinningReport report() {
+        List<PinnedSite> report = sites.values().stream()
+                .sorted(Comparator.comparingLong((Site site) -> site.totalNanos.get()).reversed())
+                .map(site -> new PinnedSite(site.origin, site.frame, site.appFrame, site.events.get(),
+                        site.totalNanos.get() / 1_000_000.0, site.maxNanos.get() / 1_000_000.0))
+                .toList();
+        return new PinningReport(enabled, workerThreads.isVirtual(), thresholdMs, events.get(), report);
+    }
+
+    private void record(RecordedEvent event) {
+        events.incrementAndGet();
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+
+        String frame = null;
+        String owner = null;
+        String appFrame = null;
+        for (RecordedFrame candidate : frames) {
+            String type = candidate.getMethod().getType().getName();
+            if (frame == null && !isJdk(type)) {
+                frame = describe(candidate);
+                owner = type;
+            }
+            if (type.startsWith("com.bankapp.")) {
+                appFrame = describe(candidate);
+                break;
+            }
+        }
+        if (frame == null) {
+            frame = frames.isEmpty() ? "unknown" : describe(frames.get(0));
+        }
+        String origin = owner == null ? "jdk"
+                : owner.startsWith("com.mysql.") ? "driver"
+                : owner.startsWith("com.bankapp.") ? "app"
+                : "library";
+
+        String key = frame + "|" + appFrame;
+        Site site = sites.get(key);
+        if (site == null) {
+            if (sites.size() >= maxSites) {
+                return;
+            }
+            Site created = new Site(origin, frame, appFrame);
+            site = sites.putIfAbsent(key, created);
+            if (site == null) {
+                site = created;
+                log.warn("Virtual thread pinned for {} ms in {} code at {} (called from {})",
+                        event.getDuration().toMillis(), origin, frame, appFrame);
+            }
+        }
+        long nanos = event.getDuration().toNanos();
+        site.events.incrementAndGet();
+        site.totalNanos.addAndGet(nanos);
+        site.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static boolean isJdk(String type) {
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.") || type.startsWith("com.sun.");
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,175 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.AccountResponse;
+import com.bankapp.dto.PortfolioResponse;
+import com.bankapp.dto.TransactionResponse;
+import com.bankapp.model.Account;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.TransactionStatus;
+import com.bankapp.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+// All of a user's accounts at once: every balance from one query, and one history, newest first.
+// Each account contributes two streams, the transactions it sent and the ones it received from
+// outside the portfolio, each walking its own (account, timestamp) index and cut at one page. All
+// streams are read by a single UNION ALL statement and combined with a k-way merge, so a page costs
+// the same two statements however many accounts the user has.
+//
+// Deposits and transfers between the user's own accounts only come from the sender's stream, so no
+// transaction appears twice. Pages are keyset-paginated on (timestamp, id).
+@Service
+public class PortfolioService {
+
+    private static final String COLUMNS = " as stream, t.id, t.from_account_id, t.to_account_id, t.amount, "
+            + "t.timestamp, t.status from transactions t where ";
+    private static final String PAGE = " order by t.timestamp desc, t.id desc limit :limit";
+
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator.comparing(Transaction::getTimestamp)
+            .thenComparing(Transaction::getId)
+            .reversed();
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountNumberCache accountNumberCache;
+
+    @Value("${app.portfolio.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${app.portfolio.max-limit:200}")
+    private int maxLimit;
+
+    // One stream's rows, newest first, and the position of the next row to merge
+    private static final class AccountStream {
+        private final List<Transaction> rows = new ArrayList<>();
+        private int position;
+
+        private Transaction head() {
+            return rows.get(position);
+        }
+    }
+
+    public PortfolioResponse getPortfolio(User user, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultLimit : limit;
+        if (pageSize < 1 || pageSize > maxLimit) {
+            throw new RuntimeException("limit must be between 1 and " + maxLimit);
+        }
+        LocalDateTime beforeTime = null;
+        long beforeId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = decoded.indexOf('\n');
+                beforeTime = LocalDateTime.parse(decoded.substring(0, separator));
+                beforeId = Long.parseLong(decoded.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+
+        List<Account> accounts = userService.getAccounts(user);
+        if (accounts.isEmpty()) {
+            throw new RuntimeException("Account not found. Please create an account first.");
+        }
+        BigDecimal totalBalance = BigDecimal.ZERO;
+        List<AccountResponse> accountResponses = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            accountNumberCache.remember(account);
+            totalBalance = totalBalance.add(BigDecimal.valueOf(account.getBalance()));
+            accountResponses.add(userService.convertToAccountResponse(account));
+        }
+
+        List<Transaction> page = merge(readStreams(accounts, beforeTime, beforeId, pageSize), pageSize + 1);
+        String nextCursor = null;
+        if (page.size() > pageSize) {
+            page = page.subList(0, pageSize);
+            Transaction last = page.get(pageSize - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getTimestamp() + "\n" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<TransactionResponse> transactions = transactionService.convertToTransactionResponses(page);
+        return new PortfolioResponse(accountResponses, totalBalance.doubleValue(), transactions, nextCursor);
+    }
+
+    // Two streams per account, each cut at one row beyond the page, which tells whether there is a next page
+    private List<AccountStream> readStreams(List<Account> accounts, LocalDateTime beforeTime, long beforeId,
+                                            int pageSize) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", pageSize + 1)
+                .addValue("accountIds", accounts.stream().map(Account::getId).collect(Collectors.toList()));
+        String afterCursor = "";
+        if (beforeTime != null) {
+            afterCursor = " and (t.timestamp < :beforeTime or (t.timestamp = :beforeTime and t.id < :beforeId))";
+            parameters.addValue("beforeTime", beforeTime).addValue("beforeId", beforeId);
+        }
+
+        List<String> branches = new ArrayList<>(accounts.size() * 2);
+        List<AccountStream> streams = new ArrayList<>(accounts.size() * 2);
+        for (int i = 0; i < accounts.size(); i++) {
+            parameters.addValue("account" + i, accounts.get(i).getId());
+            branches.add("(select " + streams.size() + COLUMNS
+                    + "t.from_account_id = :account" + i + afterCursor + PAGE + ")");
+            streams.add(new AccountStream());
+            branches.add("(select " + streams.size() + COLUMNS + "t.to_account_id = :account" + i
+                    + " and t.from_account_id not in (:accountIds)" + afterCursor + PAGE + ")");
+            streams.add(new AccountStream());
+        }
+
+        namedParameterJdbcTemplate.query(String.join(" union all ", branches), parameters, rs -> {
+            Transaction transaction = new Transaction();
+            transaction.setId(rs.getLong("id"));
+            transaction.setFromAccountId(rs.getLong("from_account_id"));
+            transaction.setToAccountId(rs.getLong("to_account_id"));
+            transaction.setAmount(rs.getDouble("amount"));
+            transaction.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+            transaction.setStatus(TransactionStatus.valueOf(rs.getString("status")));
+            streams.get(rs.getInt("stream")).rows.add(transaction);
+        });
+        // UNION ALL does not promise to keep each branch's order; a run that is already sorted costs one pass
+        for (AccountStream stream : streams) {
+            stream.rows.sort(NEWEST_FIRST);
+        }
+        return streams;
+    }
+
+    // k-way merge: the heap holds the newest unmerged row of each stream
+    private static List<Transaction> merge(List<AccountStream> streams, int maxRows) {
+        PriorityQueue<AccountStream> heads = new PriorityQueue<>((a, b) -> NEWEST_FIRST.compare(a.head(), b.head()));
+        for (AccountStream stream : streams) {
+            if (!stream.rows.isEmpty()) {
+                heads.add(stream);
+            }
+        }
+        List<Transaction> merged = new ArrayList<>(maxRows);
+        while (merged.size() < maxRows && !heads.isEmpty()) {
+            AccountStream stream = heads.poll();
+            merged.add(stream.head());
+            stream.position++;
+            if (stream.position < stream.rows.size()) {
+                heads.add(stream);
+            }
+        }
+        return merged;
+    }
+}
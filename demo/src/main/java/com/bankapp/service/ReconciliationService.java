@@ -0,0 +1,239 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.AccountReconciliationResponse;
+import com.bankapp.dto.ReconciliationReport;
+import com.bankapp.model.Account;
+import com.bankapp.model.AccountReconciliation;
+import com.bankapp.repository.AccountReconciliationRepository;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class ReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationService.class);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountReconciliationRepository reconciliationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Workers block on JDBC, so keep this at or below the connection pool size
+    @Value("${app.reconciliation.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.reconciliation.leaf-size:64}")
+    private int leafSize;
+
+    @Value("${app.reconciliation.page-size:10000}")
+    private int pageSize;
+
+    @Value("${app.reconciliation.tolerance:0.005}")
+    private BigDecimal tolerance;
+
+    // Transactions younger than this are counted but not checkpointed: an IDENTITY id can commit
+    // after a higher one, and the watermark must never move past a row that is still in flight
+    @Value("${app.reconciliation.settle-seconds:60}")
+    private long settleSeconds;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private TransactionTemplate snapshotTemplate;
+
+    @PostConstruct
+    void initTransactionTemplate() {
+        // Balance and history are read from one consistent snapshot per account
+        snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @Scheduled(cron = "${app.reconciliation.cron:-}")
+    public void scheduledReconciliation() {
+        ReconciliationReport report = reconcileAll();
+        log.info("Reconciliation checked {} accounts, applied {} transactions, found {} mismatches in {} ms",
+                report.getAccountsChecked(), report.getTransactionsApplied(), report.getMismatches(), report.getDurationMs());
+    }
+
+    public ReconciliationReport reconcileAll() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Reconciliation is already running");
+        }
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long[] accountIds = loadAccountIds();
+            Totals totals = pool.invoke(new ReconcileTask(accountIds, 0, accountIds.length));
+            return new ReconciliationReport(totals.accounts, totals.transactions, totals.mismatches,
+                    System.currentTimeMillis() - start);
+        } finally {
+            pool.shutdown();
+            running.set(false);
+        }
+    }
+
+    public List<AccountReconciliationResponse> getMismatches() {
+        return reconciliationRepository.findByMismatchTrueOrderByAccountIdAsc().stream()
+                .map(r -> new AccountReconciliationResponse(r.getAccountId(), r.getAccountNumber(),
+                        r.getAccountBalance(), r.getLedgerBalance(), r.getDrift(), r.getCheckedAt()))
+                .collect(Collectors.toList());
+    }
+
+    private long[] loadAccountIds() {
+        long[] ids = new long[Math.max(16, pageSize)];
+        int size = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Long> page = accountRepository.findIdsAfter(afterId, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                return Arrays.copyOf(ids, size);
+            }
+            if (size + page.size() > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, size + page.size()));
+            }
+            for (Long id : page) {
+                ids[size++] = id;
+            }
+            afterId = page.get(page.size() - 1);
+        }
+    }
+
+    private Totals reconcileAccount(long accountId) {
+        return snapshotTemplate.execute(status -> {
+            Totals totals = new Totals();
+            Account account = accountRepository.findById(accountId).orElse(null);
+            if (account == null) {
+                return totals;
+            }
+            String accountNumber = account.getAccountNumber();
+
+            AccountReconciliation checkpoint = reconciliationRepository.findById(accountId).orElseGet(() -> {
+                AccountReconciliation created = new AccountReconciliation();
+                created.setAccountId(accountId);
+                created.setAccountNumber(accountNumber);
+                return created;
+            });
+
+            LocalDateTime settledBefore = LocalDateTime.now().minusSeconds(settleSeconds);
+            BigDecimal settled = checkpoint.getLedgerBalance();
+            long settledThrough = checkpoint.getLastTransactionId();
+            BigDecimal unsettled = BigDecimal.ZERO;
+            boolean settling = true;
+
+            try (Stream<TransactionRepository.LedgerEntry> entries =
+                         transactionRepository.streamLedger(accountId, settledThrough)) {
+                Iterator<TransactionRepository.LedgerEntry> iterator = entries.iterator();
+                while (iterator.hasNext()) {
+                    TransactionRepository.LedgerEntry entry = iterator.next();
+                    totals.transactions++;
+                    BigDecimal delta = signedAmount(entry, accountId);
+                    if (settling && entry.getTimestamp().isBefore(settledBefore)) {
+                        settled = settled.add(delta);
+                        settledThrough = entry.getId();
+                    } else {
+                        settling = false;
+                        unsettled = unsettled.add(delta);
+                    }
+                }
+            }
+
+            BigDecimal drift = BigDecimal.valueOf(account.getBalance()).subtract(settled.add(unsettled));
+            boolean mismatch = drift.abs().compareTo(tolerance) > 0;
+
+            checkpoint.setLedgerBalance(settled.setScale(4, RoundingMode.HALF_EVEN));
+            checkpoint.setLastTransactionId(settledThrough);
+            checkpoint.setAccountBalance(account.getBalance());
+            checkpoint.setDrift(drift.setScale(4, RoundingMode.HALF_EVEN));
+            checkpoint.setMismatch(mismatch);
+            checkpoint.setCheckedAt(LocalDateTime.now());
+            reconciliationRepository.save(checkpoint);
+
+            totals.accounts = 1;
+            totals.mismatches = mismatch ? 1 : 0;
+            return totals;
+        });
+    }
+
+    // Deposits are stored with the same account on both sides and count once, as a credit
+    private BigDecimal signedAmount(TransactionRepository.LedgerEntry entry, long accountId) {
+        BigDecimal amount = BigDecimal.valueOf(entry.getAmount());
+        return entry.getToAccountId() == accountId ? amount : amount.negate();
+    }
+
+    private static class Totals {
+        private long accounts;
+        private long transactions;
+        private long mismatches;
+
+        private Totals add(Totals other) {
+            accounts += other.accounts;
+            transactions += other.transactions;
+            mismatches += other.mismatches;
+            return this;
+        }
+    }
+
+    private class ReconcileTask extends RecursiveTask<Totals> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] accountIds;
+        private final int from;
+        private final int to;
+
+        private ReconcileTask(long[] accountIds, int from, int to) {
+            this.accountIds = accountIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= leafSize) {
+                Totals totals = new Totals();
+                for (int i = from; i < to; i++) {
+                    try {
+                        totals.add(reconcileAccount(accountIds[i]));
+                    } catch (Exception e) {
+                        log.warn("Reconciliation of account {} failed: {}", accountIds[i], e.getMessage());
+                    }
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            ReconcileTask left = new ReconcileTask(accountIds, from, middle);
+            left.fork();
+            Totals right = new ReconcileTask(accountIds, middle, to).compute();
+            return right.add(left.join());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.ScheduledTransferResponse;
+import com.bankapp.model.Account;
+import com.bankapp.model.ScheduledTransfer;
+import com.bankapp.model.ScheduledTransferStatus;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.TransferFrequency;
+import com.bankapp.model.User;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.ScheduledTransferRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+@Service
+public class ScheduledTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledTransferService.class);
+
+    @Autowired
+    private ScheduledTransferRepository scheduledTransferRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.scheduled-transfers.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.scheduled-transfers.workers:4}")
+    private int workerCount;
+
+    @Value("${app.scheduled-transfers.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.scheduled-transfers.max-batches-per-poll:50}")
+    private int maxBatchesPerPoll;
+
+    @Value("${app.scheduled-transfers.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.scheduled-transfers.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.scheduled-transfers.retry-delay-minutes:30}")
+    private long retryDelayMinutes;
+
+    // One single-threaded worker per partition: an account always maps to the same worker,
+    // so two orders from the same source account never run concurrently
+    private ExecutorService[] workers;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void startWorkers() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        workers = new ExecutorService[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = Executors.newSingleThreadExecutor(workerThreads.factory("scheduled-transfer-" + i));
+        }
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    // A null fromAccountNumber means the user's first account
+    public ScheduledTransfer createScheduledTransfer(User user, String fromAccountNumber, String toAccountNumber,
+                                                     Double amount, String frequency, LocalDateTime startAt) {
+        Account fromAccount = userService.getAccount(user, fromAccountNumber);
+
+        if (!accountRepository.existsByAccountNumber(toAccountNumber)) {
+            throw new RuntimeException("Receiver account not found");
+        }
+        if (fromAccount.getAccountNumber().equals(toAccountNumber)) {
+            throw new RuntimeException("Cannot schedule a transfer to the same account");
+        }
+        if (amount == null || amount <= 0) {
+            throw new RuntimeException("Transfer amount must be positive");
+        }
+
+        TransferFrequency transferFrequency;
+        try {
+            transferFrequency = TransferFrequency.valueOf(frequency.toUpperCase());
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid frequency. Use DAILY, WEEKLY or MONTHLY");
+        }
+
+        LocalDateTime firstRunAt = startAt != null ? startAt : LocalDateTime.now();
+
+        ScheduledTransfer scheduledTransfer = new ScheduledTransfer();
+        scheduledTransfer.setUser(user);
+        scheduledTransfer.setFromAccount(fromAccount.getAccountNumber());
+        scheduledTransfer.setToAccount(toAccountNumber);
+        scheduledTransfer.setAmount(amount);
+        scheduledTransfer.setFrequency(transferFrequency);
+        scheduledTransfer.setFirstRunAt(firstRunAt);
+        scheduledTransfer.setNextRunAt(firstRunAt);
+
+        return scheduledTransferRepository.save(scheduledTransfer);
+    }
+
+    public List<ScheduledTransferResponse> getScheduledTransfers(User user) {
+        return scheduledTransferRepository.findByUserOrderByNextRunAtAsc(user).stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+
+    // A conditional update rather than a save of the loaded entity, which could overwrite a claim
+    // taken in between or let that claim execute the cancelled order. Cancelling twice is a no-op.
+    public ScheduledTransfer cancelScheduledTransfer(User user, Long id) {
+        int cancelled = scheduledTransferRepository.cancel(id, user.getId(), LocalDateTime.now());
+
+        ScheduledTransfer scheduledTransfer = scheduledTransferRepository.findById(id)
+                .filter(s -> s.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new RuntimeException("Scheduled transfer not found"));
+        if (cancelled == 0 && scheduledTransfer.getStatus() != ScheduledTransferStatus.CANCELLED) {
+            throw new RuntimeException("Scheduled transfer is being executed. Please retry shortly");
+        }
+        return scheduledTransfer;
+    }
+
+    @Scheduled(fixedDelayString = "${app.scheduled-transfers.poll-interval-ms:5000}")
+    public void runDueTransfers() {
+        if (!enabled) {
+            return;
+        }
+        for (int batch = 0; batch < maxBatchesPerPoll; batch++) {
+            if (runBatch() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private int runBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> dueIds = scheduledTransferRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (dueIds.isEmpty()) {
+            return 0;
+        }
+
+        String token = UUID.randomUUID().toString();
+        scheduledTransferRepository.claim(dueIds, token, now, now.plusSeconds(leaseSeconds));
+        List<ScheduledTransfer> claimed = scheduledTransferRepository.findByClaimedBy(token);
+
+        List<CompletableFuture<Void>> results = new ArrayList<>(claimed.size());
+        for (ScheduledTransfer scheduledTransfer : claimed) {
+            ExecutorService worker = workers[Math.floorMod(scheduledTransfer.getFromAccount().hashCode(), workers.length)];
+            results.add(CompletableFuture.runAsync(() -> execute(scheduledTransfer, token), worker));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        return dueIds.size();
+    }
+
+    // The transfer and the release of the claim commit together. If the lease expired and another
+    // scheduler took the order over in the meantime, the transfer is rolled back and left to it.
+    private void execute(ScheduledTransfer scheduledTransfer, String token) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            boolean claimHeld = transactionTemplate.execute(status -> {
+                Transaction transaction = transactionService.transferMoney(
+                        scheduledTransfer.getFromAccount(),
+                        scheduledTransfer.getToAccount(),
+                        scheduledTransfer.getAmount(),
+                        scheduledTransfer.getUser()
+                );
+                // Missed periods (downtime, retries) are skipped rather than replayed in a burst
+                LocalDateTime nextRunAt = scheduledTransfer.getFrequency()
+                        .nextAfter(scheduledTransfer.getFirstRunAt(), now);
+                if (scheduledTransferRepository.markSucceeded(scheduledTransfer.getId(), token, nextRunAt,
+                        transaction.getId()) == 0) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
+            if (!claimHeld) {
+                log.warn("Scheduled transfer {} was claimed by another scheduler during execution; rolled back",
+                        scheduledTransfer.getId());
+            }
+        } catch (Exception e) {
+            log.warn("Scheduled transfer {} failed: {}", scheduledTransfer.getId(), e.getMessage());
+            Transaction failed = transactionService.recordFailedTransfer(
+                    scheduledTransfer.getFromAccount(),
+                    scheduledTransfer.getToAccount(),
+                    scheduledTransfer.getAmount()
+            );
+
+            int attempts = scheduledTransfer.getFailedAttempts() + 1;
+            ScheduledTransferStatus status = attempts >= maxAttempts
+                    ? ScheduledTransferStatus.FAILED
+                    : ScheduledTransferStatus.ACTIVE;
+            scheduledTransferRepository.markFailed(scheduledTransfer.getId(), token,
+                    now.plusMinutes(retryDelayMinutes * attempts), attempts, status, failed != null ? failed.getId() : null);
+        }
+    }
+
+    public ScheduledTransferResponse convertToResponse(ScheduledTransfer scheduledTransfer) {
+        ScheduledTransferResponse response = new ScheduledTransferResponse();
+        response.setId(scheduledTransfer.getId());
+        response.setFromAccount(scheduledTransfer.getFromAccount());
+        response.setToAccount(scheduledTransfer.getToAccount());
+        response.setAmount(scheduledTransfer.getAmount());
+        response.setFrequency(scheduledTransfer.getFrequency());
+        response.setNextRunAt(scheduledTransfer.getNextRunAt());
+        response.setStatus(scheduledTransfer.getStatus());
+        response.setFailedAttempts(scheduledTransfer.getFailedAttempts());
+        response.setLastTransactionId(scheduledTransfer.getLastTransactionId());
+        return response;
+    }
+}
@@ -0,0 +1,80 @@
+package com.bankapp.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+// Writes one account statement incrementally: the opening balance is known up front, closing
+// balance and totals are appended as a footer once the last line has been written.
+class StatementFileWriter implements AutoCloseable {
+
+    private final Writer writer;
+    private final boolean json;
+    private final String accountNumber;
+
+    private double balance;
+    private double totalCredits;
+    private double totalDebits;
+    private long count;
+
+    StatementFileWriter(Path file, String format, String accountNumber, LocalDateTime periodStart,
+                        LocalDateTime periodEnd, double openingBalance) throws IOException {
+        this.writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 64 * 1024);
+        this.json = "json".equals(format);
+        this.accountNumber = accountNumber;
+        this.balance = openingBalance;
+
+        if (json) {
+            writer.write("{\"accountNumber\":\"" + accountNumber + "\",\"periodStart\":\"" + periodStart
+                    + "\",\"periodEnd\":\"" + periodEnd + "\",\"openingBalance\":" + openingBalance + ",\"transactions\":[");
+        } else {
+            writer.write("account," + accountNumber + "\n");
+            writer.write("period," + periodStart + "," + periodEnd + "\n");
+            writer.write("opening_balance," + openingBalance + "\n");
+            writer.write("id,timestamp,type,counterparty,amount,balance\n");
+        }
+    }
+
+    void line(long id, LocalDateTime timestamp, boolean credit, String counterparty, double amount) throws IOException {
+        String type;
+        if (credit) {
+            type = accountNumber.equals(counterparty) ? "DEPOSIT" : "TRANSFER_IN";
+            balance += amount;
+            totalCredits += amount;
+        } else {
+            type = "TRANSFER_OUT";
+            balance -= amount;
+            totalDebits += amount;
+        }
+
+        if (json) {
+            writer.write((count > 0 ? "," : "") + "{\"id\":" + id + ",\"timestamp\":\"" + timestamp + "\",\"type\":\""
+                    + type + "\",\"counterparty\":\"" + counterparty + "\",\"amount\":" + amount
+                    + ",\"balance\":" + balance + "}");
+        } else {
+            writer.write(id + "," + timestamp + "," + type + "," + counterparty + "," + amount + "," + balance + "\n");
+        }
+        count++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (json) {
+                writer.write("],\"closingBalance\":" + balance + ",\"totalCredits\":" + totalCredits
+                        + ",\"totalDebits\":" + totalDebits + ",\"transactionCount\":" + count + "}");
+            } else {
+                writer.write("closing_balance," + balance + "\n");
+                writer.write("total_credits," + totalCredits + "\n");
+                writer.write("total_debits," + totalDebits + "\n");
+                writer.write("transaction_count," + count + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
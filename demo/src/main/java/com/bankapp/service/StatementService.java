@@ -0,0 +1,322 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.StatementRunReport;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+public class StatementService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementService.class);
+
+    // One ordered scan of the period's transactions (and the later ones, which only move the opening
+    // balance): every row is read once and joined to a two-row table to give a credit for the receiver
+    // and, unless it is a deposit, a debit for the sender. Each account's net movement since the
+    // period start comes from a window over the same rows, so the opening balance (current balance
+    // minus that net) is on the account's first row. Every account is listed, so quiet accounts still
+    // get a statement.
+    private static final String STATEMENT_ROWS_SQL = """
+            select a.account_number, a.balance, coalesce(t.net_since, 0) as net_since,
+                   t.id, t.ts, t.amount, t.credit, c.account_number as counterparty
+            from accounts a
+            left join (
+                select sides.*, sum(case when sides.credit = 1 then sides.amount else -sides.amount end)
+                           over (partition by sides.acct) as net_since
+                from (
+                    select case s.credit when 1 then tx.to_account_id else tx.from_account_id end as acct,
+                           tx.id, tx.timestamp as ts, tx.amount, s.credit,
+                           case s.credit when 1 then tx.from_account_id else tx.to_account_id end as counterparty_id
+                    from transactions tx
+                    join (select 1 as credit union all select 0) s
+                      on s.credit = 1 or tx.from_account_id <> tx.to_account_id
+                    where tx.status = 'SUCCESS' and tx.timestamp >= ?
+                ) sides
+            ) t on t.acct = a.id
+            left join accounts c on c.id = t.counterparty_id
+            order by a.account_number, t.ts, t.id
+            """;
+
+    // Tells a writer that the reader has no more statements for it
+    private static final Object END_OF_RUN = new Object();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${app.statements.output-dir:statements}")
+    private String outputDir;
+
+    @Value("${app.statements.writers:4}")
+    private int writerCount;
+
+    // Lines (plus statement start/end markers) queued per writer; when a queue is full the reader waits
+    @Value("${app.statements.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.statements.timeout-minutes:60}")
+    private long timeoutMinutes;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    void initJdbcTemplate() {
+        // Integer.MIN_VALUE makes MySQL Connector/J stream the result row by row
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public StatementRunReport generateStatements(YearMonth month, String format) {
+        String normalizedFormat = format == null ? "csv" : format.toLowerCase();
+        if (!"csv".equals(normalizedFormat) && !"json".equals(normalizedFormat)) {
+            throw new RuntimeException("Invalid format. Use csv or json");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Statement generation is already running");
+        }
+
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        ExecutorService writerPool = Executors.newFixedThreadPool(writerCount);
+        try {
+            LocalDateTime periodStart = month.atDay(1).atStartOfDay();
+            LocalDateTime periodEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+            Path directory = Paths.get(outputDir, month.toString());
+            Files.createDirectories(directory);
+
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            List<StatementWriter> writers = new ArrayList<>(writerCount);
+            for (int i = 0; i < writerCount; i++) {
+                StatementWriter writer = new StatementWriter(queueCapacity, directory, normalizedFormat,
+                        periodStart, periodEnd, failure);
+                writers.add(writer);
+                writerPool.execute(writer);
+            }
+
+            StatementGrouper grouper = new StatementGrouper(writers, periodEnd, failure);
+            try {
+                streamingJdbcTemplate.query(STATEMENT_ROWS_SQL, grouper, periodStart);
+                grouper.finishAccount();
+            } finally {
+                writers.forEach(StatementWriter::finish);
+            }
+
+            writerPool.shutdown();
+            if (!writerPool.awaitTermination(timeoutMinutes, TimeUnit.MINUTES)) {
+                log.warn("Statement writers for {} did not finish within {} minutes; stopping them", month, timeoutMinutes);
+                throw new RuntimeException("Statement generation timed out");
+            }
+            if (failure.get() != null) {
+                throw new RuntimeException("Statement generation failed: " + failure.get().getMessage());
+            }
+
+            long durationMs = Math.max(1, System.currentTimeMillis() - start);
+            long peakHeapBytes = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            return new StatementRunReport(month.toString(), normalizedFormat, directory.toAbsolutePath().toString(),
+                    grouper.statements, grouper.transactions, durationMs,
+                    grouper.transactions * 1000 / durationMs, peakHeapBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Statement generation interrupted");
+        } finally {
+            writerPool.shutdownNow();
+            running.set(false);
+        }
+    }
+
+    private record StatementStart(String accountNumber, double openingBalance) {
+    }
+
+    private record StatementLine(long id, LocalDateTime timestamp, boolean credit, String counterparty, double amount) {
+    }
+
+    private record StatementEnd() {
+    }
+
+    // Runs on the reading thread. Rows arrive grouped by account, and each account goes to one writer
+    // as a start marker, its lines and an end marker, so nothing is buffered beyond the writers' queues.
+    private class StatementGrouper implements RowCallbackHandler {
+
+        private final List<StatementWriter> writers;
+        private final LocalDateTime periodEnd;
+        private final AtomicReference<Exception> failure;
+
+        private String accountNumber;
+        private StatementWriter writer;
+        private long statements;
+        private long transactions;
+
+        private StatementGrouper(List<StatementWriter> writers, LocalDateTime periodEnd,
+                                 AtomicReference<Exception> failure) {
+            this.writers = writers;
+            this.periodEnd = periodEnd;
+            this.failure = failure;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            // No point reading on once a statement could not be written
+            if (failure.get() != null) {
+                throw new RuntimeException("Statement generation failed: " + failure.get().getMessage());
+            }
+            String rowAccount = rs.getString(1);
+            if (!rowAccount.equals(accountNumber)) {
+                finishAccount();
+                accountNumber = rowAccount;
+                writer = writers.get((int) (statements % writers.size()));
+                writer.put(new StatementStart(rowAccount, rs.getDouble(2) - rs.getDouble(3)));
+            }
+
+            long id = rs.getLong(4);
+            if (rs.wasNull()) {
+                return;
+            }
+            LocalDateTime timestamp = rs.getObject(5, LocalDateTime.class);
+            // Later rows only count towards the opening balance
+            if (!timestamp.isBefore(periodEnd)) {
+                return;
+            }
+            writer.put(new StatementLine(id, timestamp, rs.getInt(7) == 1, rs.getString(8), rs.getDouble(6)));
+            transactions++;
+        }
+
+        private void finishAccount() {
+            if (accountNumber == null) {
+                return;
+            }
+            writer.put(new StatementEnd());
+            statements++;
+        }
+    }
+
+    // Streams the statements it is handed straight to their files, one at a time. After a failure it
+    // keeps draining its queue, so the reader is never left waiting on it; if the thread dies anyway,
+    // the reader's next put fails instead of blocking.
+    private static class StatementWriter implements Runnable {
+
+        private final BlockingQueue<Object> queue;
+        private final Path directory;
+        private final String format;
+        private final LocalDateTime periodStart;
+        private final LocalDateTime periodEnd;
+        private final AtomicReference<Exception> failure;
+        private volatile boolean stopped;
+
+        private StatementWriter(int queueCapacity, Path directory, String format, LocalDateTime periodStart,
+                                LocalDateTime periodEnd, AtomicReference<Exception> failure) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.directory = directory;
+            this.format = format;
+            this.periodStart = periodStart;
+            this.periodEnd = periodEnd;
+            this.failure = failure;
+        }
+
+        private void put(Object event) {
+            try {
+                while (!queue.offer(event, 1, TimeUnit.SECONDS)) {
+                    if (stopped) {
+                        throw new RuntimeException("Statement writer stopped");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Statement generation interrupted");
+            }
+        }
+
+        private void finish() {
+            if (!stopped) {
+                try {
+                    put(END_OF_RUN);
+                } catch (RuntimeException e) {
+                    // stopped in the meantime; nothing left to tell it
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            StatementFileWriter file = null;
+            boolean finished = false;
+            try {
+                while (true) {
+                    Object event = queue.take();
+                    if (event == END_OF_RUN) {
+                        finished = true;
+                        return;
+                    }
+                    if (failure.get() != null) {
+                        continue;
+                    }
+                    try {
+                        if (event instanceof StatementStart start) {
+                            file = new StatementFileWriter(directory.resolve(start.accountNumber() + "." + format),
+                                    format, start.accountNumber(), periodStart, periodEnd, start.openingBalance());
+                        } else if (event instanceof StatementLine line) {
+                            file.line(line.id(), line.timestamp(), line.credit(), line.counterparty(), line.amount());
+                        } else {
+                            StatementFileWriter done = file;
+                            file = null;
+                            done.close();
+                        }
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                stopped = true;
+                if (!finished) {
+                    failure.compareAndSet(null, new IllegalStateException("Statement writer stopped before the end of the run"));
+                }
+                if (file != null) {
+                    try {
+                        file.close();
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }
+        }
+    }
+}
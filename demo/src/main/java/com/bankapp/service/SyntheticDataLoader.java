@@ -0,0 +1,612 @@
+package com.bankapp.service;
+
+import com.bankapp.model.FraudDecision;
+import com.bankapp.model.Role;
+import com.bankapp.model.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+// Fills an existing database with synthetic users, accounts and transaction history for load and
+// performance testing. Only active under the "datagen" profile, e.g.
+//   mvn spring-boot:run -Dspring-boot.run.profiles=prod,datagen -Dspring-boot.run.arguments="--app.datagen.users=1000000"
+//
+// Rows go in through multi-row INSERT statements with explicit ids, built by one generator thread
+// and executed by a pool of writers. Accounts are inserted with a zero balance before the
+// transactions that reference them; transactions are then generated in time order while every
+// balance is tracked in memory, and the final balances are written once everything else is in, so
+// they match their ledger (ReconciliationService reports no drift). No transfer ever overdraws: one
+// that would is stored as FAILED. The three FraudDetectionService rules (amount, velocity and the account's own amount
+// profile) are applied while generating, and every successful transfer is fed through the same
+// TransferGraph as MuleRingDetectionService, so is_fraud and fraud_reason match what production would
+// have decided; some rule-flagged rows also get an admin decision, which gives FraudBacktestService
+// labelled data. Rows the mule-ring check flags are updated once everything is written, as production
+// flags them after commit.
+//
+// Rollups and the audit journal are not written: run db/upgrade/account_rollups_backfill.sql
+// afterwards, and start the application with an empty audit journal directory.
+@Component
+@Profile("datagen")
+public class SyntheticDataLoader implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataLoader.class);
+
+    private static final String[] FIRST_NAMES = {"Aarav", "Priya", "James", "Maria", "Wei", "Fatima", "Lucas",
+            "Amara", "Noah", "Sofia", "Ravi", "Elena", "Omar", "Yuki", "Daniel", "Ananya", "Mateo", "Chloe",
+            "Kwame", "Ingrid"};
+    private static final String[] LAST_NAMES = {"Sharma", "Smith", "Garcia", "Chen", "Khan", "Silva", "Kumar",
+            "Okafor", "Muller", "Rossi", "Tanaka", "Nair", "Haddad", "Johansson", "Lopez", "Iyer", "Brown",
+            "Novak", "Mensah", "Park"};
+
+    // 10-digit numbers without a leading zero: 1000000000..9999999999
+    private static final long ACCOUNT_NUMBER_FLOOR = 1_000_000_000L;
+    private static final long ACCOUNT_NUMBER_RANGE = 9_000_000_000L;
+    // Coprime with 9 * 10^9 (not divisible by 2, 3 or 5), so i -> i * STRIDE mod RANGE is a bijection
+    private static final long ACCOUNT_NUMBER_STRIDE = 7_919_390_581L;
+
+    // Relative transaction volume by hour of day, peaking around midday and early evening
+    private static final double[] HOURLY_WEIGHT = {0.15, 0.1, 0.08, 0.08, 0.1, 0.2, 0.4, 0.7, 1.0, 1.2, 1.3,
+            1.4, 1.5, 1.4, 1.3, 1.2, 1.2, 1.3, 1.4, 1.3, 1.0, 0.7, 0.45, 0.25};
+
+    private static final String USER_COLUMNS = "users (id, name, email, password, role)";
+    private static final String ACCOUNT_COLUMNS = "accounts (id, user_id, account_number, balance, change_version)";
+    private static final String TRANSACTION_COLUMNS = "transactions (id, from_account_id, to_account_id, amount, "
+            + "timestamp, status, is_fraud, fraud_reason, fraud_decision, decided_at, profile_excluded)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
+    @Value("${app.datagen.users:100000}")
+    private int users;
+
+    @Value("${app.datagen.transactions-per-account:50}")
+    private int transactionsPerAccount;
+
+    @Value("${app.datagen.days:90}")
+    private int days;
+
+    @Value("${app.datagen.seed:42}")
+    private long seed;
+
+    @Value("${app.datagen.password:password123}")
+    private String password;
+
+    @Value("${app.datagen.opening-balance-median:2500}")
+    private double openingBalanceMedian;
+
+    // Median transfer amount; each account scales it by its own lognormal factor
+    @Value("${app.datagen.amount-median:80}")
+    private double amountMedian;
+
+    @Value("${app.datagen.deposit-share:0.15}")
+    private double depositShare;
+
+    // Share of accounts that are "hot" (merchants, payroll) and the share of transfers they receive
+    @Value("${app.datagen.hot-account-share:0.01}")
+    private double hotAccountShare;
+
+    @Value("${app.datagen.hot-traffic-share:0.4}")
+    private double hotTrafficShare;
+
+    // Chance that a transfer starts a burst of rapid, partly oversized transfers from its sender
+    @Value("${app.datagen.fraud-burst-probability:0.0005}")
+    private double fraudBurstProbability;
+
+    @Value("${app.datagen.fraud-burst-length:6}")
+    private int fraudBurstLength;
+
+    // Share of flagged transactions that get an admin decision
+    @Value("${app.datagen.decision-share:0.3}")
+    private double decisionShare;
+
+    @Value("${app.datagen.rows-per-statement:1000}")
+    private int rowsPerStatement;
+
+    @Value("${app.datagen.writer-threads:4}")
+    private int writerThreads;
+
+    @Value("${app.datagen.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    // The production fraud settings, so generated labels follow the configured rules
+    @Value("${app.fraud.profile.std-devs:4.0}")
+    private double profileStdDevs;
+
+    @Value("${app.fraud.profile.min-samples:10}")
+    private long profileMinSamples;
+
+    @Value("${app.fraud.profile.min-std-dev:1.0}")
+    private double profileMinStdDev;
+
+    @Value("${app.fraud.graph.enabled:true}")
+    private boolean graphEnabled;
+
+    @Value("${app.fraud.graph.window-minutes:1440}")
+    private long graphWindowMinutes;
+
+    @Value("${app.fraud.graph.edge-capacity:262144}")
+    private int graphEdgeCapacity;
+
+    @Value("${app.fraud.graph.min-cycle-length:3}")
+    private int minCycleLength;
+
+    @Value("${app.fraud.graph.max-cycle-length:5}")
+    private int maxCycleLength;
+
+    @Value("${app.fraud.graph.min-fan-in:10}")
+    private int minFanIn;
+
+    @Value("${app.fraud.graph.min-fan-out:3}")
+    private int minFanOut;
+
+    @Value("${app.fraud.graph.visit-budget:2000}")
+    private int visitBudget;
+
+    @Value("${app.fraud.graph.compact-interval-ms:600000}")
+    private long graphCompactIntervalMillis;
+
+    private ThreadPoolExecutor writers;
+    private long zoneOffsetMillis;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private final AtomicLong completedWrites = new AtomicLong();
+    private long submittedWrites;
+    private final Map<String, String> statementCache = new HashMap<>();
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long started = System.nanoTime();
+        writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(writerThreads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            long userBase = nextId("users");
+            long accountBase = nextId("accounts");
+            long transactionBase = nextId("transactions");
+            log.info("Generating {} users with ~{} transactions each over {} days (seed {})",
+                    users, transactionsPerAccount, days, seed);
+
+            SplittableRandom random = new SplittableRandom(seed);
+            long userRows = loadUsers(userBase, random.split());
+            // Assigned up front: mule-ring reasons name accounts by number
+            long[] accountNumbers = accountNumbers(accountBase);
+            // accounts.user_id references users, and the transactions' account ids reference accounts,
+            // so each table must be in before the first row of the next
+            awaitWrites();
+            long accountRows = loadAccounts(userBase, accountBase, accountNumbers);
+            awaitWrites();
+
+            double[] balances = new double[users];
+            Map<Long, String> muleFlags = new LinkedHashMap<>();
+            long transactionRows = loadTransactions(accountBase, transactionBase, accountNumbers, balances, muleFlags,
+                    random.split());
+
+            awaitWrites();
+            writeBalances(accountBase, balances);
+            flagMuleTransfers(muleFlags);
+
+            long rows = userRows + accountRows + transactionRows;
+            double seconds = (System.nanoTime() - started) / 1e9;
+            log.info("Loaded {} users, {} accounts and {} transactions in {}s ({} rows/s)", userRows, accountRows,
+                    transactionRows, String.format("%.1f", seconds), String.format("%.0f", rows / seconds));
+        } finally {
+            writers.shutdownNow();
+        }
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private long loadUsers(long userBase, SplittableRandom random) {
+        // BCrypt is deliberately slow; every generated user shares one hash of the same password
+        String passwordHash = passwordEncoder.encode(password);
+        RowBatch batch = new RowBatch(USER_COLUMNS, 5);
+        for (int i = 0; i < users; i++) {
+            long id = userBase + i;
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            batch.add(id, name, "user" + id + "@datagen.example", passwordHash, Role.USER.name());
+            batch = flushIfFull(batch);
+        }
+        flush(batch);
+        return users;
+    }
+
+    private long[] accountNumbers(long accountBase) {
+        Set<Long> taken = existingAccountNumbers();
+        long cursor = accountBase;
+        long[] numbers = new long[users];
+        for (int i = 0; i < users; i++) {
+            long number = accountNumber(cursor++);
+            while (taken.contains(number)) {
+                number = accountNumber(cursor++);
+            }
+            numbers[i] = number;
+        }
+        return numbers;
+    }
+
+    // Balances start at zero and are written by writeBalances once the ledger is complete
+    private long loadAccounts(long userBase, long accountBase, long[] accountNumbers) {
+        RowBatch batch = new RowBatch(ACCOUNT_COLUMNS, 5);
+        for (int i = 0; i < users; i++) {
+            batch.add(accountBase + i, userBase + i, Long.toString(accountNumbers[i]), 0.0, 0L);
+            batch = flushIfFull(batch);
+        }
+        flush(batch);
+        return users;
+    }
+
+    private void writeBalances(long accountBase, double[] balances) {
+        List<Object[]> updates = new ArrayList<>(rowsPerStatement);
+        for (int i = 0; i < users; i++) {
+            updates.add(new Object[]{round(balances[i]), accountBase + i});
+            if (updates.size() == rowsPerStatement || i == users - 1) {
+                jdbcTemplate.batchUpdate("update accounts set balance = ? where id = ?", updates);
+                updates.clear();
+            }
+        }
+    }
+
+    // Same update as MuleRingDetectionService: rows the amount rules already flagged keep their reason
+    private void flagMuleTransfers(Map<Long, String> muleFlags) {
+        if (muleFlags.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>(muleFlags.size());
+        muleFlags.forEach((transactionId, reason) -> updates.add(new Object[]{reason, transactionId}));
+        for (int i = 0; i < updates.size(); i += rowsPerStatement) {
+            jdbcTemplate.batchUpdate("update transactions set is_fraud = true, fraud_reason = ? where id = ? and is_fraud = false",
+                    updates.subList(i, Math.min(updates.size(), i + rowsPerStatement)));
+        }
+        log.info("Flagged {} transfers as suspected mule activity", muleFlags.size());
+    }
+
+    // Spreads consecutive ids over the whole 10-digit range; distinct ids below 10^9 never collide
+    private static long accountNumber(long index) {
+        return ACCOUNT_NUMBER_FLOOR + Math.floorMod(index * ACCOUNT_NUMBER_STRIDE, ACCOUNT_NUMBER_RANGE);
+    }
+
+    private long loadTransactions(long accountBase, long transactionBase, long[] accountNumbers, double[] balances,
+                                  Map<Long, String> muleFlags, SplittableRandom random) {
+        int hotCount = Math.max(1, (int) (users * hotAccountShare));
+        double[] amountScale = new double[users];
+        for (int i = 0; i < users; i++) {
+            amountScale[i] = Math.exp(0.6 * gaussian(random));
+        }
+        // Last three outgoing timestamps per account, enough to evaluate the velocity rule
+        long[] recent = new long[users * 3];
+        byte[] recentNext = new byte[users];
+        // Running count, mean and sum of squared deviations of each account's unflagged transfers (Welford)
+        long[] profileCount = new long[users];
+        double[] profileMean = new double[users];
+        double[] profileM2 = new double[users];
+        // Keyed by account id, as MuleRingDetectionService keys its graph
+        TransferGraph graph = new TransferGraph(graphEdgeCapacity, graphWindowMinutes * 60_000);
+        LongFunction<String> accountLabel = accountId -> Long.toString(accountNumbers[(int) (accountId - accountBase)]);
+
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        zoneOffsetMillis = ZoneId.systemDefault().getRules().getOffset(end).getTotalSeconds() * 1000L;
+        long endMillis = toMillis(end);
+        long startMillis = toMillis(end.minusDays(days));
+        long openingWindow = Math.min(TimeUnit.DAYS.toMillis(1), endMillis - startMillis);
+
+        long id = transactionBase;
+        RowBatch batch = new RowBatch(TRANSACTION_COLUMNS, 11);
+
+        // Every account opens with a deposit during the first day, in id order
+        for (int i = 0; i < users; i++) {
+            long at = startMillis + openingWindow * i / users;
+            double amount = round(openingBalanceMedian * Math.exp(0.8 * gaussian(random)));
+            balances[i] += amount;
+            batch.add(id++, accountBase + i, accountBase + i, amount, new Timestamp(at),
+                    TransactionStatus.SUCCESS.name(), false, null, null, null, false);
+            batch = flushIfFull(batch);
+            remember(recent, recentNext, i, at);
+        }
+
+        long target = (long) users * Math.max(0, transactionsPerAccount - 1);
+        double meanGapMillis = (double) (endMillis - startMillis - openingWindow) / Math.max(1, target);
+        long now = startMillis + openingWindow;
+        int burstAccount = 0;
+        int burstRemaining = 0;
+        long lastCompaction = now;
+
+        for (long n = 0; n < target; n++) {
+            boolean inBurst = burstRemaining > 0;
+            int from;
+            if (inBurst) {
+                // Bursts are seconds apart regardless of the time of day
+                now += 2000 + random.nextInt(8000);
+                from = burstAccount;
+                burstRemaining--;
+            } else {
+                // Thinned Poisson arrivals: gaps stretch at night and on weekends
+                now += (long) (-Math.log(1 - random.nextDouble()) * meanGapMillis / activity(now));
+                from = random.nextInt(users);
+            }
+            now = Math.min(now, endMillis);
+            Timestamp at = new Timestamp(now);
+
+            if (!inBurst && random.nextDouble() < depositShare) {
+                double amount = round(amountMedian * 4 * amountScale[from] * Math.exp(0.5 * gaussian(random)));
+                balances[from] += amount;
+                batch.add(id++, accountBase + from, accountBase + from, amount, at,
+                        TransactionStatus.SUCCESS.name(), false, null, null, null, false);
+                batch = flushIfFull(batch);
+                remember(recent, recentNext, from, now);
+                continue;
+            }
+
+            if (!inBurst && random.nextDouble() < fraudBurstProbability) {
+                burstAccount = from;
+                burstRemaining = Math.max(1, fraudBurstLength - 1);
+                inBurst = true;
+            }
+
+            int to = random.nextDouble() < hotTrafficShare ? hotAccount(random, hotCount) : random.nextInt(users);
+            if (to == from) {
+                to = (to + 1) % users;
+            }
+
+            double amount;
+            if (inBurst && random.nextDouble() < 0.3) {
+                amount = round(FraudDetectionService.FRAUD_THRESHOLD_AMOUNT * (1 + random.nextDouble()));
+            } else if (inBurst) {
+                amount = round(Math.max(1, balances[from] * (0.1 + 0.3 * random.nextDouble())));
+            } else {
+                amount = round(amountMedian * amountScale[from] * Math.exp(0.9 * gaussian(random)));
+            }
+            amount = Math.max(0.01, amount);
+
+            if (balances[from] < amount) {
+                batch.add(id++, accountBase + from, accountBase + to, amount, at,
+                        TransactionStatus.FAILED.name(), false, null, null, null, false);
+            } else {
+                balances[from] -= amount;
+                balances[to] += amount;
+
+                String reason = fraudReason(amount, recentCount(recent, from, now),
+                        profileCount[from], profileMean[from], profileM2[from]);
+                boolean flagged = reason != null;
+                if (!flagged) {
+                    long count = ++profileCount[from];
+                    double delta = amount - profileMean[from];
+                    profileMean[from] += delta / count;
+                    profileM2[from] += delta * (amount - profileMean[from]);
+                }
+                String decision = null;
+                Timestamp decidedAt = null;
+                if (flagged && random.nextDouble() < decisionShare) {
+                    decision = (inBurst ? FraudDecision.CONFIRMED_FRAUD : FraudDecision.SAFE).name();
+                    decidedAt = new Timestamp(Math.min(endMillis, now + TimeUnit.HOURS.toMillis(1 + random.nextInt(48))));
+                }
+                long transactionId = id++;
+                batch.add(transactionId, accountBase + from, accountBase + to, amount, at,
+                        TransactionStatus.SUCCESS.name(), flagged, reason, decision, decidedAt,
+                        flagged && !FraudDecision.SAFE.name().equals(decision));
+
+                if (graphEnabled) {
+                    if (now - lastCompaction >= graphCompactIntervalMillis) {
+                        graph = graph.compacted(now);
+                        lastCompaction = now;
+                    }
+                    for (TransferGraph.Detection detection : graph.detect(accountBase + from, accountBase + to, now,
+                            transactionId, minCycleLength, maxCycleLength, minFanIn, minFanOut, visitBudget, accountLabel)) {
+                        for (long flaggedId : detection.transactionIds()) {
+                            muleFlags.putIfAbsent(flaggedId, detection.reason());
+                        }
+                    }
+                    graph.addEdge(accountBase + from, accountBase + to, now, transactionId);
+                }
+            }
+            batch = flushIfFull(batch);
+            remember(recent, recentNext, from, now);
+        }
+        flush(batch);
+        return id - transactionBase;
+    }
+
+    // Same wording as FraudDetectionService so generated rows are indistinguishable from real ones
+    private String fraudReason(double amount, int recentCount, long profileCount, double profileMean, double profileM2) {
+        StringBuilder reasons = new StringBuilder();
+        if (amount > FraudDetectionService.FRAUD_THRESHOLD_AMOUNT) {
+            reasons.append("Transaction amount (").append(amount)
+                    .append(") exceeds threshold of ").append(FraudDetectionService.FRAUD_THRESHOLD_AMOUNT).append(". ");
+        }
+        if (recentCount >= FraudDetectionService.FRAUD_THRESHOLD_COUNT) {
+            reasons.append("More than ").append(FraudDetectionService.FRAUD_THRESHOLD_COUNT)
+                    .append(" transactions detected within ").append(FraudDetectionService.FRAUD_TIME_WINDOW_MINUTES)
+                    .append(" minute(s) from the same account. ");
+        }
+        if (profileCount >= profileMinSamples) {
+            double variance = profileCount > 1 ? profileM2 / (profileCount - 1) : 0.0;
+            double stdDev = Math.max(Math.sqrt(variance), profileMinStdDev);
+            double deviations = Math.abs(amount - profileMean) / stdDev;
+            if (deviations > profileStdDevs) {
+                reasons.append("Transaction amount (").append(amount)
+                        .append(") is ").append(String.format("%.1f", deviations))
+                        .append(" standard deviations from this account's average of ")
+                        .append(String.format("%.2f", profileMean)).append(". ");
+            }
+        }
+        return reasons.length() == 0 ? null : reasons.toString().trim();
+    }
+
+    private static void remember(long[] recent, byte[] recentNext, int account, long at) {
+        recent[account * 3 + recentNext[account]] = at;
+        recentNext[account] = (byte) ((recentNext[account] + 1) % 3);
+    }
+
+    private static int recentCount(long[] recent, int account, long at) {
+        long windowStart = at - TimeUnit.MINUTES.toMillis(FraudDetectionService.FRAUD_TIME_WINDOW_MINUTES);
+        int count = 0;
+        for (int k = 0; k < 3; k++) {
+            if (recent[account * 3 + k] > windowStart) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Zipf-like: the first hot accounts receive far more than the last ones
+    private static int hotAccount(SplittableRandom random, int hotCount) {
+        return (int) Math.min(hotCount - 1, Math.floor(Math.pow(hotCount + 1, random.nextDouble())) - 1);
+    }
+
+    // Plain arithmetic on local epoch millis; this runs once per generated row
+    private double activity(long millis) {
+        long local = millis + zoneOffsetMillis;
+        long day = Math.floorDiv(local, TimeUnit.DAYS.toMillis(1));
+        int hour = (int) (Math.floorMod(local, TimeUnit.DAYS.toMillis(1)) / TimeUnit.HOURS.toMillis(1));
+        // 1970-01-01 was a Thursday, so Monday is 0 and the weekend is 5 and 6
+        boolean weekend = Math.floorMod(day + 3, 7) >= 5;
+        return HOURLY_WEIGHT[hour] * (weekend ? 0.6 : 1.1);
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u1 = 1 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    private static double round(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private long nextId(String table) {
+        Long max = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    private Set<Long> existingAccountNumbers() {
+        Set<Long> numbers = new HashSet<>();
+        jdbcTemplate.query("select account_number from accounts", rs -> {
+            try {
+                numbers.add(Long.parseLong(rs.getString(1)));
+            } catch (NumberFormatException ignored) {
+                // Not a generated-style number, so it cannot collide
+            }
+        });
+        return numbers;
+    }
+
+    private RowBatch flushIfFull(RowBatch batch) {
+        if (batch.rows < rowsPerStatement) {
+            return batch;
+        }
+        flush(batch);
+        return new RowBatch(batch.columns, batch.columnCount);
+    }
+
+    private void flush(RowBatch batch) {
+        if (batch.rows == 0) {
+            return;
+        }
+        throwIfFailed();
+        String sql = statementCache.computeIfAbsent(batch.columns + "#" + batch.rows,
+                key -> insertStatement(batch.columns, batch.columnCount, batch.rows));
+        submittedWrites++;
+        writers.execute(() -> {
+            try {
+                if (failure.get() == null) {
+                    jdbcTemplate.update(sql, ps -> {
+                        for (int i = 0; i < batch.size; i++) {
+                            ps.setObject(i + 1, batch.values[i]);
+                        }
+                    });
+                }
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                completedWrites.incrementAndGet();
+            }
+        });
+    }
+
+    private void awaitWrites() throws InterruptedException {
+        while (completedWrites.get() < submittedWrites) {
+            Thread.sleep(10);
+        }
+        throwIfFailed();
+    }
+
+    private void throwIfFailed() {
+        Exception e = failure.get();
+        if (e != null) {
+            throw new RuntimeException("Bulk load failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static String insertStatement(String columns, int columnCount, int rows) {
+        StringBuilder row = new StringBuilder("(");
+        for (int c = 0; c < columnCount; c++) {
+            row.append(c == 0 ? "?" : ",?");
+        }
+        row.append(")");
+        StringBuilder sql = new StringBuilder(32 + rows * (row.length() + 1)).append("insert into ").append(columns)
+                .append(" values ");
+        for (int r = 0; r < rows; r++) {
+            sql.append(r == 0 ? "" : ",").append(row);
+        }
+        return sql.toString();
+    }
+
+    // Values of one multi-row INSERT, flattened row by row
+    private class RowBatch {
+
+        private final String columns;
+        private final int columnCount;
+        private final Object[] values;
+        private int size;
+        private int rows;
+
+        RowBatch(String columns, int columnCount) {
+            this.columns = columns;
+            this.columnCount = columnCount;
+            this.values = new Object[rowsPerStatement * columnCount];
+        }
+
+        void add(Object... row) {
+            System.arraycopy(row, 0, values, size, columnCount);
+            size += columnCount;
+            rows++;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.bankapp.service;
+
+import com.bankapp.model.RevokedToken;
+import com.bankapp.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Revoked JWTs (logout, admin revoke) are stored by jti in revoked_tokens. Every instance keeps a
+// Bloom filter of the revoked ids so JwtAuthenticationFilter can clear almost every request without
+// I/O; only filter hits are confirmed against the table. The filter is topped up from the table every
+// poll interval, which bounds how long a token revoked on another instance is still accepted here,
+// and rebuilt from scratch (dropping expired ids) on a longer interval.
+//
+// Tokens issued before jti was added cannot be revoked and simply run until they expire.
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.expiration:86400000}")
+    private Long tokenLifetimeMs;
+
+    @Value("${app.token-revocation.expected-revocations:100000}")
+    private int expectedRevocations;
+
+    @Value("${app.token-revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    // Overlap between polls so a revocation stamped by a slightly slower clock is not missed
+    @Value("${app.token-revocation.clock-skew-ms:5000}")
+    private long clockSkewMs;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicLong filterHits = new AtomicLong();
+
+    private volatile RevocationBloomFilter filter;
+    private LocalDateTime pollWatermark;
+
+    @PostConstruct
+    void loadFilter() {
+        rebuild();
+    }
+
+    public boolean isRevoked(String jti) {
+        if (!filter.mightContain(jti)) {
+            return false;
+        }
+        filterHits.incrementAndGet();
+        return revokedTokenRepository.existsById(jti);
+    }
+
+    public void revoke(Claims claims) {
+        if (claims.getId() == null) {
+            throw new RuntimeException("Token has no id and cannot be revoked");
+        }
+        Long userId = claims.get("userId", Long.class);
+        revoke(claims.getId(), userId, LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()));
+    }
+
+    // Without the token itself the expiry is unknown, so keep the id for the longest possible lifetime
+    public void revoke(String jti) {
+        revoke(jti, null, LocalDateTime.now().plusNanos(tokenLifetimeMs * 1_000_000));
+    }
+
+    public long getFilterHitCount() {
+        return filterHits.get();
+    }
+
+    @Scheduled(fixedDelayString = "${app.token-revocation.poll-interval-ms:1000}")
+    public void pollRevocations() {
+        refreshLock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (String jti : revokedTokenRepository.findJtisRevokedSince(pollWatermark)) {
+                filter.add(jti);
+            }
+            pollWatermark = now.minusNanos(clockSkewMs * 1_000_000);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.token-revocation.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.token-revocation.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        refreshLock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int purged = revokedTokenRepository.deleteExpired(now);
+            List<String> active = revokedTokenRepository.findActiveJtis(now);
+            // Headroom for the revocations added incrementally until the next rebuild
+            RevocationBloomFilter next = new RevocationBloomFilter(Math.max(expectedRevocations, active.size() * 2),
+                    falsePositiveRate);
+            for (String jti : active) {
+                next.add(jti);
+            }
+            filter = next;
+            pollWatermark = now.minusNanos(clockSkewMs * 1_000_000);
+            log.info("Rebuilt token revocation filter with {} revoked tokens ({} expired ones purged)",
+                    active.size(), purged);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void revoke(String jti, Long userId, LocalDateTime expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!expiresAt.isAfter(now)) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(jti, userId, expiresAt, now));
+        // Under the lock so a rebuild that read the table just before this save cannot drop the id
+        refreshLock.lock();
+        try {
+            filter.add(jti);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
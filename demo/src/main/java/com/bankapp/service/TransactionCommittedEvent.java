@@ -0,0 +1,22 @@
+package com.bankapp.service;
+
+import java.time.LocalDateTime;
+
+// Published by TransactionService for every successful deposit and transfer; listeners use
+// @TransactionalEventListener so they only see transactions that actually committed. ownAccounts is
+// true for deposits and for transfers between two accounts of the same user.
+public record TransactionCommittedEvent(
+        Long transactionId,
+        Long fromAccountId,
+        Long toAccountId,
+        Double amount,
+        Double fromBalanceAfter,
+        Double toBalanceAfter,
+        LocalDateTime timestamp,
+        boolean fraud,
+        boolean ownAccounts) {
+
+    public boolean isDeposit() {
+        return fromAccountId.equals(toAccountId);
+    }
+}
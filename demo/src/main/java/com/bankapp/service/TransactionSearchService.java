@@ -0,0 +1,183 @@
+package com.bankapp.service;
+
+import com.bankapp.dto.TransactionPage;
+import com.bankapp.dto.TransactionSearchRequest;
+import com.bankapp.model.FraudDecision;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.TransactionStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Admin search over transactions, newest first, with keyset pagination on id: a page is
+// "id < cursor order by id desc limit n", so deep pages cost the same as the first one.
+//
+// The filters map onto the composite indexes on transactions (see Transaction): status and the
+// fraud review columns lead, timestamp follows. Both leading columns are always constrained when a
+// later column is filtered on (an IN over every value if the request leaves them open), so a date or
+// decision filter alone is still a range read of that index. The optimizer then sorts the matches
+// by id, or walks the primary key backwards when the filter matches most rows (status=SUCCESS).
+// Amount has no index of its own. The account filter is a UNION ALL of a sender branch and a
+// receiver branch, each walking its own account index, instead of an OR that defeats both.
+@Service
+public class TransactionSearchService {
+
+    private static final String SELECT = "select t.id, t.from_account_id, t.to_account_id, t.amount, t.timestamp, "
+            + "t.status, t.is_fraud, t.fraud_reason, t.fraud_decision from transactions t";
+    private static final String PAGE = " order by t.id desc limit :limit";
+    private static final List<String> ALL_STATUSES = Arrays.stream(TransactionStatus.values()).map(Enum::name).toList();
+
+    private static final RowMapper<Transaction> ROW_MAPPER = (rs, rowNum) -> {
+        Transaction transaction = new Transaction();
+        transaction.setId(rs.getLong("id"));
+        transaction.setFromAccountId(rs.getLong("from_account_id"));
+        transaction.setToAccountId(rs.getLong("to_account_id"));
+        transaction.setAmount(rs.getDouble("amount"));
+        transaction.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+        transaction.setStatus(TransactionStatus.valueOf(rs.getString("status")));
+        transaction.setIsFraud(rs.getBoolean("is_fraud"));
+        transaction.setFraudReason(rs.getString("fraud_reason"));
+        String decision = rs.getString("fraud_decision");
+        transaction.setFraudDecision(decision == null ? null : FraudDecision.valueOf(decision));
+        return transaction;
+    };
+
+    public record SearchQuery(String sql, MapSqlParameterSource parameters, int limit) {
+    }
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private AccountNumberCache accountNumberCache;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Value("${app.transaction-search.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${app.transaction-search.max-limit:500}")
+    private int maxLimit;
+
+    public TransactionPage search(TransactionSearchRequest request) {
+        SearchQuery query = buildQuery(request);
+        if (query == null) {
+            return new TransactionPage(List.of(), null);
+        }
+
+        List<Transaction> rows = namedParameterJdbcTemplate.query(query.sql(), query.parameters(), ROW_MAPPER);
+        Long nextCursor = null;
+        if (rows.size() > query.limit()) {
+            rows = rows.subList(0, query.limit());
+            nextCursor = rows.get(rows.size() - 1).getId();
+        }
+        return new TransactionPage(transactionService.convertToTransactionResponses(rows), nextCursor);
+    }
+
+    // Null when the account filter names an account that does not exist, so nothing can match
+    public SearchQuery buildQuery(TransactionSearchRequest request) {
+        int limit = request.getLimit() == null ? defaultLimit : request.getLimit();
+        if (limit < 1 || limit > maxLimit) {
+            throw new RuntimeException("limit must be between 1 and " + maxLimit);
+        }
+        // One row beyond the page tells whether there is a next page
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", limit + 1);
+        List<String> conditions = new ArrayList<>();
+
+        if (request.getMinAmount() != null && request.getMaxAmount() != null
+                && request.getMinAmount() > request.getMaxAmount()) {
+            throw new RuntimeException("minAmount must not be greater than maxAmount");
+        }
+        if (request.getMinAmount() != null) {
+            conditions.add("t.amount >= :minAmount");
+            parameters.addValue("minAmount", request.getMinAmount());
+        }
+        if (request.getMaxAmount() != null) {
+            conditions.add("t.amount <= :maxAmount");
+            parameters.addValue("maxAmount", request.getMaxAmount());
+        }
+
+        if (request.getFrom() != null && request.getTo() != null && !request.getFrom().isBefore(request.getTo())) {
+            throw new RuntimeException("'from' must be before 'to'");
+        }
+        if (request.getFrom() != null) {
+            conditions.add("t.timestamp >= :from");
+            parameters.addValue("from", request.getFrom());
+        }
+        if (request.getTo() != null) {
+            conditions.add("t.timestamp < :to");
+            parameters.addValue("to", request.getTo());
+        }
+
+        if (request.getStatus() != null) {
+            conditions.add("t.status = :status");
+            parameters.addValue("status", parseStatus(request.getStatus()).name());
+        } else if (request.getFrom() != null || request.getTo() != null) {
+            conditions.add("t.status in (:statuses)");
+            parameters.addValue("statuses", ALL_STATUSES);
+        }
+        if (request.getFraud() != null) {
+            conditions.add("t.is_fraud = :fraud");
+            parameters.addValue("fraud", request.getFraud());
+        }
+        if (request.getDecision() != null) {
+            if ("PENDING".equalsIgnoreCase(request.getDecision())) {
+                conditions.add("t.is_fraud = true and t.fraud_decision is null");
+            } else {
+                if (request.getFraud() == null) {
+                    conditions.add("t.is_fraud in (false, true)");
+                }
+                conditions.add("t.fraud_decision = :decision");
+                parameters.addValue("decision", parseDecision(request.getDecision()).name());
+            }
+        }
+
+        if (request.getCursor() != null) {
+            conditions.add("t.id < :cursor");
+            parameters.addValue("cursor", request.getCursor());
+        }
+
+        if (request.getAccount() == null || request.getAccount().isBlank()) {
+            String where = conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+            return new SearchQuery(SELECT + where + PAGE, parameters, limit);
+        }
+
+        Long accountId = accountNumberCache.idOf(request.getAccount().trim());
+        if (accountId == null) {
+            return null;
+        }
+        parameters.addValue("accountId", accountId);
+        String and = conditions.isEmpty() ? "" : " and " + String.join(" and ", conditions);
+        // Deposits (from = to) come only from the sender branch, so no row appears twice
+        String sql = "select * from ("
+                + "(" + SELECT + " where t.from_account_id = :accountId" + and + PAGE + ")"
+                + " union all "
+                + "(" + SELECT + " where t.to_account_id = :accountId and t.from_account_id <> :accountId" + and + PAGE + ")"
+                + ") page order by page.id desc limit :limit";
+        return new SearchQuery(sql, parameters, limit);
+    }
+
+    private static TransactionStatus parseStatus(String status) {
+        try {
+            return TransactionStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid status. Use SUCCESS or FAILED");
+        }
+    }
+
+    private static FraudDecision parseDecision(String decision) {
+        try {
+            return FraudDecision.valueOf(decision.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid decision. Use PENDING, SAFE or CONFIRMED_FRAUD");
+        }
+    }
+}
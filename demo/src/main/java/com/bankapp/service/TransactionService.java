@@ -2,17 +2,36 @@ package com.bankapp.service;
 
 import com.bankapp.dto.TransactionResponse;
 import com.bankapp.model.Account;
+import com.bankapp.model.FraudDecision;
 import com.bankapp.model.Transaction;
 import com.bankapp.model.TransactionStatus;
 import com.bankapp.model.User;
 import com.bankapp.repository.AccountRepository;
 import com.bankapp.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,64 +46,148 @@ public class TransactionService {
     @Autowired
     private FraudDetectionService fraudDetectionService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AccountNumberCache accountNumberCache;
+
+    @Autowired
+    private AccountRollupService accountRollupService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private AccountReadCoalescer readCoalescer;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.binary-records.export-page-size:1000}")
+    private int exportPageSize;
+
     @Transactional
     public Transaction transferMoney(String fromAccountNumber, String toAccountNumber, Double amount, User user) {
+        Map<String, Account> accounts = lockAccounts(Arrays.asList(fromAccountNumber, toAccountNumber));
+
         // Validate sender account
-        Account fromAccount = accountRepository.findByAccountNumber(fromAccountNumber)
-                .orElseThrow(() -> new RuntimeException("Sender account not found"));
+        Account fromAccount = accounts.get(fromAccountNumber);
+        if (fromAccount == null) {
+            throw new RuntimeException("Sender account not found");
+        }
+
+        // Validate receiver account
+        Account toAccount = accounts.get(toAccountNumber);
+        if (toAccount == null) {
+            throw new RuntimeException("Receiver account not found");
+        }
+
+        return applyTransfer(fromAccount, toAccount, amount, user);
+    }
+
+    // Locks the accounts' rows in id order, the order GroupCommitService locks a batch in, so two
+    // transfers between the same accounts in opposite directions cannot deadlock. The rows are read
+    // with the lock held: under open-in-view the request may already hold one of the accounts, and
+    // that instance would otherwise keep the balance it was read with before the lock.
+    private Map<String, Account> lockAccounts(Collection<String> accountNumbers) {
+        TreeMap<Long, String> numbersById = new TreeMap<>();
+        for (String accountNumber : accountNumbers) {
+            Long accountId = accountNumber == null ? null : accountNumberCache.idOf(accountNumber);
+            if (accountId != null) {
+                numbersById.put(accountId, accountNumber);
+            }
+        }
+        Map<String, Account> accounts = new HashMap<>();
+        for (Map.Entry<Long, String> entry : numbersById.entrySet()) {
+            Account account = entityManager.getReference(Account.class, entry.getKey());
+            try {
+                entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+            } catch (EntityNotFoundException e) {
+                // Deleted since its number was cached
+                continue;
+            }
+            accounts.put(entry.getValue(), account);
+        }
+        return accounts;
+    }
+
+    // Shared with GroupCommitService, which loads and locks the accounts for a whole batch. Must run
+    // inside a transaction; every validation failure is thrown before anything is modified or saved.
+    public Transaction applyTransfer(Account fromAccount, Account toAccount, Double amount, User user) {
+        accountNumberCache.remember(fromAccount);
+        accountNumberCache.remember(toAccount);
 
         // Verify account belongs to user
         if (!fromAccount.getUser().getId().equals(user.getId())) {
             throw new RuntimeException("Unauthorized: Account does not belong to user");
         }
 
-        // Validate receiver account
-        Account toAccount = accountRepository.findByAccountNumber(toAccountNumber)
-                .orElseThrow(() -> new RuntimeException("Receiver account not found"));
+        // A same-account row would be indistinguishable from a deposit in the ledger and the journal
+        if (fromAccount.getId().equals(toAccount.getId())) {
+            throw new RuntimeException("Cannot transfer to the same account");
+        }
 
         // Validate amount
         if (amount <= 0) {
             throw new RuntimeException("Transfer amount must be positive");
         }
 
-        // Check sufficient balance
+        // Check sufficient balance. Nothing is saved: in a group commit batch the row would commit with
+        // the other operations; a caller that keeps failed attempts uses recordFailedTransfer afterwards.
         if (fromAccount.getBalance() < amount) {
-            Transaction failedTransaction = new Transaction();
-            failedTransaction.setFromAccount(fromAccountNumber);
-            failedTransaction.setToAccount(toAccountNumber);
-            failedTransaction.setAmount(amount);
-            failedTransaction.setStatus(TransactionStatus.FAILED);
-            failedTransaction.setIsFraud(false);
-            transactionRepository.save(failedTransaction);
             throw new RuntimeException("Insufficient balance");
         }
 
         // Perform transfer
         fromAccount.setBalance(fromAccount.getBalance() - amount);
         toAccount.setBalance(toAccount.getBalance() + amount);
+        fromAccount.setChangeVersion(fromAccount.getChangeVersion() + 1);
+        toAccount.setChangeVersion(toAccount.getChangeVersion() + 1);
 
         accountRepository.save(fromAccount);
         accountRepository.save(toAccount);
 
         // Create transaction record
         Transaction transaction = new Transaction();
-        transaction.setFromAccount(fromAccountNumber);
-        transaction.setToAccount(toAccountNumber);
+        transaction.setFromAccountId(fromAccount.getId());
+        transaction.setToAccountId(toAccount.getId());
         transaction.setAmount(amount);
         transaction.setStatus(TransactionStatus.SUCCESS);
         transaction.setTimestamp(LocalDateTime.now()); // Set timestamp before fraud detection
 
-        // Run fraud detection
-        fraudDetectionService.detectFraud(transaction);
+        // Fast path between the user's own accounts: the money never leaves its owner, so the fraud
+        // rules (and their velocity query) are skipped and the amount stays out of the account's profile
+        boolean ownAccounts = toAccount.getUser().getId().equals(user.getId());
+        if (ownAccounts) {
+            transaction.setIsFraud(false);
+        } else {
+            fraudDetectionService.detectFraud(transaction);
+        }
 
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        accountRollupService.recordTransfer(fromAccount.getId(), toAccount.getId(), amount, saved.getTimestamp());
+        // Native statements flush the balance updates first, so both account rows are already locked
+        // when the outbox ids are assigned: per account, outbox id order is commit order
+        outboxService.recordTransfer(saved.getId(), fromAccount.getId(), toAccount.getId(), amount, saved.getTimestamp());
+        publishCommitted(saved, fromAccount.getBalance(), toAccount.getBalance(), ownAccounts);
+        return saved;
     }
 
     @Transactional
     public Transaction depositMoney(String accountNumber, Double amount, User user) {
         // Validate account
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found"));
+        Account account = lockAccounts(Collections.singletonList(accountNumber)).get(accountNumber);
+        if (account == null) {
+            throw new RuntimeException("Account not found");
+        }
+
+        return applyDeposit(account, amount, user);
+    }
+
+    // Shared with GroupCommitService; same contract as applyTransfer
+    public Transaction applyDeposit(Account account, Double amount, User user) {
+        accountNumberCache.remember(account);
 
         // Verify account belongs to user
         if (!account.getUser().getId().equals(user.getId())) {
@@ -98,71 +201,173 @@ public class TransactionService {
 
         // Perform deposit
         account.setBalance(account.getBalance() + amount);
+        account.setChangeVersion(account.getChangeVersion() + 1);
         accountRepository.save(account);
 
         // Create transaction record (deposit - fromAccount and toAccount are same)
         Transaction transaction = new Transaction();
-        transaction.setFromAccount(accountNumber);
-        transaction.setToAccount(accountNumber);
+        transaction.setFromAccountId(account.getId());
+        transaction.setToAccountId(account.getId());
         transaction.setAmount(amount);
         transaction.setStatus(TransactionStatus.SUCCESS);
         transaction.setIsFraud(false); // Deposits are not considered for fraud detection
         transaction.setTimestamp(LocalDateTime.now()); // Set timestamp explicitly
 
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        accountRollupService.recordDeposit(account.getId(), amount, saved.getTimestamp());
+        outboxService.recordDeposit(saved.getId(), account.getId(), amount, saved.getTimestamp());
+        publishCommitted(saved, account.getBalance(), account.getBalance(), true);
+        return saved;
     }
 
-    public List<TransactionResponse> getUserTransactions(User user) {
-        Account account = accountRepository.findByUser(user)
-                .orElseThrow(() -> new RuntimeException("User account not found"));
+    // Records a failed attempt outside the caller's transaction, which is usually rolling back.
+    // Returns null when either account no longer exists, as there is nothing to reference.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Transaction recordFailedTransfer(String fromAccountNumber, String toAccountNumber, Double amount) {
+        Long fromAccountId = accountNumberCache.idOf(fromAccountNumber);
+        Long toAccountId = accountNumberCache.idOf(toAccountNumber);
+        if (fromAccountId == null || toAccountId == null) {
+            return null;
+        }
 
-        List<Transaction> transactions = transactionRepository
-                .findByFromAccountOrToAccount(account.getAccountNumber(), account.getAccountNumber());
+        Transaction failedTransaction = new Transaction();
+        failedTransaction.setFromAccountId(fromAccountId);
+        failedTransaction.setToAccountId(toAccountId);
+        failedTransaction.setAmount(amount);
+        failedTransaction.setStatus(TransactionStatus.FAILED);
+        failedTransaction.setIsFraud(false);
+        failedTransaction.setTimestamp(LocalDateTime.now());
+        Transaction saved = transactionRepository.save(failedTransaction);
+        // The failed attempt shows up in both histories, so cached copies of them are now stale
+        accountRepository.incrementChangeVersion(List.of(fromAccountId, toAccountId));
+        return saved;
+    }
 
-        return transactions.stream()
-                .map(this::convertToTransactionResponse)
-                .collect(Collectors.toList());
+    // The owner's history at the version from UserService.getAccountVersion, without fraud information.
+    // Concurrent calls for the same version share one load, so neither the list nor its rows may be
+    // modified.
+    public List<TransactionResponse> getOwnerTransactions(AccountRepository.AccountVersion version) {
+        return readCoalescer.load("transactions", version, () -> {
+            List<Transaction> transactions = transactionRepository
+                    .findByFromAccountIdOrToAccountId(version.getId(), version.getId());
+            List<TransactionResponse> responses = convertToTransactionResponses(transactions);
+            for (TransactionResponse response : responses) {
+                response.setIsFraud(null);
+                response.setFraudReason(null);
+                response.setFraudDecision(null);
+            }
+            return List.copyOf(responses);
+        });
     }
 
-    public List<TransactionResponse> getAllTransactions() {
-        return transactionRepository.findAll().stream()
-                .map(this::convertToTransactionResponse)
-                .collect(Collectors.toList());
+    // Every transaction in id order, read one keyset page at a time as the caller iterates, so a listing
+    // of any size holds one page in memory. Each page is detached once converted: under open-in-view
+    // the request's persistence context would otherwise keep every row until the response is written.
+    public Iterable<TransactionResponse> getAllTransactions() {
+        return () -> new Iterator<>() {
+            private Iterator<TransactionResponse> page = Collections.emptyIterator();
+            private long afterId;
+            private boolean lastPage;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && !lastPage) {
+                    List<Transaction> transactions = transactionRepository.findPageAfter(afterId,
+                            PageRequest.of(0, exportPageSize));
+                    lastPage = transactions.size() < exportPageSize;
+                    if (!transactions.isEmpty()) {
+                        afterId = transactions.get(transactions.size() - 1).getId();
+                        page = convertToTransactionResponses(transactions).iterator();
+                        transactions.forEach(entityManager::detach);
+                    }
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public TransactionResponse next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
     }
 
     public List<TransactionResponse> getFraudTransactions() {
-        return transactionRepository.findByIsFraudTrue().stream()
-                .map(this::convertToTransactionResponse)
-                .collect(Collectors.toList());
+        return convertToTransactionResponses(transactionRepository.findByIsFraudTrue());
     }
 
     public Transaction updateFraudDecision(Long transactionId, String decision, String reason) {
         Transaction transaction = transactionRepository.findById(transactionId)
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
-
         if ("CONFIRMED_FRAUD".equalsIgnoreCase(decision)) {
             transaction.setIsFraud(true);
             transaction.setFraudReason(reason != null ? reason : "Confirmed as fraud by admin");
+            transaction.setFraudDecision(FraudDecision.CONFIRMED_FRAUD);
         } else if ("SAFE".equalsIgnoreCase(decision)) {
             transaction.setIsFraud(false);
             transaction.setFraudReason(reason != null ? reason : "Marked as safe by admin");
+            transaction.setFraudDecision(FraudDecision.SAFE);
         } else {
             throw new RuntimeException("Invalid decision. Use SAFE or CONFIRMED_FRAUD");
         }
+        transaction.setDecidedAt(LocalDateTime.now());
 
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        // Learns the amount only if the scoring rules excluded it and it has not been learned since
+        if (saved.getFraudDecision() == FraudDecision.SAFE && Boolean.TRUE.equals(saved.getProfileExcluded())) {
+            fraudDetectionService.learnClearedTransfer(saved);
+        }
+        return saved;
+    }
+
+    // Delivered to @TransactionalEventListener beans once the surrounding transaction commits
+    private void publishCommitted(Transaction transaction, Double fromBalanceAfter, Double toBalanceAfter,
+                                  boolean ownAccounts) {
+        eventPublisher.publishEvent(new TransactionCommittedEvent(
+                transaction.getId(),
+                transaction.getFromAccountId(),
+                transaction.getToAccountId(),
+                transaction.getAmount(),
+                fromBalanceAfter,
+                toBalanceAfter,
+                transaction.getTimestamp(),
+                Boolean.TRUE.equals(transaction.getIsFraud()),
+                ownAccounts
+        ));
+    }
+
+    public TransactionResponse convertToTransactionResponse(Transaction transaction) {
+        Map<Long, String> accountNumbers = accountNumberCache.numbersOf(
+                List.of(transaction.getFromAccountId(), transaction.getToAccountId()));
+        return convertToTransactionResponse(transaction, accountNumbers);
+    }
+
+    // Resolves every account number on the page up front, so a list costs at most one extra query
+    public List<TransactionResponse> convertToTransactionResponses(List<Transaction> transactions) {
+        Set<Long> accountIds = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            accountIds.add(transaction.getFromAccountId());
+            accountIds.add(transaction.getToAccountId());
+        }
+        Map<Long, String> accountNumbers = accountNumberCache.numbersOf(accountIds);
+        return transactions.stream()
+                .map(transaction -> convertToTransactionResponse(transaction, accountNumbers))
+                .collect(Collectors.toList());
     }
 
-    private TransactionResponse convertToTransactionResponse(Transaction transaction) {
+    private TransactionResponse convertToTransactionResponse(Transaction transaction, Map<Long, String> accountNumbers) {
         TransactionResponse response = new TransactionResponse();
         response.setId(transaction.getId());
-        response.setFromAccount(transaction.getFromAccount());
-        response.setToAccount(transaction.getToAccount());
+        response.setFromAccount(accountNumbers.get(transaction.getFromAccountId()));
+        response.setToAccount(accountNumbers.get(transaction.getToAccountId()));
         response.setAmount(transaction.getAmount());
         response.setTimestamp(transaction.getTimestamp());
         response.setStatus(transaction.getStatus());
         response.setIsFraud(transaction.getIsFraud());
         response.setFraudReason(transaction.getFraudReason());
+        response.setFraudDecision(transaction.getFraudDecision());
         return response;
     }
 }
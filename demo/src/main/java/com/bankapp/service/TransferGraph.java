@@ -0,0 +1,296 @@
+package com.bankapp.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+// Directed graph of recent transfers held in primitive arrays. Edges live in a ring buffer and are
+// linked newest-first into per-node in/out lists by sequence number; a link whose slot has been
+// overwritten or whose edge is outside the window ends the list, so eviction costs nothing.
+// Not thread-safe: MuleRingDetectionService serialises access.
+class TransferGraph {
+
+    static final String REASON_PREFIX = "Suspected mule";
+
+    private static final long NONE = -1L;
+
+    // hubAccountId is the pass-through account of a hub detection, NONE for a ring
+    record Detection(String reason, long hubAccountId, long[] transactionIds) {
+
+        boolean isHub() {
+            return hubAccountId != NONE;
+        }
+    }
+
+    private final int capacity;
+    private final long windowMillis;
+
+    private final long[] edgeSeq;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final long[] edgeTime;
+    private final long[] edgeTransaction;
+    private final long[] nextOut;
+    private final long[] nextIn;
+    private long nextSeq;
+
+    private final LongIntMap nodeIndex = new LongIntMap(1024);
+    private long[] nodeKey = new long[1024];
+    private long[] outHead = new long[1024];
+    private long[] inHead = new long[1024];
+    private int nodeCount;
+
+    TransferGraph(int capacity, long windowMillis) {
+        this.capacity = capacity;
+        this.windowMillis = windowMillis;
+        this.edgeSeq = new long[capacity];
+        this.edgeFrom = new int[capacity];
+        this.edgeTo = new int[capacity];
+        this.edgeTime = new long[capacity];
+        this.edgeTransaction = new long[capacity];
+        this.nextOut = new long[capacity];
+        this.nextIn = new long[capacity];
+        Arrays.fill(edgeSeq, NONE);
+    }
+
+    void addEdge(long fromKey, long toKey, long timeMillis, long transactionId) {
+        int from = node(fromKey);
+        int to = node(toKey);
+        long seq = nextSeq++;
+        int slot = slot(seq);
+        edgeSeq[slot] = seq;
+        edgeFrom[slot] = from;
+        edgeTo[slot] = to;
+        edgeTime[slot] = timeMillis;
+        edgeTransaction[slot] = transactionId;
+        nextOut[slot] = outHead[from];
+        outHead[from] = seq;
+        nextIn[slot] = inHead[to];
+        inHead[to] = seq;
+    }
+
+    // Evaluated before the new edge is added
+    List<Detection> detect(long fromKey, long toKey, long timeMillis, long transactionId,
+                           int minCycleLength, int maxCycleLength, int minFanIn, int minFanOut, int visitBudget,
+                           LongFunction<String> accountLabel) {
+        List<Detection> detections = new ArrayList<>();
+        int from = nodeIndex.get(fromKey);
+        int to = nodeIndex.get(toKey);
+        long cutoff = timeMillis - windowMillis;
+
+        if (from >= 0 && to >= 0) {
+            long[] cycle = findCycle(from, to, timeMillis, cutoff, minCycleLength, maxCycleLength, visitBudget);
+            if (cycle != null) {
+                cycle[cycle.length - 1] = transactionId;
+                detections.add(new Detection(REASON_PREFIX + " ring: funds returned to account " + accountLabel.apply(toKey)
+                        + " through a cycle of " + cycle.length + " transfers", NONE, cycle));
+            }
+        }
+
+        // Pass-through hub: many distinct senders in, and money moving on to many distinct receivers
+        if (from >= 0) {
+            Set<Integer> senders = distinctCounterparties(inHead[from], nextIn, edgeFrom, cutoff, minFanIn);
+            if (senders.size() >= minFanIn) {
+                Set<Integer> receivers = distinctCounterparties(outHead[from], nextOut, edgeTo, cutoff, minFanOut);
+                receivers.add(to < 0 ? Integer.MAX_VALUE : to);
+                if (receivers.size() >= minFanOut) {
+                    long[] outgoing = collectTransactions(outHead[from], nextOut, cutoff, visitBudget, transactionId);
+                    detections.add(new Detection(REASON_PREFIX + " account " + accountLabel.apply(fromKey) + ": funds from "
+                            + senders.size() + "+ senders forwarded to " + receivers.size() + "+ receivers", fromKey, outgoing));
+                }
+            }
+        }
+        return detections;
+    }
+
+    // Rebuilds the node table from live edges only, dropping accounts that went quiet
+    TransferGraph compacted(long nowMillis) {
+        TransferGraph compacted = new TransferGraph(capacity, windowMillis);
+        long cutoff = nowMillis - windowMillis;
+        for (long seq = Math.max(0, nextSeq - capacity); seq < nextSeq; seq++) {
+            int slot = slot(seq);
+            if (edgeSeq[slot] == seq && edgeTime[slot] >= cutoff) {
+                compacted.addEdge(nodeKey[edgeFrom[slot]], nodeKey[edgeTo[slot]], edgeTime[slot], edgeTransaction[slot]);
+            }
+        }
+        return compacted;
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    // Walks in-edges backwards from the sender, each hop earlier than the one after it, looking
+    // for a path that starts at the receiver: receiver -> ... -> sender, closed by the new edge
+    private long[] findCycle(int from, int to, long timeMillis, long cutoff,
+                             int minCycleLength, int maxCycleLength, int visitBudget) {
+        long[] pathTransactions = new long[maxCycleLength];
+        int[] pathNodes = new int[maxCycleLength];
+        int[] budget = {visitBudget};
+        pathNodes[0] = from;
+        int found = searchBack(from, to, 0, timeMillis, cutoff, minCycleLength, maxCycleLength,
+                pathTransactions, pathNodes, budget);
+        if (found < 0) {
+            return null;
+        }
+        // Path edges plus one slot for the closing transfer
+        return Arrays.copyOf(pathTransactions, found + 2);
+    }
+
+    private int searchBack(int node, int target, int depth, long beforeMillis, long cutoff,
+                           int minCycleLength, int maxCycleLength, long[] pathTransactions, int[] pathNodes, int[] budget) {
+        for (long seq = inHead[node]; live(seq, cutoff); seq = nextIn[slot(seq)]) {
+            int slot = slot(seq);
+            if (edgeTime[slot] > beforeMillis) {
+                continue;
+            }
+            if (--budget[0] < 0) {
+                return -1;
+            }
+            int previous = edgeFrom[slot];
+            pathTransactions[depth] = edgeTransaction[slot];
+            if (previous == target) {
+                if (depth + 2 >= minCycleLength) {
+                    return depth;
+                }
+                continue;
+            }
+            if (depth + 2 >= maxCycleLength || onPath(previous, pathNodes, depth)) {
+                continue;
+            }
+            pathNodes[depth + 1] = previous;
+            int found = searchBack(previous, target, depth + 1, edgeTime[slot], cutoff,
+                    minCycleLength, maxCycleLength, pathTransactions, pathNodes, budget);
+            if (found >= 0) {
+                return found;
+            }
+        }
+        return -1;
+    }
+
+    private boolean onPath(int node, int[] pathNodes, int depth) {
+        for (int i = 0; i <= depth; i++) {
+            if (pathNodes[i] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<Integer> distinctCounterparties(long head, long[] next, int[] endpoint, long cutoff, int enough) {
+        Set<Integer> counterparties = new HashSet<>();
+        for (long seq = head; live(seq, cutoff) && counterparties.size() < enough; seq = next[slot(seq)]) {
+            counterparties.add(endpoint[slot(seq)]);
+        }
+        return counterparties;
+    }
+
+    private long[] collectTransactions(long head, long[] next, long cutoff, int limit, long newTransactionId) {
+        long[] transactions = new long[Math.min(limit, capacity) + 1];
+        int count = 0;
+        transactions[count++] = newTransactionId;
+        for (long seq = head; live(seq, cutoff) && count < transactions.length; seq = next[slot(seq)]) {
+            transactions[count++] = edgeTransaction[slot(seq)];
+        }
+        return Arrays.copyOf(transactions, count);
+    }
+
+    private boolean live(long seq, long cutoff) {
+        if (seq < 0) {
+            return false;
+        }
+        int slot = slot(seq);
+        return edgeSeq[slot] == seq && edgeTime[slot] >= cutoff;
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    private int node(long key) {
+        int index = nodeIndex.get(key);
+        if (index >= 0) {
+            return index;
+        }
+        if (nodeCount == nodeKey.length) {
+            int grown = nodeKey.length * 2;
+            nodeKey = Arrays.copyOf(nodeKey, grown);
+            outHead = Arrays.copyOf(outHead, grown);
+            inHead = Arrays.copyOf(inHead, grown);
+        }
+        index = nodeCount++;
+        nodeKey[index] = key;
+        outHead[index] = NONE;
+        inHead[index] = NONE;
+        nodeIndex.put(key, index);
+        return index;
+    }
+
+    // Open-addressing long -> int map, avoiding a boxed Long and map entry per account
+    private static final class LongIntMap {
+
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private int[] values;
+        private int mask;
+        private int size;
+
+        private LongIntMap(int expected) {
+            allocate(Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1);
+        }
+
+        private int get(long key) {
+            for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                if (keys[i] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        private void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                allocate(keys.length * 2);
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != EMPTY) {
+                        insert(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+            insert(key, value);
+        }
+
+        private void insert(long key, int value) {
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void allocate(int length) {
+            keys = new long[length];
+            values = new int[length];
+            Arrays.fill(keys, EMPTY);
+            mask = length - 1;
+            size = 0;
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
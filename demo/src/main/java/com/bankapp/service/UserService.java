@@ -1,19 +1,26 @@
 package com.bankapp.service;
 
 import com.bankapp.dto.AccountResponse;
+import com.bankapp.dto.UserPage;
+import com.bankapp.dto.UserResponse;
 import com.bankapp.model.Account;
 import com.bankapp.model.Role;
 import com.bankapp.model.User;
 import com.bankapp.repository.AccountRepository;
 import com.bankapp.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
@@ -27,6 +34,21 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AccountNumberCache accountNumberCache;
+
+    @Autowired
+    private AccountReadCoalescer readCoalescer;
+
+    @Value("${app.accounts.max-per-user:50}")
+    private int maxAccountsPerUser;
+
+    @Value("${app.admin.users.default-limit:50}")
+    private int defaultUserPageLimit;
+
+    @Value("${app.admin.users.max-limit:500}")
+    private int maxUserPageLimit;
+
     public User registerUser(String name, String email, String password, String role) {
         if (userRepository.findByEmail(email).isPresent()) {
             throw new RuntimeException("Email already exists");
@@ -49,16 +71,70 @@ public class UserService {
         return userRepository.findById(id);
     }
 
-    public List<User> findAllUsers() {
-        return userRepository.findAll();
+    // One page of users ordered by id, or by name / email when filtering on a prefix of it. The
+    // cursor carries the last row's sort key and id, so the next page starts right after it.
+    public UserPage searchUsers(String namePrefix, String emailPrefix, String cursor, Integer limit) {
+        boolean byName = namePrefix != null && !namePrefix.isBlank();
+        boolean byEmail = emailPrefix != null && !emailPrefix.isBlank();
+        if (byName && byEmail) {
+            throw new RuntimeException("Search by name or by email, not both");
+        }
+        int pageSize = limit == null ? defaultUserPageLimit : limit;
+        if (pageSize < 1 || pageSize > maxUserPageLimit) {
+            throw new RuntimeException("limit must be between 1 and " + maxUserPageLimit);
+        }
+
+        String afterKey = "";
+        long afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = decoded.lastIndexOf('\n');
+                afterKey = decoded.substring(0, separator);
+                afterId = Long.parseLong(decoded.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+
+        // One extra row tells whether there is a next page
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<UserRepository.UserSummary> rows;
+        if (byName) {
+            rows = userRepository.findSummariesByNamePrefix(likePrefix(namePrefix), afterKey, afterId, page);
+        } else if (byEmail) {
+            rows = userRepository.findSummariesByEmailPrefix(likePrefix(emailPrefix), afterKey, page);
+        } else {
+            rows = userRepository.findSummariesAfter(afterId, page);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            UserRepository.UserSummary last = rows.get(pageSize - 1);
+            String key = byName ? last.getName() : byEmail ? last.getEmail() : "";
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((key + "\n" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<UserResponse> users = rows.stream()
+                .map(row -> new UserResponse(row.getId(), row.getName(), row.getEmail(), row.getRole().name()))
+                .collect(Collectors.toList());
+        return new UserPage(users, nextCursor);
+    }
+
+    private static String likePrefix(String prefix) {
+        return prefix.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
     }
 
     @Transactional
     public Account createAccount(User user) {
-        // Check if user already has an account
-        Optional<Account> existingAccount = accountRepository.findByUser(user);
-        if (existingAccount.isPresent()) {
-            throw new RuntimeException("User already has an account");
+        // Also bounds the portfolio history query, which reads every account of the user at once. The
+        // user row stays locked until the new account is committed, so the count cannot go stale.
+        userRepository.findByIdForUpdate(user.getId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (accountRepository.countByUser(user) >= maxAccountsPerUser) {
+            throw new RuntimeException("Account limit of " + maxAccountsPerUser + " reached");
         }
 
         Account account = new Account();
@@ -66,11 +142,39 @@ public class UserService {
         account.setAccountNumber(generateUniqueAccountNumber());
         account.setBalance(0.0);
 
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        accountNumberCache.remember(saved);
+        return saved;
+    }
+
+    public List<Account> getAccounts(User user) {
+        return accountRepository.findByUserOrderByIdAsc(user);
+    }
+
+    // The user's account with this number, or their first account when no number is given
+    public Account getAccount(User user, String accountNumber) {
+        if (accountNumber == null || accountNumber.isBlank()) {
+            return accountRepository.findFirstByUserOrderByIdAsc(user)
+                    .orElseThrow(() -> new RuntimeException("Account not found. Please create an account first."));
+        }
+        return accountRepository.findByAccountNumber(accountNumber.trim())
+                .filter(account -> account.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new RuntimeException("Account not found"));
+    }
+
+    public Optional<AccountRepository.AccountVersion> getAccountVersion(Long userId, String accountNumber) {
+        if (accountNumber == null || accountNumber.isBlank()) {
+            return accountRepository.findFirstVersionByUserIdOrderByIdAsc(userId);
+        }
+        return accountRepository.findVersionByUserIdAndAccountNumber(userId, accountNumber.trim());
     }
 
-    public Optional<Account> getAccountByUser(User user) {
-        return accountRepository.findByUser(user);
+    // The owner's view of the account at the version from getAccountVersion. Concurrent calls for the
+    // same version share one load, so the response must not be modified.
+    public AccountResponse getAccountResponse(AccountRepository.AccountVersion version) {
+        return readCoalescer.load("account", version, () -> convertToAccountResponse(
+                accountRepository.findWithUserById(version.getId())
+                        .orElseThrow(() -> new RuntimeException("Account not found. Please create an account first."))));
     }
 
     public Optional<Account> getAccountByAccountNumber(String accountNumber) {
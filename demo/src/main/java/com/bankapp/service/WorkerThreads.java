@@ -0,0 +1,42 @@
+package com.bankapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Creates the application's own long-running worker threads (outbox relays, group committers,
+// standing-order workers). Follows spring.threads.virtual.enabled, the same switch that moves
+// Tomcat request handling and @Scheduled tasks onto virtual threads, so one property flips the
+// whole process. CPU-bound pools (FraudBacktestService, ReconciliationService) stay on platform
+// threads: virtual threads only help work that spends its time blocked.
+@Component
+public class WorkerThreads {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtual;
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public Thread start(String name, Runnable task) {
+        Thread thread = factory(name).newThread(task);
+        thread.start();
+        return thread;
+    }
+
+    // Threads are named prefix, prefix-1, prefix-2, ... in creation order
+    public ThreadFactory factory(String prefix) {
+        AtomicInteger created = new AtomicInteger();
+        return task -> {
+            int index = created.getAndIncrement();
+            String name = index == 0 ? prefix : prefix + "-" + index;
+            if (virtual) {
+                return Thread.ofVirtual().name(name).unstarted(task);
+            }
+            return Thread.ofPlatform().name(name).daemon(true).unstarted(task);
+        };
+    }
+}
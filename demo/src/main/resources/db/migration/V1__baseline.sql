@@ -0,0 +1,138 @@
+-- Baseline schema (everything up to and including revoked tokens and the admin search indexes).
+-- Databases previously managed by ddl-auto=update are adopted at this version with
+-- spring.flyway.baseline-on-migrate=true / -Dflyway.baselineOnMigrate=true instead of running it.
+
+-- Users Table
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) UNIQUE NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(20) NOT NULL
+);
+
+-- Accounts Table
+CREATE TABLE IF NOT EXISTS accounts (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    account_number VARCHAR(20) UNIQUE NOT NULL,
+    balance DOUBLE NOT NULL DEFAULT 0.0,
+    change_version BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Transactions Table
+CREATE TABLE IF NOT EXISTS transactions (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    from_account_id BIGINT NOT NULL,
+    to_account_id BIGINT NOT NULL,
+    amount DOUBLE NOT NULL,
+    timestamp DATETIME NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    is_fraud BOOLEAN NOT NULL DEFAULT FALSE,
+    fraud_reason VARCHAR(500),
+    fraud_decision VARCHAR(20),
+    decided_at DATETIME
+);
+
+-- Scheduled Transfers (standing orders) Table
+CREATE TABLE IF NOT EXISTS scheduled_transfers (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    from_account VARCHAR(20) NOT NULL,
+    to_account VARCHAR(20) NOT NULL,
+    amount DOUBLE NOT NULL,
+    frequency VARCHAR(20) NOT NULL,
+    first_run_at DATETIME NOT NULL,
+    next_run_at DATETIME NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    failed_attempts INT NOT NULL DEFAULT 0,
+    last_transaction_id BIGINT,
+    claimed_by VARCHAR(36),
+    claimed_until DATETIME,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Account Reconciliation checkpoints Table
+CREATE TABLE IF NOT EXISTS account_reconciliations (
+    account_id BIGINT PRIMARY KEY,
+    account_number VARCHAR(20) NOT NULL,
+    last_transaction_id BIGINT NOT NULL DEFAULT 0,
+    ledger_balance DECIMAL(19,4) NOT NULL,
+    account_balance DOUBLE NOT NULL,
+    drift DECIMAL(19,4) NOT NULL,
+    mismatch BOOLEAN NOT NULL DEFAULT FALSE,
+    checked_at DATETIME NOT NULL
+);
+
+-- Account Amount Profiles Table (running transfer-amount statistics for fraud scoring)
+CREATE TABLE IF NOT EXISTS account_amount_profiles (
+    account_number VARCHAR(20) PRIMARY KEY,
+    sample_count BIGINT NOT NULL,
+    mean DOUBLE NOT NULL,
+    m2 DOUBLE NOT NULL,
+    updated_at DATETIME NOT NULL
+);
+
+-- Per-account rollups behind /user/insights: hourly rows for the current day, folded into daily rows
+CREATE TABLE IF NOT EXISTS account_rollups_hourly (
+    account_id BIGINT NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    inflow DECIMAL(19,4) NOT NULL,
+    outflow DECIMAL(19,4) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    PRIMARY KEY (account_id, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS account_rollups_daily (
+    account_id BIGINT NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    inflow DECIMAL(19,4) NOT NULL,
+    outflow DECIMAL(19,4) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    PRIMARY KEY (account_id, bucket_start)
+);
+
+-- Transactional outbox: one row per affected account, deleted once relayed
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    partition_no INT NOT NULL,
+    account_id BIGINT NOT NULL,
+    counterparty_account_id BIGINT NOT NULL,
+    transaction_id BIGINT NOT NULL,
+    entry_type VARCHAR(10) NOT NULL,
+    amount DOUBLE NOT NULL,
+    created_at DATETIME NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS outbox_partition_leases (
+    partition_no INT PRIMARY KEY,
+    owner VARCHAR(36),
+    lease_until DATETIME NOT NULL
+);
+
+-- Revoked JWT ids (logout / admin revoke); rows are purged once the token would have expired
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    jti VARCHAR(36) PRIMARY KEY,
+    user_id BIGINT,
+    expires_at DATETIME NOT NULL,
+    revoked_at DATETIME NOT NULL
+);
+
+-- Indexes for better query performance
+CREATE INDEX idx_user_name ON users(name);
+CREATE INDEX idx_account_user_id ON accounts(user_id);
+CREATE INDEX idx_account_number ON accounts(account_number);
+CREATE INDEX idx_transaction_from_account_id ON transactions(from_account_id);
+CREATE INDEX idx_transaction_to_account_id ON transactions(to_account_id);
+CREATE INDEX idx_transaction_timestamp ON transactions(timestamp);
+CREATE INDEX idx_transaction_amount ON transactions(amount);
+CREATE INDEX idx_transaction_status ON transactions(status);
+CREATE INDEX idx_transaction_fraud_review ON transactions(is_fraud, fraud_decision);
+CREATE INDEX idx_transaction_decision ON transactions(fraud_decision);
+CREATE INDEX idx_scheduled_transfer_due ON scheduled_transfers(status, next_run_at);
+CREATE INDEX idx_scheduled_transfer_claim ON scheduled_transfers(claimed_by);
+CREATE INDEX idx_reconciliation_mismatch ON account_reconciliations(mismatch);
+CREATE INDEX idx_outbox_partition ON outbox_events(partition_no, id);
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens(revoked_at);
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
@@ -0,0 +1,9 @@
+-- Live application instances for account-affinity routing (see ClusterService)
+CREATE TABLE IF NOT EXISTS cluster_members (
+    node_id VARCHAR(64) PRIMARY KEY,
+    cluster_name VARCHAR(64) NOT NULL,
+    base_url VARCHAR(255) NOT NULL,
+    heartbeat_at DATETIME NOT NULL
+);
+
+CREATE INDEX idx_cluster_member_heartbeat ON cluster_members(cluster_name, heartbeat_at);
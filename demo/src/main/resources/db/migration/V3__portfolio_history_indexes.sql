@@ -0,0 +1,3 @@
+-- Per-account history in time order for the multi-account portfolio view (see PortfolioService)
+CREATE INDEX idx_transaction_from_account_time ON transactions(from_account_id, timestamp);
+CREATE INDEX idx_transaction_to_account_time ON transactions(to_account_id, timestamp);
@@ -0,0 +1,7 @@
+-- Transactions reference accounts by id (see AccountNumberCache); the database now enforces it.
+-- Fails if any row points at a missing account: check first with
+--   SELECT t.id FROM transactions t LEFT JOIN accounts a ON a.id = t.from_account_id WHERE a.id IS NULL;
+-- and the same for to_account_id.
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_transaction_from_account FOREIGN KEY (from_account_id) REFERENCES accounts(id),
+    ADD CONSTRAINT fk_transaction_to_account FOREIGN KEY (to_account_id) REFERENCES accounts(id);
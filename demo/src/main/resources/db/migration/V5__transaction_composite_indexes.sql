@@ -0,0 +1,10 @@
+-- Composite indexes ending in timestamp replace the single-column search indexes: status + time
+-- serves statements, the ledger stream and admin search; the fraud review columns + time serve the
+-- review queue and decision search. Amount has no index; amount searches walk the primary key.
+CREATE INDEX idx_transaction_status_time ON transactions(status, timestamp);
+CREATE INDEX idx_transaction_fraud_review_time ON transactions(is_fraud, fraud_decision, timestamp);
+DROP INDEX idx_transaction_status ON transactions;
+DROP INDEX idx_transaction_amount ON transactions;
+DROP INDEX idx_transaction_timestamp ON transactions;
+DROP INDEX idx_transaction_decision ON transactions;
+DROP INDEX idx_transaction_fraud_review ON transactions;
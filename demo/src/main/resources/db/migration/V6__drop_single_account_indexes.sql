@@ -0,0 +1,4 @@
+-- The (account, timestamp) composites from V3 serve every lookup by account id, and the foreign keys
+-- from V4 can use them as well, so the single-column account indexes only cost writes and space.
+DROP INDEX idx_transaction_from_account_id ON transactions;
+DROP INDEX idx_transaction_to_account_id ON transactions;
@@ -0,0 +1,8 @@
+-- Marks transfers whose amount the scoring rules kept out of the sender's profile, so a SAFE decision
+-- learns the amount once. Existing rule-flagged transfers still awaiting a decision are marked; decided
+-- ones are left unmarked, as the admin's reason replaced the rule's and no longer shows which flagged it.
+ALTER TABLE transactions ADD COLUMN profile_excluded BOOLEAN NOT NULL DEFAULT FALSE;
+
+UPDATE transactions SET profile_excluded = TRUE
+WHERE status = 'SUCCESS' AND from_account_id <> to_account_id AND is_fraud = TRUE
+  AND fraud_decision IS NULL AND (fraud_reason IS NULL OR fraud_reason NOT LIKE 'Suspected mule%');
@@ -0,0 +1,29 @@
+-- One-off backfill of account_rollups_hourly / account_rollups_daily from existing transactions.
+-- MySQL 8.0. Run once, after transactions_account_ids.sql, with the application stopped and
+-- both rollup tables empty; from then on TransactionService keeps them current.
+
+-- Days before today go straight into daily rollups
+INSERT INTO account_rollups_daily (account_id, bucket_start, inflow, outflow, transaction_count)
+SELECT account_id, DATE(ts), SUM(inflow), SUM(outflow), COUNT(*)
+FROM (
+    SELECT to_account_id AS account_id, timestamp AS ts, amount AS inflow, 0 AS outflow
+    FROM transactions WHERE status = 'SUCCESS'
+    UNION ALL
+    SELECT from_account_id, timestamp, 0, amount
+    FROM transactions WHERE status = 'SUCCESS' AND from_account_id <> to_account_id
+) t
+WHERE ts < CURDATE()
+GROUP BY account_id, DATE(ts);
+
+-- Today stays hourly until the compaction job folds it
+INSERT INTO account_rollups_hourly (account_id, bucket_start, inflow, outflow, transaction_count)
+SELECT account_id, DATE_FORMAT(ts, '%Y-%m-%d %H:00:00'), SUM(inflow), SUM(outflow), COUNT(*)
+FROM (
+    SELECT to_account_id AS account_id, timestamp AS ts, amount AS inflow, 0 AS outflow
+    FROM transactions WHERE status = 'SUCCESS'
+    UNION ALL
+    SELECT from_account_id, timestamp, 0, amount
+    FROM transactions WHERE status = 'SUCCESS' AND from_account_id <> to_account_id
+) t
+WHERE ts >= CURDATE()
+GROUP BY account_id, DATE_FORMAT(ts, '%Y-%m-%d %H:00:00');
@@ -0,0 +1,113 @@
+-- Upgrade: transactions.from_account / to_account (VARCHAR account numbers) -> from_account_id /
+-- to_account_id (BIGINT account ids). MySQL 8.0.
+--
+-- Run with the application stopped: the new code writes only the id columns, and the old code
+-- cannot insert once the string columns are gone. Steps 1-2 can run ahead of the deployment
+-- while the old version is still live; re-running step 2 picks up any rows written since.
+
+-- ---------------------------------------------------------------------------------------------
+-- Measurements. Run this section once before step 1 and again after step 5, with a representative
+-- account number / id substituted, and keep both outputs with the change record.
+-- ---------------------------------------------------------------------------------------------
+
+ANALYZE TABLE transactions;
+
+-- Index and clustered (PRIMARY) sizes in MB
+SELECT index_name,
+       ROUND(stat_value * @@innodb_page_size / 1024 / 1024, 2) AS size_mb
+FROM mysql.innodb_index_stats
+WHERE database_name = DATABASE() AND table_name = 'transactions' AND stat_name = 'size'
+ORDER BY index_name;
+
+SELECT ROUND(data_length / 1024 / 1024, 2) AS data_mb,
+       ROUND(index_length / 1024 / 1024, 2) AS secondary_indexes_mb,
+       table_rows
+FROM information_schema.tables
+WHERE table_schema = DATABASE() AND table_name = 'transactions';
+
+-- Query latency: history (GET /user/transactions) and the fraud velocity rule.
+-- Before:
+--   EXPLAIN ANALYZE SELECT * FROM transactions WHERE from_account = '0123456789' OR to_account = '0123456789';
+--   EXPLAIN ANALYZE SELECT COUNT(*) FROM transactions WHERE from_account = '0123456789'
+--       AND timestamp > NOW() - INTERVAL 1 MINUTE;
+-- After:
+--   EXPLAIN ANALYZE SELECT * FROM transactions WHERE from_account_id = 42 OR to_account_id = 42;
+--   EXPLAIN ANALYZE SELECT COUNT(*) FROM transactions WHERE from_account_id = 42
+--       AND timestamp > NOW() - INTERVAL 1 MINUTE;
+
+-- ---------------------------------------------------------------------------------------------
+-- 1. Add the id columns, nullable for now (instant on MySQL 8.0, no table rebuild)
+-- ---------------------------------------------------------------------------------------------
+
+ALTER TABLE transactions
+    ADD COLUMN from_account_id BIGINT NULL,
+    ADD COLUMN to_account_id BIGINT NULL,
+    ALGORITHM = INSTANT;
+
+-- ---------------------------------------------------------------------------------------------
+-- 2. Backfill in primary-key ranges so no single statement holds row locks on the whole table
+-- ---------------------------------------------------------------------------------------------
+
+DROP PROCEDURE IF EXISTS backfill_transaction_account_ids;
+
+DELIMITER //
+CREATE PROCEDURE backfill_transaction_account_ids(IN batch_size BIGINT)
+BEGIN
+    DECLARE lo BIGINT DEFAULT 0;
+    DECLARE max_id BIGINT;
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM transactions;
+    WHILE lo <= max_id DO
+        UPDATE transactions t
+            JOIN accounts f ON f.account_number = t.from_account
+            JOIN accounts r ON r.account_number = t.to_account
+        SET t.from_account_id = f.id,
+            t.to_account_id = r.id
+        WHERE t.id > lo AND t.id <= lo + batch_size
+          AND t.from_account_id IS NULL;
+        SET lo = lo + batch_size;
+    END WHILE;
+END //
+DELIMITER ;
+
+CALL backfill_transaction_account_ids(10000);
+DROP PROCEDURE backfill_transaction_account_ids;
+
+-- Must return 0 before continuing. Any rows listed here reference account numbers that no longer
+-- exist in accounts and need a decision (restore the account or archive the rows) first.
+SELECT id, from_account, to_account
+FROM transactions
+WHERE from_account_id IS NULL OR to_account_id IS NULL;
+
+-- ---------------------------------------------------------------------------------------------
+-- 3. Enforce NOT NULL and build the new indexes. The (account, timestamp) indexes the entity
+--    declares serve lookups by account id and back the foreign keys.
+-- ---------------------------------------------------------------------------------------------
+
+ALTER TABLE transactions
+    MODIFY from_account_id BIGINT NOT NULL,
+    MODIFY to_account_id BIGINT NOT NULL,
+    ADD INDEX idx_transaction_from_account_time (from_account_id, timestamp),
+    ADD INDEX idx_transaction_to_account_time (to_account_id, timestamp);
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_transaction_from_account FOREIGN KEY (from_account_id) REFERENCES accounts(id),
+    ADD CONSTRAINT fk_transaction_to_account FOREIGN KEY (to_account_id) REFERENCES accounts(id);
+
+-- ---------------------------------------------------------------------------------------------
+-- 4. Drop the string indexes and columns. The two indexes exist only where schema.sql was applied;
+--    skip that statement on databases created by Hibernate alone.
+-- ---------------------------------------------------------------------------------------------
+
+ALTER TABLE transactions
+    DROP INDEX idx_transaction_from_account,
+    DROP INDEX idx_transaction_to_account;
+
+ALTER TABLE transactions
+    DROP COLUMN from_account,
+    DROP COLUMN to_account;
+
+-- ---------------------------------------------------------------------------------------------
+-- 5. Refresh statistics, then re-run the measurement section above
+-- ---------------------------------------------------------------------------------------------
+
+ANALYZE TABLE transactions;
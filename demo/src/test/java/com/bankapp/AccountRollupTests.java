@@ -0,0 +1,89 @@
+package com.bankapp;
+
+import com.bankapp.dto.InsightsResponse;
+import com.bankapp.model.Account;
+import com.bankapp.model.User;
+import com.bankapp.repository.DailyAccountRollupRepository;
+import com.bankapp.repository.HourlyAccountRollupRepository;
+import com.bankapp.service.AccountRollupService;
+import com.bankapp.service.TransactionService;
+import com.bankapp.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Real transfers write the current hour; their rows are then moved back a few days, as if the days had
+// passed, so compaction folds them into daily rows
+@SpringBootTest
+@ActiveProfiles("dev")
+class AccountRollupTests {
+
+	@Autowired
+	private AccountRollupService accountRollupService;
+
+	@Autowired
+	private HourlyAccountRollupRepository hourlyRepository;
+
+	@Autowired
+	private DailyAccountRollupRepository dailyRepository;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void compactionKeepsInsightTotals() {
+		User user = createUser();
+		User otherUser = createUser();
+		Account account = userService.createAccount(user);
+		Account other = userService.createAccount(otherUser);
+		transactionService.depositMoney(account.getAccountNumber(), 100.0, user);
+		transactionService.transferMoney(account.getAccountNumber(), other.getAccountNumber(), 30.0, user);
+		transactionService.transferMoney(account.getAccountNumber(), other.getAccountNumber(), 20.0, user);
+
+		jdbcTemplate.update("update account_rollups_hourly set bucket_start = bucket_start - interval 3 day "
+				+ "where account_id in (?, ?)", account.getId(), other.getId());
+
+		LocalDate today = LocalDate.now();
+		InsightsResponse before = accountRollupService.getInsights(user, account.getAccountNumber(),
+				today.minusDays(5), today, "day");
+		assertEquals(0, new BigDecimal("100").compareTo(before.getTotalInflow()));
+		assertEquals(0, new BigDecimal("50").compareTo(before.getTotalOutflow()));
+		assertEquals(3, before.getTransactionCount());
+
+		accountRollupService.compact();
+
+		InsightsResponse after = accountRollupService.getInsights(user, account.getAccountNumber(),
+				today.minusDays(5), today, "day");
+		assertEquals(before, after);
+		InsightsResponse otherAfter = accountRollupService.getInsights(otherUser, other.getAccountNumber(),
+				today.minusDays(5), today, "day");
+		assertEquals(0, new BigDecimal("50").compareTo(otherAfter.getTotalInflow()));
+		assertEquals(2, otherAfter.getTransactionCount());
+
+		// Every amount of the compacted days is now in exactly one daily row per account
+		for (Account compacted : new Account[]{account, other}) {
+			assertEquals(0, hourlyRepository.findRange(compacted.getId(), today.minusDays(5).atStartOfDay(),
+					today.atStartOfDay()).size());
+			assertEquals(1, dailyRepository.findRange(compacted.getId(), today.minusDays(5).atStartOfDay(),
+					today.atStartOfDay()).size());
+		}
+	}
+
+	private User createUser() {
+		return userService.registerUser("Rollup", "rollup-" + UUID.randomUUID() + "@example.com", "secret", "USER");
+	}
+}
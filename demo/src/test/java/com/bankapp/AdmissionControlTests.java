@@ -0,0 +1,136 @@
+package com.bankapp;
+
+import com.bankapp.config.AdaptiveConcurrencyLimit;
+import com.bankapp.config.AdmissionControlFilter;
+import com.bankapp.config.RequestPriority;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Shedding order and slot release of AdmissionControlFilter, without a server
+class AdmissionControlTests {
+
+	private AdmissionControlFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		filter = new AdmissionControlFilter();
+		ReflectionTestUtils.setField(filter, "environment", new MockEnvironment());
+		ReflectionTestUtils.setField(filter, "enabled", true);
+		ReflectionTestUtils.setField(filter, "maxInFlight", 64);
+		ReflectionTestUtils.setField(filter, "virtualThreads", true);
+		ReflectionTestUtils.invokeMethod(filter, "initLimits");
+	}
+
+	@Test
+	void shedsLowerPrioritiesWhileAHigherOneIsSaturated() throws Exception {
+		AdaptiveConcurrencyLimit auth = filter.getLimits().get(RequestPriority.AUTH);
+		while (auth.tryAcquire()) {
+			// saturate the auth class
+		}
+
+		assertEquals(200, status("POST", "/user/transfer"));
+		assertEquals(503, status("POST", "/auth/login"));
+		assertEquals(503, status("GET", "/user/account"));
+		assertEquals(503, status("GET", "/admin/users"));
+	}
+
+	@Test
+	void lowerPrioritiesStopEarlierUnderTheSharedCap() throws Exception {
+		// 8 in flight: admin reads stop at 8 - 3 * 8 / 8 = 5, money movement only at 8
+		ReflectionTestUtils.setField(filter, "maxInFlight", 8);
+		MockHttpServletRequest[] held = new MockHttpServletRequest[5];
+		for (int i = 0; i < held.length; i++) {
+			held[i] = startAsync("GET", "/user/account");
+		}
+
+		assertEquals(503, status("GET", "/admin/users"));
+		assertEquals(200, status("GET", "/user/account"));
+		assertEquals(200, status("POST", "/user/transfer"));
+
+		held[0].getAsyncContext().complete();
+		assertEquals(200, status("GET", "/admin/users"));
+	}
+
+	@Test
+	void sharedCapOnlyAppliesWithVirtualThreads() throws Exception {
+		ReflectionTestUtils.setField(filter, "maxInFlight", 8);
+		ReflectionTestUtils.setField(filter, "virtualThreads", false);
+		for (int i = 0; i < 8; i++) {
+			startAsync("GET", "/user/account");
+		}
+
+		// Tomcat's worker pool bounds platform-thread requests; only the class limits shed
+		assertEquals(200, status("GET", "/admin/users"));
+		assertEquals(8, filter.getInFlight());
+	}
+
+	@Test
+	void synchronousRequestReleasesItsSlot() throws Exception {
+		status("GET", "/user/account");
+
+		assertEquals(0, filter.getInFlight());
+		assertEquals(0, filter.getLimits().get(RequestPriority.USER_READ).getInFlight());
+	}
+
+	@Test
+	void asyncRequestHoldsItsSlotUntilComplete() throws Exception {
+		MockHttpServletRequest request = startAsync("GET", "/admin/transactions");
+		assertEquals(1, filter.getInFlight());
+		assertEquals(1, filter.getLimits().get(RequestPriority.ADMIN_READ).getInFlight());
+
+		request.getAsyncContext().complete();
+		assertEquals(0, filter.getInFlight());
+		assertEquals(0, filter.getLimits().get(RequestPriority.ADMIN_READ).getInFlight());
+	}
+
+	@Test
+	void timedOutAsyncRequestReleasesItsSlotOnce() throws Exception {
+		MockHttpServletRequest request = startAsync("GET", "/user/transactions");
+		MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+
+		// A timeout is followed by the container's completion of the request
+		asyncContext.getListeners().forEach(listener -> {
+			try {
+				listener.onTimeout(null);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		asyncContext.complete();
+
+		assertEquals(0, filter.getInFlight());
+		assertEquals(0, filter.getLimits().get(RequestPriority.USER_READ).getInFlight());
+	}
+
+	private int status(String method, String path) throws Exception {
+		MockHttpServletRequest request = request(method, path);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, (req, res) -> {
+		});
+		return response.getStatus();
+	}
+
+	private MockHttpServletRequest startAsync(String method, String path) throws Exception {
+		MockHttpServletRequest request = request(method, path);
+		request.setAsyncSupported(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = (req, res) -> req.startAsync();
+		filter.doFilter(request, response, chain);
+		assertEquals(200, response.getStatus());
+		return request;
+	}
+
+	private static MockHttpServletRequest request(String method, String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setServletPath(path);
+		return request;
+	}
+}
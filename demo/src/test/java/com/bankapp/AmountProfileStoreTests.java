@@ -0,0 +1,106 @@
+package com.bankapp;
+
+import com.bankapp.model.AccountAmountProfile;
+import com.bankapp.repository.AccountAmountProfileRepository;
+import com.bankapp.service.AmountProfileStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// The store with an in-memory stand-in for account_amount_profiles and a JdbcTemplate that captures
+// the flushed upserts instead of running them
+class AmountProfileStoreTests {
+
+	private final List<AccountAmountProfile> storedProfiles = new ArrayList<>();
+	private final List<List<Object[]>> flushedBatches = new ArrayList<>();
+	private AmountProfileStore store;
+
+	@BeforeEach
+	void setUp() {
+		store = new AmountProfileStore();
+		ReflectionTestUtils.setField(store, "profileRepository", profileRepository());
+		ReflectionTestUtils.setField(store, "jdbcTemplate", new JdbcTemplate() {
+			@Override
+			public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+				flushedBatches.add(new ArrayList<>(batchArgs));
+				return new int[batchArgs.size()];
+			}
+		});
+		ReflectionTestUtils.setField(store, "flushBatchSize", 2);
+	}
+
+	@Test
+	void welfordUpdateMatchesTwoPassStatistics() {
+		assertNull(store.getStats("1001"));
+		double[] amounts = {100.0, 120.0, 80.0, 110.0, 90.0};
+		for (double amount : amounts) {
+			store.record("1001", amount);
+		}
+
+		// Mean 100, squared deviations sum to 1000, sample variance 1000 / 4
+		AmountProfileStore.Stats stats = store.getStats("1001");
+		assertEquals(5, stats.count());
+		assertEquals(100.0, stats.mean(), 1e-9);
+		assertEquals(Math.sqrt(250.0), stats.stdDev(), 1e-9);
+	}
+
+	@Test
+	void loadMergesStoredProfileIntoEarlySamples() {
+		// Stored: 100, 120, 80 (mean 100, M2 800); recorded before load: 110, 90
+		storedProfiles.add(new AccountAmountProfile("1001", 3L, 100.0, 800.0, LocalDateTime.now()));
+		store.record("1001", 110.0);
+		store.record("1001", 90.0);
+
+		store.load();
+
+		AmountProfileStore.Stats stats = store.getStats("1001");
+		assertEquals(5, stats.count());
+		assertEquals(100.0, stats.mean(), 1e-9);
+		assertEquals(Math.sqrt(250.0), stats.stdDev(), 1e-9);
+	}
+
+	@Test
+	void flushWritesDirtyProfilesInBatchesOnce() {
+		store.record("1001", 10.0);
+		store.record("1002", 20.0);
+		store.record("1003", 30.0);
+		store.record("1003", 50.0);
+
+		store.flush();
+
+		assertEquals(2, flushedBatches.size());
+		assertEquals(2, flushedBatches.get(0).size());
+		assertEquals(1, flushedBatches.get(1).size());
+		Object[] row = flushedBatches.stream().flatMap(List::stream)
+				.filter(r -> "1003".equals(r[0])).findFirst().orElseThrow();
+		assertEquals(2L, row[1]);
+		assertEquals(40.0, (double) row[2], 1e-9);
+		assertEquals(200.0, (double) row[3], 1e-9);
+
+		// Nothing changed since, so nothing is written
+		store.flush();
+		assertEquals(2, flushedBatches.size());
+
+		store.record("1002", 40.0);
+		store.flush();
+		assertEquals(3, flushedBatches.size());
+		assertEquals("1002", flushedBatches.get(2).get(0)[0]);
+	}
+
+	private AccountAmountProfileRepository profileRepository() {
+		return (AccountAmountProfileRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{AccountAmountProfileRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "findAll" -> storedProfiles;
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}
@@ -0,0 +1,183 @@
+package com.bankapp;
+
+import com.bankapp.service.AuditJournal;
+import com.bankapp.service.AuditJournalReader;
+import com.bankapp.service.TransactionCommittedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Writes, replays and recovers journals in a temporary directory, without a database. Segments hold
+// three records so rolling over and sealing are exercised.
+class AuditJournalTests {
+
+	// Offsets from AuditJournalFormat: 64-byte header, 72-byte records
+	private static final int HEADER_SIZE = 64;
+	private static final int RECORD_SIZE = 72;
+
+	private Path directory;
+	private AuditJournal journal;
+	private long nextTransactionId = 1;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		directory = Files.createTempDirectory("audit-journal-test");
+		journal = open();
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		ReflectionTestUtils.invokeMethod(journal, "close");
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Test
+	void replayRebuildsBalancesExactly() throws IOException {
+		// Summing ten transfers of 0.01 as doubles would not land on 0.20
+		deposit(1, 0.3);
+		for (int i = 0; i < 10; i++) {
+			transfer(1, 2, 0.01);
+		}
+		deposit(2, 1234567.89);
+
+		AuditJournalReader.Result result = replay();
+		assertEquals(List.of(), result.problems());
+		assertEquals(12, result.records());
+		assertEquals(12, result.lastSequence());
+		assertEquals(4, result.segments());
+		assertEquals(20L, result.balances().get(1L));
+		assertEquals(123456799L, result.balances().get(2L));
+	}
+
+	@Test
+	void tornRecordIsDiscardedOnRecovery() throws IOException {
+		deposit(1, 10.0);
+		deposit(1, 20.0);
+		close();
+
+		// The second record was half written when the process died
+		try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), HEADER_SIZE + RECORD_SIZE + 40);
+		}
+		journal = open();
+		deposit(1, 5.0);
+
+		AuditJournalReader.Result result = replay();
+		assertEquals(List.of(), result.problems());
+		assertEquals(2, result.records());
+		assertEquals(1500L, result.balances().get(1L));
+	}
+
+	@Test
+	void emptyTailSegmentIsStartedAgain() throws IOException {
+		deposit(1, 1.0);
+		deposit(1, 2.0);
+		deposit(1, 3.0);
+		// Rolls over: segment 0 is sealed, segment 1 holds this record
+		deposit(1, 4.0);
+		close();
+
+		// Died right after creating segment 1, before its header was written
+		try (FileChannel channel = FileChannel.open(segment(1), StandardOpenOption.WRITE)) {
+			channel.truncate(0);
+		}
+		assertTrue(replay().problems().isEmpty());
+
+		journal = open();
+		deposit(1, 10.0);
+
+		AuditJournalReader.Result result = replay();
+		assertEquals(List.of(), result.problems());
+		assertEquals(4, result.records());
+		assertEquals(4, result.lastSequence());
+		assertEquals(1600L, result.balances().get(1L));
+	}
+
+	@Test
+	void headerOnlyTailSegmentIsReopened() throws IOException {
+		deposit(1, 1.0);
+		close();
+
+		// Cut short right after the header: no records survive, appending starts at the first slot
+		try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+			channel.truncate(HEADER_SIZE);
+		}
+		journal = open();
+		deposit(1, 2.0);
+
+		AuditJournalReader.Result result = replay();
+		assertEquals(List.of(), result.problems());
+		assertEquals(1, result.records());
+		assertEquals(200L, result.balances().get(1L));
+	}
+
+	@Test
+	void verifyIsRefusedInACluster() throws IOException {
+		deposit(1, 1.0);
+		assertEquals(0, journal.verify().getMismatches());
+
+		ReflectionTestUtils.setField(journal, "clusterEnabled", true);
+		RuntimeException refused = assertThrows(RuntimeException.class, () -> journal.verify());
+		assertTrue(refused.getMessage().contains("app.cluster.enabled"), refused.getMessage());
+	}
+
+	private AuditJournal open() {
+		AuditJournal opened = new AuditJournal();
+		// A fresh journal snapshots opening balances; there are no accounts here
+		ReflectionTestUtils.setField(opened, "jdbcTemplate", new JdbcTemplate() {
+			@Override
+			public void query(String sql, RowCallbackHandler handler) {
+			}
+		});
+		ReflectionTestUtils.setField(opened, "enabled", true);
+		ReflectionTestUtils.setField(opened, "directory", directory.toString());
+		ReflectionTestUtils.setField(opened, "recordsPerSegment", 3);
+		ReflectionTestUtils.invokeMethod(opened, "open");
+		return opened;
+	}
+
+	private void close() {
+		ReflectionTestUtils.invokeMethod(journal, "close");
+	}
+
+	private void deposit(long accountId, double amount) {
+		journal.onTransactionCommitted(new TransactionCommittedEvent(nextTransactionId++, accountId, accountId, amount,
+				0.0, 0.0, LocalDateTime.now(), false, true));
+	}
+
+	private void transfer(long fromAccountId, long toAccountId, double amount) {
+		journal.onTransactionCommitted(new TransactionCommittedEvent(nextTransactionId++, fromAccountId, toAccountId,
+				amount, 0.0, 0.0, LocalDateTime.now(), false, false));
+	}
+
+	private AuditJournalReader.Result replay() throws IOException {
+		journal.force();
+		return AuditJournalReader.replay(directory);
+	}
+
+	private Path segment(long index) {
+		return directory.resolve(String.format("segment-%016d.journal", index));
+	}
+}
@@ -0,0 +1,132 @@
+package com.bankapp;
+
+import com.bankapp.config.BinaryRecordHttpMessageConverter;
+import com.bankapp.dto.ApiResponse;
+import com.bankapp.dto.TransactionPage;
+import com.bankapp.dto.TransactionResponse;
+import com.bankapp.model.TransactionStatus;
+import com.bankapp.service.BinaryRecordReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The record-stream converter on its own, decoding what it writes with BinaryRecordReader
+class BinaryRecordConverterTests {
+
+	private final BinaryRecordHttpMessageConverter converter = converter();
+
+	@Test
+	void onlyWritesOnceTheRecordTypeIsNegotiated() {
+		assertFalse(converter.canWrite(ApiResponse.class, null));
+		assertFalse(converter.canWrite(ApiResponse.class, MediaType.ALL));
+		assertFalse(converter.canWrite(ApiResponse.class, MediaType.APPLICATION_JSON));
+		assertTrue(converter.canWrite(ApiResponse.class, BinaryRecordHttpMessageConverter.MEDIA_TYPE));
+		assertFalse(converter.canRead(ApiResponse.class, BinaryRecordHttpMessageConverter.MEDIA_TYPE));
+	}
+
+	@Test
+	void transactionPageIsWrittenWithItsCursor() throws IOException {
+		TransactionPage page = new TransactionPage(List.of(transaction(1), transaction(2)), 2L);
+
+		BinaryRecordReader reader = read(write(new ApiResponse("ok", true, page)));
+		assertTrue(reader.isTransactions());
+		assertEquals(1L, reader.nextTransaction().getId());
+		assertEquals(2L, reader.nextTransaction().getId());
+		assertNull(reader.nextTransaction());
+		assertEquals("2", reader.getNextCursor());
+	}
+
+	@Test
+	void failureIsWrittenAsJson() throws IOException {
+		MockHttpOutputMessage message = write(new ApiResponse("Account not found", false, null));
+
+		assertEquals(MediaType.APPLICATION_JSON, message.getHeaders().getContentType());
+		assertTrue(message.getBodyAsString().contains("\"message\":\"Account not found\""));
+	}
+
+	@Test
+	void failureWhileReadingALazyListingEndsTheStreamWithAnError() throws IOException {
+		// A second page that cannot be read, as when the database goes away mid-export
+		Iterable<TransactionResponse> listing = () -> new Iterator<>() {
+			private int next = 1;
+
+			@Override
+			public boolean hasNext() {
+				if (next > 2) {
+					throw new IllegalStateException("connection lost");
+				}
+				return true;
+			}
+
+			@Override
+			public TransactionResponse next() {
+				return transaction(next++);
+			}
+		};
+
+		BinaryRecordReader reader = read(write(new ApiResponse("ok", true, listing)));
+		assertEquals(1L, reader.nextTransaction().getId());
+		assertEquals(2L, reader.nextTransaction().getId());
+		IOException failure = assertThrows(IOException.class, reader::nextTransaction);
+		assertTrue(failure.getMessage().contains("connection lost"));
+	}
+
+	@Test
+	void recordStreamIsAcceptedOnlyWhenNamed() {
+		assertFalse(BinaryRecordHttpMessageConverter.isAccepted(accepting(null)));
+		assertFalse(BinaryRecordHttpMessageConverter.isAccepted(accepting("*/*")));
+		assertFalse(BinaryRecordHttpMessageConverter.isAccepted(accepting("application/vnd.bankapp.records+binary;q=0")));
+		assertTrue(BinaryRecordHttpMessageConverter.isAccepted(accepting("application/vnd.bankapp.records+binary")));
+	}
+
+	private MockHttpOutputMessage write(ApiResponse response) throws IOException {
+		MockHttpOutputMessage message = new MockHttpOutputMessage();
+		converter.write(response, BinaryRecordHttpMessageConverter.MEDIA_TYPE, message);
+		return message;
+	}
+
+	private static BinaryRecordReader read(MockHttpOutputMessage message) throws IOException {
+		assertEquals(BinaryRecordHttpMessageConverter.MEDIA_TYPE, message.getHeaders().getContentType());
+		return new BinaryRecordReader(new ByteArrayInputStream(message.getBodyAsBytes()));
+	}
+
+	private static MockHttpServletRequest accepting(String accept) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/transactions");
+		if (accept != null) {
+			request.addHeader("Accept", accept);
+		}
+		return request;
+	}
+
+	private static TransactionResponse transaction(long id) {
+		TransactionResponse transaction = new TransactionResponse();
+		transaction.setId(id);
+		transaction.setFromAccount("1000000001");
+		transaction.setToAccount("1000000002");
+		transaction.setAmount(10.0 * id);
+		transaction.setTimestamp(LocalDateTime.now());
+		transaction.setStatus(TransactionStatus.SUCCESS);
+		return transaction;
+	}
+
+	private static BinaryRecordHttpMessageConverter converter() {
+		BinaryRecordHttpMessageConverter converter = new BinaryRecordHttpMessageConverter();
+		ReflectionTestUtils.setField(converter, "jsonMapper", JsonMapper.builder().build());
+		return converter;
+	}
+}
@@ -0,0 +1,155 @@
+package com.bankapp;
+
+import com.bankapp.config.AccountAffinityFilter;
+import com.bankapp.service.ClusterService;
+import com.bankapp.service.ConsistentHashRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs three clustered instances in one JVM against the test database and checks that money
+// movement entering at any node is executed by the account's owner, before and after the owner
+// leaves the cluster.
+class ClusterAffinityTests {
+
+	private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+	private static final Pattern ACCOUNT_NUMBER = Pattern.compile("\"accountNumber\"\\s*:\\s*\"([^\"]+)\"");
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		nodes.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@Test
+	void moneyMovementRunsOnTheAccountOwner() throws Exception {
+		String clusterName = "test-" + UUID.randomUUID();
+		for (int i = 0; i < 3; i++) {
+			nodes.add(startNode(clusterName, "node-" + i));
+		}
+		awaitMembers(nodes, 3);
+
+		String email = "cluster-" + UUID.randomUUID() + "@example.com";
+		send(nodes.get(0), "POST", "/auth/register", null,
+				"{\"name\":\"Cluster\",\"email\":\"" + email + "\",\"password\":\"password123\",\"role\":\"USER\"}");
+		String token = extract(TOKEN, send(nodes.get(0), "POST", "/auth/login", null,
+				"{\"email\":\"" + email + "\",\"password\":\"password123\"}").body());
+		String accountNumber = extract(ACCOUNT_NUMBER, send(nodes.get(0), "POST", "/user/account", token, "").body());
+
+		String owner = nodes.get(0).getBean(ClusterService.class).ownerOf(accountNumber);
+		for (ConfigurableApplicationContext node : nodes) {
+			assertDepositRunsOn(node, token, owner);
+		}
+
+		// A client cannot skip forwarding by claiming the request already came from a peer
+		HttpResponse<String> forged = send(nodes.get(0), "POST", "/user/deposit", token, "{\"amount\":10.0}",
+				AccountAffinityFilter.FORWARDED_HEADER, owner);
+		assertEquals(403, forged.statusCode(), forged.body());
+
+		ConfigurableApplicationContext ownerNode = nodes.stream()
+				.filter(node -> owner.equals(node.getBean(ClusterService.class).getNodeId()))
+				.findFirst().orElseThrow();
+		ownerNode.close();
+		nodes.remove(ownerNode);
+		awaitMembers(nodes, 2);
+
+		String newOwner = nodes.get(0).getBean(ClusterService.class).ownerOf(accountNumber);
+		assertNotEquals(owner, newOwner);
+		for (ConfigurableApplicationContext node : nodes) {
+			assertDepositRunsOn(node, token, newOwner);
+		}
+	}
+
+	@Test
+	void addingANodeOnlyMovesAccountsToIt() {
+		ConsistentHashRing before = new ConsistentHashRing(List.of("node-0", "node-1", "node-2"), 128);
+		ConsistentHashRing after = new ConsistentHashRing(List.of("node-0", "node-1", "node-2", "node-3"), 128);
+
+		int keys = 20000;
+		int moved = 0;
+		for (int i = 0; i < keys; i++) {
+			String accountNumber = String.valueOf(1_000_000_000L + i * 7919L);
+			String previousOwner = before.ownerOf(accountNumber);
+			String currentOwner = after.ownerOf(accountNumber);
+			if (!previousOwner.equals(currentOwner)) {
+				assertEquals("node-3", currentOwner, "Account " + accountNumber + " moved between existing nodes");
+				moved++;
+			}
+		}
+		// The new node takes about a quarter of the accounts
+		assertTrue(moved > keys * 0.15 && moved < keys * 0.35, "Moved " + moved + " of " + keys);
+	}
+
+	private ConfigurableApplicationContext startNode(String clusterName, String nodeId) {
+		return new SpringApplicationBuilder(BankAppApplication.class)
+				.profiles("dev")
+				// Instance-local files and background relays would collide between nodes in one JVM
+				.properties("server.port=0", "app.cluster.enabled=true", "app.cluster.name=" + clusterName,
+						"app.cluster.node-id=" + nodeId, "app.cluster.forward-secret=" + clusterName,
+						"app.cluster.heartbeat-interval-ms=200",
+						"app.cluster.member-timeout-ms=2000", "app.rate-limit.enabled=false",
+						"app.audit-journal.enabled=false", "app.outbox.enabled=false",
+						"app.scheduled-transfers.enabled=false")
+				.run();
+	}
+
+	private void assertDepositRunsOn(ConfigurableApplicationContext node, String token, String expectedNode)
+			throws Exception {
+		HttpResponse<String> response = send(node, "POST", "/user/deposit", token, "{\"amount\":10.0}");
+		assertEquals(200, response.statusCode(), response.body());
+		assertEquals(expectedNode, response.headers().firstValue(AccountAffinityFilter.NODE_HEADER).orElse(null));
+	}
+
+	private static void awaitMembers(List<ConfigurableApplicationContext> nodes, int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 15000;
+		while (System.currentTimeMillis() < deadline) {
+			boolean converged = nodes.stream().allMatch(node ->
+					node.getBean(ClusterService.class).report(null).getMembers().size() == expected);
+			if (converged) {
+				return;
+			}
+			Thread.sleep(100);
+		}
+		throw new AssertionError("Cluster did not converge on " + expected + " members");
+	}
+
+	private HttpResponse<String> send(ConfigurableApplicationContext node, String method, String path, String token,
+									  String body, String... headers) throws Exception {
+		String port = node.getEnvironment().getProperty("local.server.port");
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.method(method, HttpRequest.BodyPublishers.ofString(body))
+				.header("Content-Type", "application/json");
+		if (token != null) {
+			builder.header("Authorization", "Bearer " + token);
+		}
+		for (int i = 0; i < headers.length; i += 2) {
+			builder.header(headers[i], headers[i + 1]);
+		}
+		return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static String extract(Pattern pattern, String body) {
+		Matcher matcher = pattern.matcher(body);
+		if (!matcher.find()) {
+			throw new IllegalStateException("Unexpected response: " + body);
+		}
+		return matcher.group(1);
+	}
+}
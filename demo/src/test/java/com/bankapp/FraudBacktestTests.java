@@ -0,0 +1,122 @@
+package com.bankapp;
+
+import com.bankapp.dto.BacktestReport;
+import com.bankapp.dto.BacktestRequest;
+import com.bankapp.service.FraudBacktestService;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Replays an in-memory history, in the column order of the replay query, through the partition workers
+class FraudBacktestTests {
+
+	private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+	private final List<Object[]> history = new ArrayList<>();
+
+	@Test
+	void tallyComparesFlagsWithDecisions() {
+		transfer(1, 2, 5000.0, 0, "SUCCESS", "CONFIRMED_FRAUD");
+		transfer(1, 2, 6000.0, 1, "SUCCESS", "SAFE");
+		transfer(3, 4, 50.0, 2, "SUCCESS", "CONFIRMED_FRAUD");
+		transfer(3, 4, 60.0, 3, "SUCCESS", "SAFE");
+		transfer(5, 6, 70.0, 4, "SUCCESS", "SAFE");
+		transfer(5, 6, 2000.0, 5, "SUCCESS", null);
+		// Deposits and failed transfers are replayed but not scored
+		transfer(7, 7, 9000.0, 6, "SUCCESS", "SAFE");
+		transfer(1, 2, 9000.0, 7, "FAILED", "CONFIRMED_FRAUD");
+
+		// The tallies do not depend on how the accounts are partitioned or chunked
+		for (int partitions : new int[]{1, 4}) {
+			BacktestReport report = backtest(partitions, new BacktestRequest(1000.0, 100, 60, null, null, START, null));
+
+			assertEquals(8, report.getRowsReplayed());
+			assertEquals(6, report.getTransfersScored());
+			assertEquals(3, report.getFlagged());
+			assertEquals(0.5, report.getFlagRate());
+			assertEquals(5, report.getLabeled());
+			assertEquals(1, report.getTruePositives());
+			assertEquals(1, report.getFalsePositives());
+			assertEquals(1, report.getFalseNegatives());
+			assertEquals(2, report.getTrueNegatives());
+			assertEquals(0.5, report.getPrecision());
+			assertEquals(0.5, report.getRecall());
+			assertEquals(partitions, report.getPartitions());
+		}
+	}
+
+	@Test
+	void rowsBeforeTheRangeOnlyWarmUpTheVelocityWindow() {
+		// Two transfers in the minute before the range, then a third inside it
+		transfer(1, 2, 10.0, -1, "SUCCESS", "CONFIRMED_FRAUD");
+		transfer(1, 2, 10.0, -1, "SUCCESS", "CONFIRMED_FRAUD");
+		transfer(1, 2, 10.0, 0, "SUCCESS", "CONFIRMED_FRAUD");
+
+		BacktestReport report = backtest(2, new BacktestRequest(1000.0, 2, 5, null, null, START, null));
+
+		assertEquals(3, report.getRowsReplayed());
+		assertEquals(1, report.getTransfersScored());
+		assertEquals(1, report.getTruePositives());
+		assertEquals(1.0, report.getRecall());
+	}
+
+	@Test
+	void ratiosAreNullWithoutLabels() {
+		transfer(1, 2, 10.0, 0, "SUCCESS", null);
+
+		BacktestReport report = backtest(1, new BacktestRequest(1000.0, 100, 60, null, null, START, null));
+
+		assertEquals(1, report.getTransfersScored());
+		assertEquals(0, report.getLabeled());
+		assertNull(report.getPrecision());
+		assertNull(report.getRecall());
+	}
+
+	private void transfer(long from, long to, double amount, int minutes, String status, String decision) {
+		history.add(new Object[]{(long) history.size() + 1, from, to, amount, START.plusMinutes(minutes), status, decision});
+	}
+
+	private BacktestReport backtest(int partitions, BacktestRequest request) {
+		FraudBacktestService service = new FraudBacktestService();
+		ReflectionTestUtils.setField(service, "configuredPartitions", partitions);
+		ReflectionTestUtils.setField(service, "chunkSize", 2);
+		ReflectionTestUtils.setField(service, "profileMinStdDev", 1.0);
+		ReflectionTestUtils.setField(service, "streamingJdbcTemplate", new JdbcTemplate() {
+			@Override
+			public void query(String sql, RowCallbackHandler handler, Object... args) {
+				LocalDateTime from = (LocalDateTime) args[0];
+				LocalDateTime to = (LocalDateTime) args[1];
+				for (Object[] row : history) {
+					LocalDateTime timestamp = (LocalDateTime) row[4];
+					if (!timestamp.isBefore(from) && timestamp.isBefore(to)) {
+						try {
+							handler.processRow(resultSet(row));
+						} catch (SQLException e) {
+							throw new IllegalStateException(e);
+						}
+					}
+				}
+			}
+		});
+		return service.backtest(request);
+	}
+
+	private ResultSet resultSet(Object[] row) {
+		return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+				(proxy, method, args) -> switch (method.getName()) {
+					case "getLong", "getDouble", "getString", "getObject" -> row[(int) args[0] - 1];
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}
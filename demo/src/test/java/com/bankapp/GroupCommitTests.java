@@ -0,0 +1,134 @@
+package com.bankapp;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.User;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.TransactionRepository;
+import com.bankapp.service.GroupCommitService;
+import com.bankapp.service.TransactionService;
+import com.bankapp.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A single committer is held up by a row lock taken in another transaction, so an operation queued
+// behind that batch times out before any committer has claimed it
+@SpringBootTest(properties = {
+		"app.group-commit.enabled=true",
+		"app.group-commit.committers=1",
+		"app.group-commit.timeout-ms=500"
+})
+@ActiveProfiles("dev")
+class GroupCommitTests {
+
+	@Autowired
+	private GroupCommitService groupCommitService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void timedOutOperationIsNeverApplied() throws Exception {
+		User user = createUser();
+		User otherUser = createUser();
+		Account slowFrom = userService.createAccount(user);
+		Account slowTo = userService.createAccount(otherUser);
+		Account from = userService.createAccount(user);
+		Account to = userService.createAccount(otherUser);
+		transactionService.depositMoney(slowFrom.getAccountNumber(), 100.0, user);
+		transactionService.depositMoney(from.getAccountNumber(), 100.0, user);
+
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Void> lockHolder = CompletableFuture.runAsync(() ->
+				new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+					accountRepository.findByAccountNumberInOrderByIdAsc(List.of(slowFrom.getAccountNumber()));
+					locked.countDown();
+					try {
+						release.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}));
+		assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+		try {
+			// Claimed by the committer, which then waits for the lock
+			CompletableFuture<?> slow = CompletableFuture.supplyAsync(() ->
+					groupCommitService.transferMoney(slowFrom.getAccountNumber(), slowTo.getAccountNumber(), 10.0, user));
+			Thread.sleep(200);
+
+			RuntimeException timeout = assertThrows(RuntimeException.class, () ->
+					groupCommitService.transferMoney(from.getAccountNumber(), to.getAccountNumber(), 10.0, user));
+			assertEquals("Timed out waiting for the operation to commit", timeout.getMessage());
+
+			release.countDown();
+			lockHolder.get(10, TimeUnit.SECONDS);
+			// The claimed transfer outlived its timeout but still reports its real outcome
+			slow.get(10, TimeUnit.SECONDS);
+		} finally {
+			release.countDown();
+		}
+
+		// The committer takes operations in order, so once this deposit is done the timed-out transfer
+		// has been dequeued and dropped
+		groupCommitService.depositMoney(to.getAccountNumber(), 1.0, otherUser);
+
+		assertEquals(90.0, balance(slowFrom), 0.001);
+		assertEquals(10.0, balance(slowTo), 0.001);
+		assertEquals(100.0, balance(from), 0.001);
+		assertEquals(1.0, balance(to), 0.001);
+	}
+
+	@Test
+	void rejectedTransferLeavesNothingInTheBatch() {
+		User user = createUser();
+		User otherUser = createUser();
+		Account from = userService.createAccount(user);
+		Account to = userService.createAccount(otherUser);
+		groupCommitService.depositMoney(from.getAccountNumber(), 10.0, user);
+		long version = accountRepository.findById(from.getId()).orElseThrow().getChangeVersion();
+
+		RuntimeException rejected = assertThrows(RuntimeException.class, () ->
+				groupCommitService.transferMoney(from.getAccountNumber(), to.getAccountNumber(), 50.0, user));
+		assertEquals("Insufficient balance", rejected.getMessage());
+
+		// Only the deposit was written, and the account's cached history is still current
+		assertEquals(1, transactionRepository.findByFromAccountIdOrToAccountId(from.getId(), from.getId()).size());
+		assertEquals(version, accountRepository.findById(from.getId()).orElseThrow().getChangeVersion());
+		assertEquals(10.0, balance(from), 0.001);
+	}
+
+	private double balance(Account account) {
+		return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+	}
+
+	private User createUser() {
+		return userService.registerUser("Group Commit", "group-commit-" + UUID.randomUUID() + "@example.com", "secret", "USER");
+	}
+}
@@ -0,0 +1,204 @@
+package com.bankapp;
+
+import com.bankapp.model.OutboxEntryType;
+import com.bankapp.model.OutboxEvent;
+import com.bankapp.repository.OutboxEventRepository;
+import com.bankapp.repository.OutboxPartitionLeaseRepository;
+import com.bankapp.service.AccountNumberCache;
+import com.bankapp.service.InMemoryOutboxSink;
+import com.bankapp.service.OutboxMessage;
+import com.bankapp.service.OutboxService;
+import com.bankapp.service.OutboxSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Relay batches of OutboxService against in-memory stand-ins for the two repositories, driven one
+// batch at a time instead of by the relay threads
+class OutboxRelayTests {
+
+	private static final int PARTITION = 0;
+
+	private final TreeMap<Long, OutboxEvent> outbox = new TreeMap<>();
+	private final Map<Integer, String> leaseOwners = new HashMap<>();
+	private final Map<Integer, LocalDateTime> leaseExpiries = new HashMap<>();
+	private final InMemoryOutboxSink memorySink = new InMemoryOutboxSink();
+
+	private OutboxService relay;
+	private long nextId = 1;
+
+	@BeforeEach
+	void setUp() {
+		relay = relayPublishingTo(memorySink);
+	}
+
+	@Test
+	void publishesEachPartitionInIdOrderAcrossBatches() {
+		for (int i = 0; i < 5; i++) {
+			deposit(100 + i);
+		}
+
+		assertEquals(2, relayBatch());
+		assertEquals(2, relayBatch());
+		assertEquals(1, relayBatch());
+		assertEquals(0, relayBatch());
+
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L), eventIds(memorySink.getMessages(PARTITION)));
+		assertEquals(List.of(100L, 101L, 102L, 103L, 104L),
+				memorySink.getMessages(PARTITION).stream().map(OutboxMessage::transactionId).toList());
+		assertEquals(0, outbox.size());
+	}
+
+	@Test
+	void failedPublishIsRedelivered() {
+		deposit(100);
+		deposit(101);
+		int[] attempts = {0};
+		relay = relayPublishingTo(sink((partition, messages) -> {
+			if (attempts[0]++ == 0) {
+				throw new IllegalStateException("broker unavailable");
+			}
+			memorySink.publish(partition, messages);
+		}));
+
+		assertEquals(0, relayBatchExpectingFailure());
+		assertEquals(2, outbox.size());
+
+		assertEquals(2, relayBatch());
+		assertEquals(List.of(1L, 2L), eventIds(memorySink.getMessages(PARTITION)));
+	}
+
+	@Test
+	void leaseLostDuringPublishLeavesTheBatchForTheNewOwner() {
+		deposit(100);
+		deposit(101);
+		// Another instance takes over the partition while this one is still publishing
+		relay = relayPublishingTo(sink((partition, messages) -> {
+			memorySink.publish(partition, messages);
+			leaseOwners.put(partition, "other-instance");
+			leaseExpiries.put(partition, LocalDateTime.now().plusMinutes(1));
+		}));
+
+		assertEquals(0, relayBatch());
+		assertEquals(2, outbox.size());
+		// No further publish while the other instance holds the lease
+		assertEquals(0, relayBatch());
+
+		// The other instance dies: once its lease expires the batch goes out again
+		leaseExpiries.put(PARTITION, LocalDateTime.now().minusSeconds(1));
+		relay = relayPublishingTo(memorySink);
+		assertEquals(2, relayBatch());
+		assertEquals(List.of(1L, 2L, 1L, 2L), eventIds(memorySink.getMessages(PARTITION)));
+		assertEquals(0, outbox.size());
+	}
+
+	private OutboxService relayPublishingTo(OutboxSink sink) {
+		OutboxService service = new OutboxService();
+		ReflectionTestUtils.setField(service, "outboxEventRepository", eventRepository());
+		ReflectionTestUtils.setField(service, "leaseRepository", leaseRepository());
+		ReflectionTestUtils.setField(service, "accountNumberCache", new AccountNumberCache() {
+			@Override
+			public Map<Long, String> numbersOf(Collection<Long> accountIds) {
+				Map<Long, String> numbers = new HashMap<>();
+				accountIds.forEach(id -> numbers.put(id, "ACC" + id));
+				return numbers;
+			}
+		});
+		ReflectionTestUtils.setField(service, "sink", sink);
+		ReflectionTestUtils.setField(service, "partitions", 1);
+		ReflectionTestUtils.setField(service, "batchSize", 2);
+		ReflectionTestUtils.setField(service, "leaseSeconds", 30L);
+		return service;
+	}
+
+	private int relayBatch() {
+		Integer relayed = ReflectionTestUtils.invokeMethod(relay, "relayBatch", PARTITION);
+		return relayed;
+	}
+
+	private int relayBatchExpectingFailure() {
+		try {
+			return relayBatch();
+		} catch (IllegalStateException e) {
+			return 0;
+		}
+	}
+
+	private void deposit(long transactionId) {
+		long id = nextId++;
+		outbox.put(id, new OutboxEvent(id, PARTITION, 1L, 1L, transactionId, OutboxEntryType.DEPOSIT, 10.0,
+				LocalDateTime.now()));
+	}
+
+	private static List<Long> eventIds(List<OutboxMessage> messages) {
+		return messages.stream().map(OutboxMessage::eventId).toList();
+	}
+
+	private interface Publisher {
+		void publish(int partition, List<OutboxMessage> messages) throws Exception;
+	}
+
+	private static OutboxSink sink(Publisher publisher) {
+		return new OutboxSink() {
+			@Override
+			public String name() {
+				return "test";
+			}
+
+			@Override
+			public void publish(int partition, List<OutboxMessage> messages) throws Exception {
+				publisher.publish(partition, messages);
+			}
+		};
+	}
+
+	private OutboxEventRepository eventRepository() {
+		return (OutboxEventRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{OutboxEventRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "findBatch" -> outbox.values().stream()
+							.filter(event -> event.getPartitionNo().equals(args[0]))
+							.limit(((Pageable) args[1]).getPageSize())
+							.toList();
+					case "deletePublished" -> {
+						if (!args[2].equals(leaseOwners.get((Integer) args[1]))) {
+							yield 0;
+						}
+						int deleted = 0;
+						for (Object id : (Collection<?>) args[0]) {
+							deleted += outbox.remove((Long) id) != null ? 1 : 0;
+						}
+						yield deleted;
+					}
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private OutboxPartitionLeaseRepository leaseRepository() {
+		return (OutboxPartitionLeaseRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{OutboxPartitionLeaseRepository.class}, (proxy, method, args) -> {
+					if (!method.getName().equals("acquire")) {
+						throw new UnsupportedOperationException(method.getName());
+					}
+					Integer partition = (Integer) args[0];
+					String owner = leaseOwners.get(partition);
+					LocalDateTime expiry = leaseExpiries.get(partition);
+					if (owner != null && !owner.equals(args[1]) && !expiry.isBefore((LocalDateTime) args[2])) {
+						return 0;
+					}
+					leaseOwners.put(partition, (String) args[1]);
+					leaseExpiries.put(partition, (LocalDateTime) args[3]);
+					return 1;
+				});
+	}
+}
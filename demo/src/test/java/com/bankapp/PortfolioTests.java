@@ -0,0 +1,126 @@
+package com.bankapp;
+
+import com.bankapp.dto.PortfolioResponse;
+import com.bankapp.dto.TransactionResponse;
+import com.bankapp.model.Account;
+import com.bankapp.model.User;
+import com.bankapp.service.PortfolioService;
+import com.bankapp.service.TransactionService;
+import com.bankapp.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Pages through the merged history of a user with several accounts and checks that every
+// transaction touching them appears exactly once, newest first, across page boundaries.
+@SpringBootTest(properties = "app.accounts.max-per-user=3")
+@ActiveProfiles("dev")
+class PortfolioTests {
+
+	@Autowired
+	private PortfolioService portfolioService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Test
+	void mergesAllAccountsNewestFirst() {
+		User user = createUser();
+		List<Account> accounts = List.of(userService.createAccount(user), userService.createAccount(user),
+				userService.createAccount(user));
+		User other = createUser();
+		Account outside = userService.createAccount(other);
+
+		Set<Long> expected = new HashSet<>();
+		for (int i = 0; i < accounts.size(); i++) {
+			expected.add(transactionService.depositMoney(accounts.get(i).getAccountNumber(), 100.0 * (i + 1), user).getId());
+		}
+		expected.add(transactionService.transferMoney(accounts.get(0).getAccountNumber(),
+				accounts.get(1).getAccountNumber(), 25.0, user).getId());
+		expected.add(transactionService.transferMoney(accounts.get(2).getAccountNumber(),
+				accounts.get(0).getAccountNumber(), 50.0, user).getId());
+		transactionService.depositMoney(outside.getAccountNumber(), 500.0, other);
+		expected.add(transactionService.transferMoney(outside.getAccountNumber(),
+				accounts.get(1).getAccountNumber(), 75.0, other).getId());
+		expected.add(transactionService.transferMoney(accounts.get(1).getAccountNumber(),
+				outside.getAccountNumber(), 10.0, user).getId());
+
+		List<TransactionResponse> merged = new ArrayList<>();
+		String cursor = null;
+		PortfolioResponse page;
+		do {
+			page = portfolioService.getPortfolio(user, cursor, 2);
+			assertTrue(page.getTransactions().size() <= 2);
+			merged.addAll(page.getTransactions());
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+
+		assertEquals(expected.size(), merged.size());
+		assertEquals(expected, merged.stream().map(TransactionResponse::getId).collect(Collectors.toSet()));
+		for (int i = 1; i < merged.size(); i++) {
+			TransactionResponse newer = merged.get(i - 1);
+			TransactionResponse older = merged.get(i);
+			int byTime = newer.getTimestamp().compareTo(older.getTimestamp());
+			assertTrue(byTime > 0 || (byTime == 0 && newer.getId() > older.getId()), "Out of order at " + i);
+		}
+
+		assertEquals(3, page.getAccounts().size());
+		// 100 + 200 + 300 deposited, 75 in, 10 out
+		assertEquals(665.0, page.getTotalBalance(), 0.001);
+		// No fraud information in the owner's view
+		merged.forEach(transaction -> assertNull(transaction.getIsFraud()));
+	}
+
+	@Test
+	void concurrentAccountCreationStaysWithinTheLimit() throws Exception {
+		User user = createUser();
+		int attempts = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		long created = 0;
+		try (ExecutorService executor = Executors.newFixedThreadPool(attempts)) {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < attempts; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					try {
+						userService.createAccount(user);
+						return true;
+					} catch (RuntimeException e) {
+						assertEquals("Account limit of 3 reached", e.getMessage());
+						return false;
+					}
+				}));
+			}
+			start.countDown();
+			for (Future<Boolean> result : results) {
+				created += result.get(30, TimeUnit.SECONDS) ? 1 : 0;
+			}
+		}
+		assertEquals(3, created);
+		assertEquals(3, userService.getAccounts(user).size());
+	}
+
+	private User createUser() {
+		return userService.registerUser("Portfolio", "portfolio-" + UUID.randomUUID() + "@example.com", "secret", "USER");
+	}
+}
@@ -0,0 +1,141 @@
+package com.bankapp;
+
+import com.bankapp.config.JwtUtil;
+import com.bankapp.config.QueryBudgetFilter;
+import com.bankapp.config.QueryCountHolder;
+import com.bankapp.model.Account;
+import com.bankapp.model.User;
+import com.bankapp.service.TransactionService;
+import com.bankapp.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Exact statement counts per endpoint, as recorded by QueryBudgetFilter for the whole request
+// (authentication, controller and service). A change that adds a query (for example a lazy load
+// slipping back in) fails here instead of in production.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+class QueryCountTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	private User user;
+	private Account account;
+	private Account otherAccount;
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		user = createUser();
+		account = userService.createAccount(user);
+		otherAccount = userService.createAccount(createUser());
+		transactionService.depositMoney(account.getAccountNumber(), 1000.0, user);
+		token = jwtUtil.generateToken(user.getEmail(), user.getRole().name(), user.getId());
+	}
+
+	@Test
+	void account() throws Exception {
+		// version lookup, then the account with its owner
+		assertEquals(2, statements(get("/user/account")));
+	}
+
+	@Test
+	void accountNotModified() throws Exception {
+		// a matching If-None-Match is answered from the version lookup alone
+		String eTag = perform(get("/user/account")).getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(eTag);
+		MvcResult result = perform(get("/user/account").header(HttpHeaders.IF_NONE_MATCH, eTag));
+		assertEquals(304, result.getResponse().getStatus());
+		assertEquals(1, statements(result));
+	}
+
+	@Test
+	void transactions() throws Exception {
+		// version lookup, then the history; account numbers come from AccountNumberCache
+		assertEquals(2, statements(get("/user/transactions")));
+	}
+
+	@Test
+	void deposit() throws Exception {
+		// current user, their account, then account select, transaction insert, balance update,
+		// hourly rollup upsert, outbox insert
+		assertEquals(7, statements(post("/user/deposit")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"amount\":50.0}")));
+	}
+
+	@Test
+	void transfer() throws Exception {
+		// current user, their account, two account selects, velocity check, transaction insert,
+		// two balance updates, sender and receiver hourly rollup upserts, one two-row outbox insert
+		assertEquals(11, statements(post("/user/transfer")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"toAccount\":\"" + otherAccount.getAccountNumber() + "\",\"amount\":10.0}")));
+	}
+
+	@Test
+	void transferBetweenOwnAccounts() throws Exception {
+		// as transfer, without the velocity check
+		Account savings = userService.createAccount(user);
+		assertEquals(10, statements(post("/user/transfer")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"toAccount\":\"" + savings.getAccountNumber() + "\",\"amount\":10.0}")));
+	}
+
+	@Test
+	void portfolio() throws Exception {
+		// current user, every account with its owner, then all history streams in one statement,
+		// however many accounts
+		userService.createAccount(user);
+		userService.createAccount(user);
+		assertEquals(3, statements(get("/user/portfolio")));
+	}
+
+	private User createUser() {
+		return userService.registerUser("Query Count", "query-count-" + UUID.randomUUID() + "@example.com", "secret", "USER");
+	}
+
+	private MvcResult perform(MockHttpServletRequestBuilder request) throws Exception {
+		return mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token)).andReturn();
+	}
+
+	private int statements(MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult result = perform(request);
+		assertEquals(200, result.getResponse().getStatus(), result.getResponse().getContentAsString());
+		return statements(result);
+	}
+
+	private static int statements(MvcResult result) {
+		QueryCountHolder.Recording recording = (QueryCountHolder.Recording)
+				result.getRequest().getAttribute(QueryBudgetFilter.RECORDING_ATTRIBUTE);
+		assertNotNull(recording, "QueryBudgetFilter did not record the request");
+		return recording.getTotal();
+	}
+}
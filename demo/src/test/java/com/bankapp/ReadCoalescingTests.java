@@ -0,0 +1,128 @@
+package com.bankapp;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.User;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.service.AccountReadCoalescer;
+import com.bankapp.service.TransactionService;
+import com.bankapp.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Concurrent reads of one account version share a single load, and a committed deposit stops new
+// readers from joining a load that started before it.
+@SpringBootTest
+@ActiveProfiles("dev")
+class ReadCoalescingTests {
+
+	private static final int READERS = 8;
+
+	@Autowired
+	private AccountReadCoalescer readCoalescer;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	private User user;
+	private Account account;
+	private AccountRepository.AccountVersion version;
+
+	@BeforeEach
+	void setUp() {
+		user = userService.registerUser("Coalescing", "coalescing-" + UUID.randomUUID() + "@example.com", "secret", "USER");
+		account = userService.createAccount(user);
+		version = userService.getAccountVersion(user.getId(), null).orElseThrow();
+	}
+
+	@Test
+	void concurrentReadsShareOneLoad() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loads = new AtomicInteger();
+		long requestsBefore = readCoalescer.report().getRequests();
+
+		ExecutorService executor = Executors.newFixedThreadPool(READERS);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < READERS; i++) {
+				results.add(executor.submit(() -> readCoalescer.load("test", version, () -> {
+					loads.incrementAndGet();
+					await(release);
+					return "loaded";
+				})));
+			}
+			awaitRequests(requestsBefore + READERS);
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertEquals("loaded", result.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(1, loads.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void committedDepositDetachesInFlightLoad() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> before = executor.submit(() -> readCoalescer.load("test", version, () -> {
+				started.countDown();
+				await(release);
+				return "before deposit";
+			}));
+			await(started);
+
+			transactionService.depositMoney(account.getAccountNumber(), 25.0, user);
+
+			// Same key as the load still in flight, but the commit detached it
+			assertEquals("after deposit", readCoalescer.load("test", version, () -> "after deposit"));
+			release.countDown();
+			assertEquals("before deposit", before.get(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void awaitRequests(long expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (readCoalescer.report().getRequests() < expected) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("Readers did not reach the coalescer");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Timed out waiting for the test");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.bankapp;
+
+import com.bankapp.dto.AccountReconciliationResponse;
+import com.bankapp.model.Account;
+import com.bankapp.model.AccountReconciliation;
+import com.bankapp.model.User;
+import com.bankapp.repository.AccountReconciliationRepository;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.service.ReconciliationService;
+import com.bankapp.service.TransactionService;
+import com.bankapp.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Diffs stored balances against the ledger. settle-seconds=0 lets every committed transaction
+// move the checkpoint, so the incremental path is exercised as well.
+@SpringBootTest(properties = "app.reconciliation.settle-seconds=0")
+@ActiveProfiles("dev")
+class ReconciliationTests {
+
+	@Autowired
+	private ReconciliationService reconciliationService;
+
+	@Autowired
+	private AccountReconciliationRepository reconciliationRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	private User user;
+	private Account account;
+	private Account other;
+
+	@BeforeEach
+	void setUp() throws InterruptedException {
+		user = createUser();
+		account = userService.createAccount(user);
+		User otherUser = createUser();
+		other = userService.createAccount(otherUser);
+		transactionService.depositMoney(account.getAccountNumber(), 100.0, user);
+		transactionService.depositMoney(other.getAccountNumber(), 50.0, otherUser);
+		transactionService.transferMoney(account.getAccountNumber(), other.getAccountNumber(), 30.0, user);
+		// Settled means strictly older than the run
+		Thread.sleep(5);
+	}
+
+	@Test
+	void matchingBalancesAreNotReported() {
+		reconciliationService.reconcileAll();
+
+		assertMatches(account, "70.0000");
+		assertMatches(other, "80.0000");
+		assertFalse(isReported(account));
+	}
+
+	@Test
+	void checkpointOnlyAddsNewerTransactions() throws InterruptedException {
+		reconciliationService.reconcileAll();
+		long watermark = reconciliationRepository.findById(account.getId()).orElseThrow().getLastTransactionId();
+
+		long depositId = transactionService.depositMoney(account.getAccountNumber(), 12.5, user).getId();
+		Thread.sleep(5);
+		reconciliationService.reconcileAll();
+
+		AccountReconciliation checkpoint = reconciliationRepository.findById(account.getId()).orElseThrow();
+		assertTrue(depositId > watermark);
+		assertEquals(depositId, checkpoint.getLastTransactionId());
+		assertMatches(account, "82.5000");
+	}
+
+	@Test
+	void driftedBalanceIsReported() {
+		reconciliationService.reconcileAll();
+
+		Account stored = accountRepository.findById(account.getId()).orElseThrow();
+		stored.setBalance(stored.getBalance() + 5.0);
+		accountRepository.save(stored);
+		reconciliationService.reconcileAll();
+
+		AccountReconciliation checkpoint = reconciliationRepository.findById(account.getId()).orElseThrow();
+		assertTrue(checkpoint.getMismatch());
+		assertEquals(new BigDecimal("5.0000"), checkpoint.getDrift());
+		assertEquals(new BigDecimal("70.0000"), checkpoint.getLedgerBalance());
+		assertTrue(isReported(account));
+		assertFalse(isReported(other));
+	}
+
+	@Test
+	void driftWithinToleranceIsNotAMismatch() {
+		Account stored = accountRepository.findById(account.getId()).orElseThrow();
+		stored.setBalance(stored.getBalance() + 0.001);
+		accountRepository.save(stored);
+
+		reconciliationService.reconcileAll();
+
+		assertFalse(reconciliationRepository.findById(account.getId()).orElseThrow().getMismatch());
+	}
+
+	private void assertMatches(Account expected, String ledgerBalance) {
+		AccountReconciliation checkpoint = reconciliationRepository.findById(expected.getId()).orElseThrow();
+		assertFalse(checkpoint.getMismatch());
+		assertEquals(0, checkpoint.getDrift().signum());
+		assertEquals(new BigDecimal(ledgerBalance), checkpoint.getLedgerBalance());
+	}
+
+	private boolean isReported(Account candidate) {
+		return reconciliationService.getMismatches().stream()
+				.map(AccountReconciliationResponse::getAccountId)
+				.anyMatch(candidate.getId()::equals);
+	}
+
+	private User createUser() {
+		return userService.registerUser("Reconciliation", "reconciliation-" + UUID.randomUUID() + "@example.com", "secret", "USER");
+	}
+}
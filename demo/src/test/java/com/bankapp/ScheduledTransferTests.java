@@ -0,0 +1,199 @@
+package com.bankapp;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.ScheduledTransfer;
+import com.bankapp.model.ScheduledTransferStatus;
+import com.bankapp.model.User;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.ScheduledTransferRepository;
+import com.bankapp.service.ScheduledTransferService;
+import com.bankapp.service.TransactionService;
+import com.bankapp.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Claim, execute and cancel of standing orders against the test database. The background poller
+// is pushed out so that the test's own runDueTransfers call is the one executing the orders.
+@SpringBootTest(properties = "app.scheduled-transfers.poll-interval-ms=3600000")
+@ActiveProfiles("dev")
+class ScheduledTransferTests {
+
+	@Autowired
+	private ScheduledTransferService scheduledTransferService;
+
+	@Autowired
+	private ScheduledTransferRepository scheduledTransferRepository;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private User user;
+	private Account from;
+	private Account to;
+
+	@BeforeEach
+	void setUp() {
+		user = createUser();
+		from = userService.createAccount(user);
+		to = userService.createAccount(createUser());
+		transactionService.depositMoney(from.getAccountNumber(), 100.0, user);
+	}
+
+	@Test
+	void executesDueOrderAndSchedulesTheNextRun() {
+		ScheduledTransfer order = schedule(30.0);
+
+		scheduledTransferService.runDueTransfers();
+
+		ScheduledTransfer after = scheduledTransferRepository.findById(order.getId()).orElseThrow();
+		assertEquals(ScheduledTransferStatus.ACTIVE, after.getStatus());
+		assertNotNull(after.getLastTransactionId());
+		assertTrue(after.getNextRunAt().isAfter(LocalDateTime.now()));
+		assertNull(after.getClaimedBy());
+		assertEquals(70.0, balance(from), 0.001);
+		assertEquals(30.0, balance(to), 0.001);
+	}
+
+	@Test
+	void failedRunIsRetriedLater() {
+		ScheduledTransfer order = schedule(500.0);
+
+		scheduledTransferService.runDueTransfers();
+
+		ScheduledTransfer after = scheduledTransferRepository.findById(order.getId()).orElseThrow();
+		assertEquals(ScheduledTransferStatus.ACTIVE, after.getStatus());
+		assertEquals(1, after.getFailedAttempts());
+		assertTrue(after.getNextRunAt().isAfter(LocalDateTime.now()));
+		assertNull(after.getClaimedBy());
+		assertEquals(100.0, balance(from), 0.001);
+	}
+
+	@Test
+	void cancelledOrderIsNotExecuted() {
+		ScheduledTransfer order = schedule(30.0);
+
+		assertEquals(ScheduledTransferStatus.CANCELLED,
+				scheduledTransferService.cancelScheduledTransfer(user, order.getId()).getStatus());
+		// Cancelling again is a no-op
+		assertEquals(ScheduledTransferStatus.CANCELLED,
+				scheduledTransferService.cancelScheduledTransfer(user, order.getId()).getStatus());
+
+		scheduledTransferService.runDueTransfers();
+
+		ScheduledTransfer after = scheduledTransferRepository.findById(order.getId()).orElseThrow();
+		assertEquals(ScheduledTransferStatus.CANCELLED, after.getStatus());
+		assertNull(after.getLastTransactionId());
+		assertEquals(100.0, balance(from), 0.001);
+	}
+
+	@Test
+	void claimedOrderCannotBeCancelledUntilReleased() {
+		ScheduledTransfer order = schedule(30.0);
+		LocalDateTime now = LocalDateTime.now();
+		String token = UUID.randomUUID().toString();
+		assertEquals(1, scheduledTransferRepository.claim(List.of(order.getId()), token, now, now.plusMinutes(5)));
+
+		assertThrows(RuntimeException.class, () -> scheduledTransferService.cancelScheduledTransfer(user, order.getId()));
+		ScheduledTransfer claimed = scheduledTransferRepository.findById(order.getId()).orElseThrow();
+		assertEquals(ScheduledTransferStatus.ACTIVE, claimed.getStatus());
+		assertEquals(token, claimed.getClaimedBy());
+
+		// The claim is released the way a finished run releases it
+		scheduledTransferRepository.markSucceeded(order.getId(), token, now.plusDays(1), null);
+		assertEquals(ScheduledTransferStatus.CANCELLED,
+				scheduledTransferService.cancelScheduledTransfer(user, order.getId()).getStatus());
+	}
+
+	@Test
+	void orderTakenOverMidExecutionMovesMoneyOnce() {
+		ScheduledTransfer order = schedule(30.0);
+		// Another scheduler claims the order after this one's lease ran out, while the transfer is
+		// still uncommitted
+		ScheduledTransferRepository repository = (ScheduledTransferRepository) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[]{ScheduledTransferRepository.class},
+				(proxy, method, args) -> {
+					if (method.getName().equals("markSucceeded")) {
+						CompletableFuture.runAsync(() -> jdbcTemplate.update(
+								"update scheduled_transfers set claimed_by = 'other-scheduler' where id = ?",
+								order.getId())).join();
+					}
+					try {
+						return method.invoke(scheduledTransferRepository, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+		ScheduledTransferService target = AopTestUtils.getUltimateTargetObject(scheduledTransferService);
+		ReflectionTestUtils.setField(target, "scheduledTransferRepository", repository);
+		try {
+			scheduledTransferService.runDueTransfers();
+		} finally {
+			ReflectionTestUtils.setField(target, "scheduledTransferRepository", scheduledTransferRepository);
+		}
+		assertEquals(100.0, balance(from), 0.001);
+
+		// The other scheduler's lease runs out in turn and the order is run by the next poll
+		jdbcTemplate.update("update scheduled_transfers set claimed_until = ? where id = ?",
+				LocalDateTime.now().minusSeconds(1), order.getId());
+		scheduledTransferService.runDueTransfers();
+		// and not again once it has succeeded
+		scheduledTransferService.runDueTransfers();
+
+		assertEquals(1, jdbcTemplate.queryForObject("select count(*) from transactions where from_account_id = ? "
+				+ "and to_account_id = ? and status = 'SUCCESS'", Integer.class, from.getId(), to.getId()));
+		assertEquals(70.0, balance(from), 0.001);
+		assertEquals(30.0, balance(to), 0.001);
+	}
+
+	@Test
+	void otherUsersCannotCancel() {
+		ScheduledTransfer order = schedule(30.0);
+		User other = createUser();
+
+		assertThrows(RuntimeException.class, () -> scheduledTransferService.cancelScheduledTransfer(other, order.getId()));
+		assertEquals(ScheduledTransferStatus.ACTIVE,
+				scheduledTransferRepository.findById(order.getId()).orElseThrow().getStatus());
+		scheduledTransferService.cancelScheduledTransfer(user, order.getId());
+	}
+
+	private ScheduledTransfer schedule(double amount) {
+		return scheduledTransferService.createScheduledTransfer(user, from.getAccountNumber(), to.getAccountNumber(),
+				amount, "DAILY", LocalDateTime.now().minusMinutes(1));
+	}
+
+	private double balance(Account account) {
+		return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+	}
+
+	private User createUser() {
+		return userService.registerUser("Standing Order", "standing-order-" + UUID.randomUUID() + "@example.com", "secret", "USER");
+	}
+}
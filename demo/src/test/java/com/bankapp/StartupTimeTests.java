@@ -0,0 +1,58 @@
+package com.bankapp;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Boots the application in the fast profile and measures until the first HTTP request has been
+// answered. The default budget leaves little headroom over a local start of the fast profile, so a
+// regression shows up; set -Dstartup.budget.ms per environment to about 1.2x the time-to-ready that
+// StartupReport logs there.
+class StartupTimeTests {
+
+	private static final long BUDGET_MS = Long.getLong("startup.budget.ms", 8000);
+
+	@Test
+	void firstRequestIsServedWithinBudget() throws Exception {
+		long started = System.nanoTime();
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BankAppApplication.class)
+				.applicationStartup(new BufferingApplicationStartup(8192))
+				.profiles("dev", "fast")
+				// The dev database is created by ddl-auto=update, which already applies every migration,
+				// so it is adopted at the latest version rather than at V1
+				.properties("server.port=0", "app.schema.migrate-on-startup=true",
+						"spring.flyway.baseline-on-migrate=true", "spring.flyway.baseline-version=" + latestMigration())
+				.run()) {
+			String port = context.getEnvironment().getProperty("local.server.port");
+			HttpResponse<Void> response = HttpClient.newHttpClient().send(
+					HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/user/account")).GET().build(),
+					HttpResponse.BodyHandlers.discarding());
+			long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+			// Unauthenticated, so any 4xx means the full filter chain answered
+			assertTrue(response.statusCode() >= 400 && response.statusCode() < 500,
+					"Unexpected status " + response.statusCode());
+			assertTrue(elapsedMs <= BUDGET_MS, "First request answered after " + elapsedMs + " ms, budget " + BUDGET_MS + " ms");
+		}
+	}
+
+	private static int latestMigration() throws IOException {
+		int latest = 1;
+		for (Resource migration : new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/V*__*.sql")) {
+			String name = migration.getFilename();
+			latest = Math.max(latest, Integer.parseInt(name.substring(1, name.indexOf("__"))));
+		}
+		return latest;
+	}
+}
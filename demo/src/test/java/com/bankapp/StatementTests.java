@@ -0,0 +1,75 @@
+package com.bankapp;
+
+import com.bankapp.dto.StatementRunReport;
+import com.bankapp.model.Account;
+import com.bankapp.model.User;
+import com.bankapp.service.StatementService;
+import com.bankapp.service.TransactionService;
+import com.bankapp.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Generates the current month's statements and checks the files of two fresh accounts: every
+// transfer appears once on each side, and balances run from the opening to the closing balance.
+@SpringBootTest(properties = "app.statements.output-dir=target/test-statements")
+@ActiveProfiles("dev")
+class StatementTests {
+
+	@Autowired
+	private StatementService statementService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Test
+	void writesOneStatementPerAccount() throws Exception {
+		User user = createUser();
+		Account account = userService.createAccount(user);
+		User otherUser = createUser();
+		Account other = userService.createAccount(otherUser);
+		Account quiet = userService.createAccount(createUser());
+		long depositId = transactionService.depositMoney(account.getAccountNumber(), 100.0, user).getId();
+		long transferId = transactionService.transferMoney(account.getAccountNumber(), other.getAccountNumber(), 30.0, user).getId();
+
+		YearMonth month = YearMonth.now();
+		StatementRunReport report = statementService.generateStatements(month, "csv");
+		assertTrue(report.getStatements() >= 3);
+		assertTrue(report.getTransactions() >= 3);
+
+		Path directory = Paths.get(report.getOutputDirectory());
+		List<String> sender = Files.readAllLines(directory.resolve(account.getAccountNumber() + ".csv"));
+		assertEquals("opening_balance,0.0", sender.get(2));
+		assertTrue(sender.get(4).startsWith(depositId + ","));
+		assertTrue(sender.get(4).endsWith(",DEPOSIT," + account.getAccountNumber() + ",100.0,100.0"));
+		assertTrue(sender.get(5).startsWith(transferId + ","));
+		assertTrue(sender.get(5).endsWith(",TRANSFER_OUT," + other.getAccountNumber() + ",30.0,70.0"));
+		assertEquals("closing_balance,70.0", sender.get(6));
+		assertEquals("transaction_count,2", sender.get(9));
+
+		List<String> receiver = Files.readAllLines(directory.resolve(other.getAccountNumber() + ".csv"));
+		assertTrue(receiver.get(4).endsWith(",TRANSFER_IN," + account.getAccountNumber() + ",30.0,30.0"));
+		assertEquals("closing_balance,30.0", receiver.get(5));
+
+		List<String> empty = Files.readAllLines(directory.resolve(quiet.getAccountNumber() + ".csv"));
+		assertEquals("transaction_count,0", empty.get(empty.size() - 1));
+	}
+
+	private User createUser() {
+		return userService.registerUser("Statement", "statement-" + UUID.randomUUID() + "@example.com", "secret", "USER");
+	}
+}
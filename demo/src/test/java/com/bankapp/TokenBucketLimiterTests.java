@@ -0,0 +1,70 @@
+package com.bankapp;
+
+import com.bankapp.config.TokenBucketLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTests {
+
+	@Test
+	void admitsBurstThenRejectsWithWait() {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(3, 1);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limiter.tryAcquire(1L));
+		}
+		long wait = limiter.tryAcquire(1L);
+		assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+		// Other users have their own bucket
+		assertEquals(0, limiter.tryAcquire(2L));
+	}
+
+	@Test
+	void refillsOneTokenPerInterval() throws InterruptedException {
+		// 10 tokens per second: one every 100ms
+		TokenBucketLimiter limiter = new TokenBucketLimiter(2, 10);
+		assertEquals(0, limiter.tryAcquire(1L));
+		assertEquals(0, limiter.tryAcquire(1L));
+		assertTrue(limiter.tryAcquire(1L) > 0);
+
+		Thread.sleep(150);
+		assertEquals(0, limiter.tryAcquire(1L));
+		assertTrue(limiter.tryAcquire(1L) > 0);
+	}
+
+	@Test
+	void evictsOnlyFullBuckets() throws InterruptedException {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(2, 10);
+		limiter.tryAcquire(1L);
+		limiter.tryAcquire(2L);
+		limiter.tryAcquire(2L);
+
+		// Neither bucket has refilled yet
+		assertEquals(0, limiter.evictIdle());
+		assertEquals(2, limiter.size());
+
+		Thread.sleep(150);
+		// The first bucket is full again, the second is still one token short
+		assertEquals(1, limiter.evictIdle());
+		assertEquals(1, limiter.size());
+
+		Thread.sleep(150);
+		assertEquals(1, limiter.evictIdle());
+		assertEquals(0, limiter.size());
+	}
+
+	@Test
+	void evictedClientStartsWithAFullBucket() throws InterruptedException {
+		TokenBucketLimiter limiter = new TokenBucketLimiter(2, 10);
+		limiter.tryAcquire(1L);
+		Thread.sleep(150);
+		assertEquals(1, limiter.evictIdle());
+
+		assertEquals(0, limiter.tryAcquire(1L));
+		assertEquals(0, limiter.tryAcquire(1L));
+		assertTrue(limiter.tryAcquire(1L) > 0);
+	}
+}
@@ -0,0 +1,169 @@
+package com.bankapp;
+
+import com.bankapp.config.JwtAuthenticationFilter;
+import com.bankapp.config.JwtUtil;
+import com.bankapp.model.RevokedToken;
+import com.bankapp.repository.RevokedTokenRepository;
+import com.bankapp.service.TokenRevocationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Token revocation on two instances sharing an in-memory stand-in for the revoked_tokens table,
+// with the scheduled polls and rebuilds invoked directly
+class TokenRevocationTests {
+
+	private final Map<String, RevokedToken> revokedTokens = new ConcurrentHashMap<>();
+	private final AtomicInteger tableLookups = new AtomicInteger();
+
+	@AfterEach
+	void clearSecurityContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void everyRevokedTokenIsReported() {
+		// Far more revocations than the filter was sized for: false positives grow, false negatives never
+		TokenRevocationService service = instance(1000);
+		String[] revoked = new String[20_000];
+		for (int i = 0; i < revoked.length; i++) {
+			revoked[i] = UUID.randomUUID().toString();
+			service.revoke(revoked[i]);
+		}
+
+		for (String jti : revoked) {
+			assertTrue(service.isRevoked(jti));
+		}
+	}
+
+	@Test
+	void unrevokedTokensRarelyReachTheTable() {
+		TokenRevocationService service = instance(100_000);
+		for (int i = 0; i < 10_000; i++) {
+			service.revoke(UUID.randomUUID().toString());
+		}
+		tableLookups.set(0);
+
+		int unknown = 100_000;
+		for (int i = 0; i < unknown; i++) {
+			assertFalse(service.isRevoked(UUID.randomUUID().toString()));
+		}
+		// Configured for a 0.1% false-positive rate at 100,000 entries; a tenth of that is filled
+		assertTrue(tableLookups.get() < unknown / 1000, "lookups: " + tableLookups.get());
+		assertEquals(tableLookups.get(), service.getFilterHitCount());
+	}
+
+	@Test
+	void filterIsRebuiltFromTheTableOnStartup() {
+		LocalDateTime now = LocalDateTime.now();
+		revokedTokens.put("active", new RevokedToken("active", 1L, now.plusHours(1), now.minusMinutes(5)));
+		revokedTokens.put("expired", new RevokedToken("expired", 1L, now.minusMinutes(1), now.minusDays(1)));
+
+		TokenRevocationService service = instance(1000);
+
+		assertTrue(service.isRevoked("active"));
+		assertFalse(service.isRevoked("expired"));
+		// Expired rows are purged by the rebuild
+		assertFalse(revokedTokens.containsKey("expired"));
+	}
+
+	@Test
+	void loggedOutTokenIsRejectedOnEveryInstanceAfterThePoll() throws Exception {
+		JwtUtil jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "secret", "test_secret_key_that_is_at_least_256_bits_long_for_HS256");
+		ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+		String token = jwtUtil.generateToken("user@example.com", "USER", 7L);
+
+		TokenRevocationService loggedOutOn = instance(1000);
+		TokenRevocationService otherInstance = instance(1000);
+		JwtAuthenticationFilter local = filter(jwtUtil, loggedOutOn);
+		JwtAuthenticationFilter remote = filter(jwtUtil, otherInstance);
+		assertNotNull(authenticate(local, token));
+		assertNotNull(authenticate(remote, token));
+
+		loggedOutOn.revoke(jwtUtil.extractClaims(token));
+
+		assertNull(authenticate(local, token));
+		// Accepted elsewhere until that instance polls the table
+		assertNotNull(authenticate(remote, token));
+		otherInstance.pollRevocations();
+		assertNull(authenticate(remote, token));
+
+		// A freshly issued token for the same user is unaffected
+		assertNotNull(authenticate(remote, jwtUtil.generateToken("user@example.com", "USER", 7L)));
+	}
+
+	private TokenRevocationService instance(int expectedRevocations) {
+		TokenRevocationService service = new TokenRevocationService();
+		ReflectionTestUtils.setField(service, "revokedTokenRepository", repository());
+		ReflectionTestUtils.setField(service, "tokenLifetimeMs", 3_600_000L);
+		ReflectionTestUtils.setField(service, "expectedRevocations", expectedRevocations);
+		ReflectionTestUtils.setField(service, "falsePositiveRate", 0.001);
+		ReflectionTestUtils.setField(service, "clockSkewMs", 5000L);
+		ReflectionTestUtils.invokeMethod(service, "loadFilter");
+		return service;
+	}
+
+	private static JwtAuthenticationFilter filter(JwtUtil jwtUtil, TokenRevocationService revocations) {
+		JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+		ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+		ReflectionTestUtils.setField(filter, "tokenRevocationService", revocations);
+		return filter;
+	}
+
+	// The authenticated user id, or null if the request went through unauthenticated
+	private static Long authenticate(JwtAuthenticationFilter filter, String token) throws Exception {
+		SecurityContextHolder.clearContext();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/balance");
+		request.addHeader("Authorization", "Bearer " + token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		boolean authenticated = SecurityContextHolder.getContext().getAuthentication() != null;
+		return authenticated ? (Long) request.getAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE) : null;
+	}
+
+	private RevokedTokenRepository repository() {
+		return (RevokedTokenRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{RevokedTokenRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "save" -> {
+						RevokedToken token = (RevokedToken) args[0];
+						revokedTokens.put(token.getJti(), token);
+						yield token;
+					}
+					case "existsById" -> {
+						tableLookups.incrementAndGet();
+						yield revokedTokens.containsKey((String) args[0]);
+					}
+					case "findActiveJtis" -> revokedTokens.values().stream()
+							.filter(token -> token.getExpiresAt().isAfter((LocalDateTime) args[0]))
+							.map(RevokedToken::getJti)
+							.toList();
+					case "findJtisRevokedSince" -> revokedTokens.values().stream()
+							.filter(token -> !token.getRevokedAt().isBefore((LocalDateTime) args[0]))
+							.map(RevokedToken::getJti)
+							.toList();
+					case "deleteExpired" -> {
+						int before = revokedTokens.size();
+						revokedTokens.values().removeIf(token -> !token.getExpiresAt().isAfter((LocalDateTime) args[0]));
+						yield before - revokedTokens.size();
+					}
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}
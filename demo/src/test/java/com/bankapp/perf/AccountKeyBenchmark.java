@@ -0,0 +1,141 @@
+package com.bankapp.perf;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+// Before/after numbers for referencing accounts by id: builds two scratch copies of the transactions
+// table in the target schema, one keyed by VARCHAR account numbers (before) and one by BIGINT ids
+// (after), fills both with the same rows and prints index sizes and the median latency of the history
+// and velocity-rule queries. Not a unit test: run it by hand against a MySQL 8 scratch schema, e.g.
+// AccountKeyBenchmark jdbc:mysql://localhost:3306/bench root secret 2000000 5000
+//
+// The scratch tables are dropped at the end.
+public class AccountKeyBenchmark {
+
+	private static final int ITERATIONS = 200;
+
+	public static void main(String[] args) throws Exception {
+		String url = args.length > 0 ? args[0] : "jdbc:mysql://localhost:3306/bench";
+		String user = args.length > 1 ? args[1] : "root";
+		String password = args.length > 2 ? args[2] : "";
+		int rows = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+		int accounts = args.length > 4 ? Integer.parseInt(args[4]) : 5000;
+
+		try (Connection connection = DriverManager.getConnection(url + "?rewriteBatchedStatements=true", user, password)) {
+			create(connection, "bench_tx_by_number", "VARCHAR(20)");
+			create(connection, "bench_tx_by_id", "BIGINT");
+			fill(connection, rows, accounts);
+			try {
+				System.out.printf("%,d rows over %,d accounts, median of %d queries after warm-up%n", rows, accounts, ITERATIONS);
+				report(connection, "before (account numbers)", "bench_tx_by_number", "1000000042");
+				report(connection, "after (account ids)", "bench_tx_by_id", "42");
+			} finally {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("drop table bench_tx_by_number");
+					statement.execute("drop table bench_tx_by_id");
+				}
+			}
+		}
+	}
+
+	private static void create(Connection connection, String table, String keyType) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("drop table if exists " + table);
+			statement.execute("create table " + table + " (id bigint primary key auto_increment, "
+					+ "from_account " + keyType + " not null, to_account " + keyType + " not null, "
+					+ "amount double not null, timestamp datetime not null, status varchar(20) not null, "
+					+ "index idx_from (from_account), index idx_to (to_account))");
+		}
+	}
+
+	private static void fill(Connection connection, int rows, int accounts) throws SQLException {
+		Random random = new Random(42);
+		LocalDateTime start = LocalDateTime.now().minusDays(90);
+		connection.setAutoCommit(false);
+		try (PreparedStatement byNumber = connection.prepareStatement(
+				"insert into bench_tx_by_number (from_account, to_account, amount, timestamp, status) values (?, ?, ?, ?, ?)");
+			 PreparedStatement byId = connection.prepareStatement(
+					 "insert into bench_tx_by_id (from_account, to_account, amount, timestamp, status) values (?, ?, ?, ?, ?)")) {
+			for (int i = 1; i <= rows; i++) {
+				long from = 1 + random.nextInt(accounts);
+				long to = 1 + random.nextInt(accounts);
+				double amount = Math.round(random.nextDouble() * 500000) / 100.0;
+				Timestamp timestamp = Timestamp.valueOf(start.plusSeconds(i * 7L));
+				bind(byNumber, String.valueOf(1_000_000_000L + from), String.valueOf(1_000_000_000L + to), amount, timestamp);
+				bind(byId, from, to, amount, timestamp);
+				if (i % 10_000 == 0) {
+					byNumber.executeBatch();
+					byId.executeBatch();
+					connection.commit();
+				}
+			}
+			byNumber.executeBatch();
+			byId.executeBatch();
+			connection.commit();
+		} finally {
+			connection.setAutoCommit(true);
+		}
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("analyze table bench_tx_by_number, bench_tx_by_id");
+		}
+	}
+
+	private static void bind(PreparedStatement insert, Object from, Object to, double amount, Timestamp timestamp)
+			throws SQLException {
+		insert.setObject(1, from);
+		insert.setObject(2, to);
+		insert.setDouble(3, amount);
+		insert.setTimestamp(4, timestamp);
+		insert.setString(5, "SUCCESS");
+		insert.addBatch();
+	}
+
+	private static void report(Connection connection, String label, String table, String account) throws SQLException {
+		System.out.printf("%s:%n", label);
+		try (PreparedStatement sizes = connection.prepareStatement(
+				"select index_name, stat_value * @@innodb_page_size from mysql.innodb_index_stats "
+						+ "where database_name = database() and table_name = ? and stat_name = 'size' order by index_name")) {
+			sizes.setString(1, table);
+			try (ResultSet rs = sizes.executeQuery()) {
+				while (rs.next()) {
+					System.out.printf("  %-12s %10.2f MB%n", rs.getString(1), rs.getLong(2) / 1024.0 / 1024.0);
+				}
+			}
+		}
+		double history = median(connection, "select * from " + table + " where from_account = ? or to_account = ?", account, 2);
+		double velocity = median(connection, "select count(*) from " + table
+				+ " where from_account = ? and timestamp > now() - interval 30 day", account, 1);
+		System.out.printf("  history query   %8.3f ms%n", history);
+		System.out.printf("  velocity query  %8.3f ms%n", velocity);
+	}
+
+	private static double median(Connection connection, String sql, String account, int parameters) throws SQLException {
+		long[] samples = new long[ITERATIONS];
+		try (PreparedStatement query = connection.prepareStatement(sql)) {
+			for (int i = 1; i <= parameters; i++) {
+				query.setString(i, account);
+			}
+			for (int i = 0; i < ITERATIONS * 2; i++) {
+				long start = System.nanoTime();
+				try (ResultSet rs = query.executeQuery()) {
+					while (rs.next()) {
+						// drain
+					}
+				}
+				if (i >= ITERATIONS) {
+					samples[i - ITERATIONS] = System.nanoTime() - start;
+				}
+			}
+		}
+		Arrays.sort(samples);
+		return samples[ITERATIONS / 2] / 1e6;
+	}
+}
@@ -0,0 +1,171 @@
+package com.bankapp.perf;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Closed-loop load generator against a running instance. Not a unit test: run it by hand once per
+// server mode and compare the reports, e.g. app.group-commit.enabled=false vs true, or
+// spring.threads.virtual.enabled=false vs true with a transfer/history mix such as 0/50/50 and more
+// clients than Tomcat has platform threads (200). Rate limiting throttles a single user long before
+// the database does, so start the app with app.rate-limit.enabled=false for these runs.
+//
+// Usage: LoadHarness [baseUrl] [users] [threads] [seconds] [mix], where mix is the deposit/transfer/read
+// percentage split, e.g. 30/60/10. Each client runs on its own virtual thread, so thousands are cheap.
+public class LoadHarness {
+
+	private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+	private static final Pattern ACCOUNT_NUMBER = Pattern.compile("\"accountNumber\"\\s*:\\s*\"([^\"]+)\"");
+	private static final String[] OPERATIONS = {"POST /user/deposit", "POST /user/transfer", "GET /user/transactions"};
+
+	private final HttpClient client = HttpClient.newBuilder().build();
+	private final String baseUrl;
+
+	private LoadHarness(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	private record Customer(String token, String accountNumber) {
+	}
+
+	public static void main(String[] args) throws Exception {
+		String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+		int users = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+		int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+		int[] mix = Arrays.stream((args.length > 4 ? args[4] : "30/60/10").split("/")).mapToInt(Integer::parseInt).toArray();
+
+		LoadHarness harness = new LoadHarness(baseUrl);
+		List<Customer> customers = harness.setUp(users);
+		System.out.printf("Prepared %d funded accounts, running %d threads for %ds (mix %d/%d/%d)%n",
+				customers.size(), threads, seconds, mix[0], mix[1], mix[2]);
+		harness.run(customers, threads, seconds, mix);
+	}
+
+	private List<Customer> setUp(int users) throws Exception {
+		List<Customer> customers = new ArrayList<>(users);
+		for (int i = 0; i < users; i++) {
+			String email = "load-" + UUID.randomUUID() + "@example.com";
+			send("POST", "/auth/register", null,
+					"{\"name\":\"Load " + i + "\",\"email\":\"" + email + "\",\"password\":\"password123\",\"role\":\"USER\"}");
+			String token = extract(TOKEN, send("POST", "/auth/login", null,
+					"{\"email\":\"" + email + "\",\"password\":\"password123\"}").body());
+			String accountNumber = extract(ACCOUNT_NUMBER, send("POST", "/user/account", token, "").body());
+			send("POST", "/user/deposit", token, "{\"amount\":1000000.0}");
+			customers.add(new Customer(token, accountNumber));
+		}
+		return customers;
+	}
+
+	private void run(List<Customer> customers, int threads, int seconds, int[] mix) throws InterruptedException {
+		ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+		// Per client: one latency array per operation
+		List<long[][]> latencies = Collections.synchronizedList(new ArrayList<>());
+		AtomicLong[] failures = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+		AtomicLong shed = new AtomicLong();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+		for (int t = 0; t < threads; t++) {
+			latencies.add(new long[OPERATIONS.length][0]);
+			int slot = t;
+			pool.execute(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				long[][] samples = new long[OPERATIONS.length][1024];
+				int[] counts = new int[OPERATIONS.length];
+				while (System.nanoTime() < deadline) {
+					Customer customer = customers.get(random.nextInt(customers.size()));
+					int roll = random.nextInt(100);
+					int operation = roll < mix[0] ? 0 : roll < mix[0] + mix[1] ? 1 : 2;
+					long start = System.nanoTime();
+					try {
+						HttpResponse<String> response;
+						if (operation == 0) {
+							response = send("POST", "/user/deposit", customer.token(), "{\"amount\":10.0}");
+						} else if (operation == 1) {
+							Customer receiver = customers.get(random.nextInt(customers.size()));
+							response = send("POST", "/user/transfer", customer.token(),
+									"{\"toAccount\":\"" + receiver.accountNumber() + "\",\"amount\":1.0}");
+						} else {
+							response = send("GET", "/user/transactions", customer.token(), null);
+						}
+						if (response.statusCode() == 503) {
+							shed.incrementAndGet();
+						}
+						if (response.statusCode() >= 300) {
+							failures[operation].incrementAndGet();
+						}
+					} catch (Exception e) {
+						failures[operation].incrementAndGet();
+					}
+					if (counts[operation] == samples[operation].length) {
+						samples[operation] = Arrays.copyOf(samples[operation], counts[operation] * 2);
+					}
+					samples[operation][counts[operation]++] = System.nanoTime() - start;
+				}
+				long[][] trimmed = new long[OPERATIONS.length][];
+				for (int i = 0; i < OPERATIONS.length; i++) {
+					trimmed[i] = Arrays.copyOf(samples[i], counts[i]);
+				}
+				latencies.set(slot, trimmed);
+			});
+		}
+		pool.shutdown();
+		pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+		long[] all = latencies.stream().flatMap(Arrays::stream).flatMapToLong(Arrays::stream).sorted().toArray();
+		long totalFailures = Arrays.stream(failures).mapToLong(AtomicLong::get).sum();
+		System.out.printf("requests=%d failures=%d (503 shed=%d) throughput=%.1f req/s%n",
+				all.length, totalFailures, shed.get(), all.length / (double) seconds);
+		System.out.printf("p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms%n",
+				percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 1.0));
+		for (int i = 0; i < OPERATIONS.length; i++) {
+			int operation = i;
+			long[] sorted = latencies.stream().flatMapToLong(client -> Arrays.stream(client[operation])).sorted().toArray();
+			if (sorted.length == 0) {
+				continue;
+			}
+			System.out.printf("  %-24s requests=%d failures=%d throughput=%.1f req/s p50=%.2fms p99=%.2fms max=%.2fms%n",
+					OPERATIONS[i], sorted.length, failures[i].get(), sorted.length / (double) seconds,
+					percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+		}
+	}
+
+	private static double percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+		return sorted[Math.max(0, index)] / 1_000_000.0;
+	}
+
+	private HttpResponse<String> send(String method, String path, String token, String body) throws Exception {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+				.header("Content-Type", "application/json");
+		if (token != null) {
+			builder.header("Authorization", "Bearer " + token);
+		}
+		return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static String extract(Pattern pattern, String body) {
+		Matcher matcher = pattern.matcher(body);
+		if (!matcher.find()) {
+			throw new IllegalStateException("Unexpected response: " + body);
+		}
+		return matcher.group(1);
+	}
+}
@@ -0,0 +1,129 @@
+package com.bankapp.perf;
+
+import com.bankapp.dto.ApiResponse;
+import com.bankapp.dto.TransactionResponse;
+import com.bankapp.model.FraudDecision;
+import com.bankapp.model.TransactionStatus;
+import com.bankapp.service.BinaryRecordReader;
+import com.bankapp.service.BinaryRecordWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+// Compares the JSON listing (ApiResponse wrapping TransactionResponse rows, as the endpoints send
+// it) with the BinaryRecordFormat stream: payload size, gzipped size and encode time. Not a unit
+// test: run it by hand, e.g. RecordEncodingBenchmark 10000 50
+//
+// Two shapes: an admin listing over many accounts, and one account's history where that account
+// number is on every row.
+public class RecordEncodingBenchmark {
+
+	private static final JsonMapper JSON = JsonMapper.builder().build();
+
+	public static void main(String[] args) throws Exception {
+		int records = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+		System.out.printf("%d records, median of %d runs after warm-up%n", records, iterations);
+		run("admin listing", generate(records, 5000, false), iterations);
+		run("account history", generate(records, 5000, true), iterations);
+	}
+
+	private static void run(String label, List<TransactionResponse> transactions, int iterations) throws Exception {
+		ApiResponse response = new ApiResponse("Transactions retrieved successfully", true, transactions);
+		byte[] json = JSON.writeValueAsBytes(response);
+		byte[] binary = encodeBinary(transactions);
+		verify(transactions, binary);
+
+		long jsonNanos = median(iterations, () -> JSON.writeValueAsBytes(response));
+		long binaryNanos = median(iterations, () -> encodeBinary(transactions));
+
+		System.out.printf("%s:%n", label);
+		System.out.printf("  json    %,12d bytes  %,10d gzipped  %8.2f ms  %6.1f bytes/record%n",
+				json.length, gzip(json).length, jsonNanos / 1e6, json.length / (double) transactions.size());
+		System.out.printf("  binary  %,12d bytes  %,10d gzipped  %8.2f ms  %6.1f bytes/record%n",
+				binary.length, gzip(binary).length, binaryNanos / 1e6, binary.length / (double) transactions.size());
+		System.out.printf("  binary is %.1fx smaller and %.1fx faster to encode%n",
+				json.length / (double) binary.length, jsonNanos / (double) binaryNanos);
+	}
+
+	private static List<TransactionResponse> generate(int records, int accounts, boolean singleAccount) {
+		Random random = new Random(42);
+		// Whole seconds, as stored: epoch millis would drop anything finer
+		LocalDateTime timestamp = LocalDateTime.now().minusDays(90).truncatedTo(ChronoUnit.SECONDS);
+		String owner = "1000000001";
+		List<TransactionResponse> transactions = new ArrayList<>(records);
+		for (int i = 0; i < records; i++) {
+			String counterparty = String.valueOf(1_000_000_000L + random.nextInt(accounts) * 7919L);
+			boolean outgoing = random.nextBoolean();
+			String from = singleAccount ? (outgoing ? owner : counterparty) : counterparty;
+			String to = singleAccount ? (outgoing ? counterparty : owner)
+					: String.valueOf(1_000_000_000L + random.nextInt(accounts) * 7919L);
+			timestamp = timestamp.plusSeconds(random.nextInt(600));
+			boolean fraud = random.nextInt(100) == 0;
+			transactions.add(new TransactionResponse((long) i + 1, from, to, Math.round(random.nextDouble() * 500000) / 100.0,
+					timestamp, random.nextInt(50) == 0 ? TransactionStatus.FAILED : TransactionStatus.SUCCESS, fraud,
+					fraud ? "Transaction amount exceeds threshold of 50000.0." : null,
+					fraud && random.nextBoolean() ? FraudDecision.CONFIRMED_FRAUD : null));
+		}
+		return transactions;
+	}
+
+	private static byte[] encodeBinary(List<TransactionResponse> transactions) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryRecordWriter writer = BinaryRecordWriter.transactions(out);
+		for (TransactionResponse transaction : transactions) {
+			writer.write(transaction);
+		}
+		writer.finish(null);
+		return out.toByteArray();
+	}
+
+	private static void verify(List<TransactionResponse> expected, byte[] binary) throws IOException {
+		BinaryRecordReader reader = new BinaryRecordReader(new ByteArrayInputStream(binary));
+		for (TransactionResponse transaction : expected) {
+			TransactionResponse decoded = reader.nextTransaction();
+			if (!transaction.equals(decoded)) {
+				throw new IllegalStateException("Round trip mismatch: " + transaction + " vs " + decoded);
+			}
+		}
+		if (reader.nextTransaction() != null) {
+			throw new IllegalStateException("Extra records in binary stream");
+		}
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(data);
+		}
+		return out.toByteArray();
+	}
+
+	private interface Encoding {
+		Object run() throws Exception;
+	}
+
+	private static long median(int iterations, Encoding encoding) throws Exception {
+		for (int i = 0; i < iterations; i++) {
+			encoding.run();
+		}
+		long[] samples = new long[iterations];
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			encoding.run();
+			samples[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(samples);
+		return samples[iterations / 2];
+	}
+}
@@ -0,0 +1,137 @@
+package com.bankapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Detection on small graphs with the default cycle lengths, account ids as labels. In the same
+// package as TransferGraph, which is not public.
+class TransferGraphTests {
+
+	private static final int MIN_CYCLE = 3;
+	private static final int MAX_CYCLE = 5;
+	private static final int VISIT_BUDGET = 2000;
+
+	@Test
+	void threeCycleIsDetectedWithItsTransfers() {
+		TransferGraph graph = new TransferGraph(16, 60_000);
+		graph.addEdge(1, 2, 1000, 101);
+		graph.addEdge(2, 3, 2000, 102);
+
+		List<TransferGraph.Detection> detections = detect(graph, 3, 1, 3000, 103, 10, 3);
+		assertEquals(1, detections.size());
+		TransferGraph.Detection ring = detections.get(0);
+		assertFalse(ring.isHub());
+		assertTrue(ring.reason().startsWith(TransferGraph.REASON_PREFIX + " ring"), ring.reason());
+		assertTrue(ring.reason().contains("cycle of 3 transfers"), ring.reason());
+		assertArrayEquals(new long[]{102, 101, 103}, ring.transactionIds());
+	}
+
+	@Test
+	void shortOrOutOfOrderCyclesAreIgnored() {
+		TransferGraph graph = new TransferGraph(16, 60_000);
+		// A transfer straight back is below the minimum cycle length
+		graph.addEdge(1, 2, 1000, 101);
+		assertEquals(List.of(), detect(graph, 2, 1, 2000, 102, 10, 3));
+
+		// Funds cannot move on before they arrived: 5 -> 6 happens after 6 -> 7
+		graph.addEdge(6, 7, 1000, 103);
+		graph.addEdge(5, 6, 2000, 104);
+		assertEquals(List.of(), detect(graph, 7, 5, 3000, 105, 10, 3));
+	}
+
+	@Test
+	void expiredEdgeBreaksTheCycle() {
+		TransferGraph graph = new TransferGraph(16, 1000);
+		graph.addEdge(1, 2, 0, 101);
+		graph.addEdge(2, 3, 500, 102);
+
+		assertEquals(1, detect(graph, 3, 1, 900, 103, 10, 3).size());
+		// 1 -> 2 is now older than the window
+		assertEquals(List.of(), detect(graph, 3, 1, 1500, 103, 10, 3));
+
+		// Compaction keeps only the accounts of live edges
+		assertEquals(3, graph.nodeCount());
+		assertEquals(2, graph.compacted(1200).nodeCount());
+		assertEquals(0, graph.compacted(2000).nodeCount());
+	}
+
+	@Test
+	void overwrittenEdgeEndsTheListsAfterWrapAround() {
+		TransferGraph graph = new TransferGraph(4, 60_000);
+		graph.addEdge(1, 2, 1000, 101);
+		graph.addEdge(2, 3, 2000, 102);
+		assertEquals(1, detect(graph, 3, 1, 3000, 103, 10, 3).size());
+
+		// Three more edges wrap the ring buffer and overwrite 1 -> 2
+		graph.addEdge(8, 9, 3000, 104);
+		graph.addEdge(8, 9, 3000, 105);
+		graph.addEdge(8, 9, 3000, 106);
+		assertEquals(List.of(), detect(graph, 3, 1, 4000, 107, 10, 3));
+
+		// Edges written into reused slots are found as usual
+		graph.addEdge(4, 5, 4000, 108);
+		graph.addEdge(5, 6, 5000, 109);
+		List<TransferGraph.Detection> detections = detect(graph, 6, 4, 6000, 110, 10, 3);
+		assertEquals(1, detections.size());
+		assertArrayEquals(new long[]{109, 108, 110}, detections.get(0).transactionIds());
+	}
+
+	@Test
+	void hubIsFlaggedInFullOncePerCooldown() {
+		TransferGraph graph = new TransferGraph(64, 3_600_000);
+		// Accounts 11-13 pay hub 1, which has already forwarded to 21
+		graph.addEdge(11, 1, 1000, 101);
+		graph.addEdge(12, 1, 2000, 102);
+		graph.addEdge(13, 1, 3000, 103);
+		graph.addEdge(1, 21, 4000, 104);
+
+		MuleRingDetectionService service = new MuleRingDetectionService();
+		ReflectionTestUtils.setField(service, "hubCooldownMinutes", 1L);
+
+		List<TransferGraph.Detection> first = throttle(service, detect(graph, 1, 22, 5000, 105, 3, 2), 5000, 105);
+		assertEquals(1, first.size());
+		assertTrue(first.get(0).isHub());
+		assertEquals(1, first.get(0).hubAccountId());
+		assertArrayEquals(new long[]{105, 104}, first.get(0).transactionIds());
+		graph.addEdge(1, 22, 5000, 105);
+
+		// Within the cooldown only the new transfer out of the hub is flagged
+		List<TransferGraph.Detection> second = throttle(service, detect(graph, 1, 23, 6000, 106, 3, 2), 6000, 106);
+		assertArrayEquals(new long[]{106}, second.get(0).transactionIds());
+		graph.addEdge(1, 23, 6000, 106);
+
+		// After it, the hub is flagged in full again
+		List<TransferGraph.Detection> third = throttle(service, detect(graph, 1, 24, 70_000, 107, 3, 2), 70_000, 107);
+		assertArrayEquals(new long[]{107, 106, 105, 104}, third.get(0).transactionIds());
+	}
+
+	@Test
+	void hubNeedsEnoughDistinctSenders() {
+		TransferGraph graph = new TransferGraph(64, 3_600_000);
+		// Repeated transfers from one sender count once
+		graph.addEdge(11, 1, 1000, 101);
+		graph.addEdge(11, 1, 2000, 102);
+		graph.addEdge(12, 1, 3000, 103);
+		graph.addEdge(1, 21, 4000, 104);
+
+		assertEquals(List.of(), detect(graph, 1, 22, 5000, 105, 3, 2));
+	}
+
+	private List<TransferGraph.Detection> detect(TransferGraph graph, long from, long to, long time, long transactionId,
+			int minFanIn, int minFanOut) {
+		return graph.detect(from, to, time, transactionId, MIN_CYCLE, MAX_CYCLE, minFanIn, minFanOut, VISIT_BUDGET,
+				Long::toString);
+	}
+
+	private List<TransferGraph.Detection> throttle(MuleRingDetectionService service,
+			List<TransferGraph.Detection> detections, long time, long transactionId) {
+		return ReflectionTestUtils.invokeMethod(service, "throttleHubs", detections, time, transactionId);
+	}
+}
@@ -4,6 +4,8 @@ import './AdminDashboard.css'
 
 const AdminDashboard = () => {
   const [users, setUsers] = useState([])
+  const [usersCursor, setUsersCursor] = useState(null)
+  const [loadingMoreUsers, setLoadingMoreUsers] = useState(false)
   const [transactions, setTransactions] = useState([])
   const [fraudTransactions, setFraudTransactions] = useState([])
   const [loading, setLoading] = useState(false)
@@ -21,7 +23,8 @@ const AdminDashboard = () => {
         adminAPI.getAllTransactions(),
         adminAPI.getFraudTransactions(),
       ])
-      setUsers(usersRes.data.data || [])
+      setUsers(usersRes.data.data?.users || [])
+      setUsersCursor(usersRes.data.data?.nextCursor || null)
       setTransactions(transactionsRes.data.data || [])
       setFraudTransactions(fraudRes.data.data || [])
     } catch (error) {
@@ -31,6 +34,20 @@ const AdminDashboard = () => {
     }
   }
 
+  // /admin/users is paged by an opaque cursor, null once the last page has been read
+  const loadMoreUsers = async () => {
+    setLoadingMoreUsers(true)
+    try {
+      const response = await adminAPI.getUsers({ cursor: usersCursor })
+      setUsers((current) => [...current, ...(response.data.data?.users || [])])
+      setUsersCursor(response.data.data?.nextCursor || null)
+    } catch (error) {
+      console.error('Failed to load more users:', error)
+    } finally {
+      setLoadingMoreUsers(false)
+    }
+  }
+
   const handleFraudDecision = async (transactionId, decision) => {
     try {
       await adminAPI.makeFraudDecision(transactionId, decision)
@@ -49,7 +66,7 @@ const AdminDashboard = () => {
           className={activeTab === 'users' ? 'active' : ''}
           onClick={() => setActiveTab('users')}
         >
-          Users ({users.length})
+          Users ({users.length}{usersCursor ? '+' : ''})
         </button>
         <button
           className={activeTab === 'transactions' ? 'active' : ''}
@@ -92,6 +109,17 @@ const AdminDashboard = () => {
                     ))}
                   </tbody>
                 </table>
+                {usersCursor && (
+                  <div className="load-more">
+                    <button
+                      className="btn btn-secondary"
+                      onClick={loadMoreUsers}
+                      disabled={loadingMoreUsers}
+                    >
+                      {loadingMoreUsers ? 'Loading...' : 'Load more users'}
+                    </button>
+                  </div>
+                )}
               </div>
             )}
 
@@ -55,7 +55,7 @@ export const userAPI = {
 
 // Admin APIs
 export const adminAPI = {
-  getUsers: () => api.get('/admin/users'),
+  getUsers: (params) => api.get('/admin/users', { params }),
   getAllTransactions: () => api.get('/admin/transactions'),
   getFraudTransactions: () => api.get('/admin/transactions/fraud'),
   makeFraudDecision: (transactionId, decision) =>